@@ -0,0 +1,89 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData
+{
+    private static final String[] CART_COLUMNS = {
+        "movie_price.unit_price", "cart.quantity", "cart.movie_id", "movie.title",
+        "movie.backdrop_path", "movie.poster_path", "movie_price.premium_discount"
+    };
+
+    private static final int[] CART_TYPES = {
+        Types.DECIMAL, Types.INTEGER, Types.INTEGER, Types.VARCHAR,
+        Types.VARCHAR, Types.VARCHAR, Types.INTEGER
+    };
+
+    private BenchmarkData()
+    {
+    }
+
+    static Item item(int i)
+    {
+        return new Item()
+            .setMovieId(4154796L + i)
+            .setMovieTitle("Avengers: Endgame " + i)
+            .setBackdropPath("/7RyHsO4yDXtBv1zUU3mTpHeQ0d5.jpg")
+            .setPosterPath("/or06FN3Dka5tukK1e9sl16pB3iy.jpg")
+            .setQuantity(1 + (i % 10))
+            .setUnitPrice(BigDecimal.valueOf(19.95 - (i % 5)).setScale(2, RoundingMode.DOWN));
+    }
+
+    static List<Item> items(int size)
+    {
+        List<Item> items = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            items.add(item(i));
+        }
+
+        return items;
+    }
+
+    /**
+     * An in-memory result set shaped exactly like the CART_RETRIEVE select list, so row mapping can
+     * be measured without a database.
+     */
+    static CachedRowSet cartRows(int size) throws SQLException
+    {
+        CachedRowSet       rows     = RowSetProvider.newFactory().createCachedRowSet();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+
+        metaData.setColumnCount(CART_COLUMNS.length);
+
+        for (int i = 0; i < CART_COLUMNS.length; i++) {
+            metaData.setColumnName(i + 1, CART_COLUMNS[i]);
+            metaData.setColumnLabel(i + 1, CART_COLUMNS[i]);
+            metaData.setColumnType(i + 1, CART_TYPES[i]);
+        }
+
+        rows.setMetaData(metaData);
+
+        for (int i = 0; i < size; i++) {
+            Item item = item(i);
+
+            rows.moveToInsertRow();
+            rows.updateBigDecimal(1, BigDecimal.valueOf(24.95 - (i % 5)).setScale(4, RoundingMode.DOWN));
+            rows.updateInt(2, item.getQuantity());
+            rows.updateInt(3, item.getMovieId().intValue());
+            rows.updateString(4, item.getMovieTitle());
+            rows.updateString(5, item.getBackdropPath());
+            rows.updateString(6, item.getPosterPath());
+            rows.updateInt(7, 5 * (i % 6));
+            rows.insertRow();
+            rows.moveToCurrentRow();
+        }
+
+        return rows;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.repo.ItemRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.rowset.CachedRowSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRowMappingBenchmark
+{
+    @Param({"1", "10", "50"})
+    private int cartSize;
+
+    @Param({"false", "true"})
+    private boolean isPremium;
+
+    private CachedRowSet       rows;
+    private ItemRowMapper      indexMapper;
+    private LabelItemRowMapper labelMapper;
+
+    @Setup
+    public void setup() throws SQLException
+    {
+        this.rows = BenchmarkData.cartRows(cartSize);
+        this.indexMapper = ItemRowMapper.of(isPremium);
+        this.labelMapper = new LabelItemRowMapper(isPremium);
+    }
+
+    @Benchmark
+    public void byIndex(Blackhole blackhole) throws SQLException
+    {
+        map(indexMapper, blackhole);
+    }
+
+    @Benchmark
+    public void byLabel(Blackhole blackhole) throws SQLException
+    {
+        map(labelMapper, blackhole);
+    }
+
+    private void map(RowMapper<Item> mapper, Blackhole blackhole) throws SQLException
+    {
+        rows.beforeFirst();
+
+        int rowNum = 0;
+
+        while (rows.next()) {
+            blackhole.consume(mapper.mapRow(rows, rowNum++));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The previous label-based cart mapping, kept only as the baseline for the index-based
+ * {@link com.github.klefstad_teaching.cs122b.billing.repo.ItemRowMapper}.
+ */
+final class LabelItemRowMapper implements RowMapper<Item>
+{
+    private final boolean isPremium;
+
+    LabelItemRowMapper(boolean isPremium)
+    {
+        this.isPremium = isPremium;
+    }
+
+    @Override
+    public Item mapRow(ResultSet rs, int rowNum) throws SQLException
+    {
+        return new Item()
+            .setMovieId(rs.getLong("cart.movie_id"))
+            .setBackdropPath(rs.getString("movie.backdrop_path"))
+            .setMovieTitle(rs.getString("movie.title"))
+            .setQuantity(rs.getInt("cart.quantity"))
+            .setPosterPath(rs.getString("movie.poster_path"))
+            .setUnitPrice(Pricing.unitPrice(rs.getDouble("movie_price.unit_price"),
+                                            rs.getInt("movie_price.premium_discount"),
+                                            isPremium));
+    }
+}
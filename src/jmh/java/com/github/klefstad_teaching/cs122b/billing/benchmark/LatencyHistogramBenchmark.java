@@ -0,0 +1,54 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.metrics.LatencyHistogram;
+import com.github.klefstad_teaching.cs122b.billing.metrics.Phase;
+import com.github.klefstad_teaching.cs122b.billing.metrics.RequestPhases;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one phase measurement: the two nanoTime reads and the thread-local add done around every
+ * advised call, and the histogram record done once per phase when the request finishes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatencyHistogramBenchmark
+{
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    @Threads(1)
+    public void recordUncontended()
+    {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 50_000_000));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordContended()
+    {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 50_000_000));
+    }
+
+    @Benchmark
+    public void timePhase()
+    {
+        long start = System.nanoTime();
+        RequestPhases.add(Phase.DATABASE, System.nanoTime() - start);
+    }
+}
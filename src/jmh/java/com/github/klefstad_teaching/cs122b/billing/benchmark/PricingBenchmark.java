@@ -0,0 +1,61 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingBenchmark
+{
+    @Param({"1", "10", "50"})
+    private int cartSize;
+
+    private List<Item> items;
+    private double     unitPrice;
+    private int        premiumDiscount;
+
+    @Setup
+    public void setup()
+    {
+        this.items = BenchmarkData.items(cartSize);
+        this.unitPrice = 24.95;
+        this.premiumDiscount = 15;
+    }
+
+    @Benchmark
+    public BigDecimal standardUnitPrice()
+    {
+        return Pricing.unitPrice(unitPrice, premiumDiscount, false);
+    }
+
+    @Benchmark
+    public BigDecimal premiumUnitPrice()
+    {
+        return Pricing.unitPrice(unitPrice, premiumDiscount, true);
+    }
+
+    @Benchmark
+    public BigDecimal total()
+    {
+        return Pricing.total(items);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionKind;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionRule;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionBenchmark
+{
+    private static final PromotionKind[] KINDS = PromotionKind.values();
+
+    @Param({"1", "10", "50"})
+    private int cartSize;
+
+    @Param({"100", "10000"})
+    private int ruleCount;
+
+    private List<Item>     items;
+    private List<String>   roles;
+    private PromotionTable table;
+    private long           now;
+
+    @Setup
+    public void setup()
+    {
+        List<PromotionRule> rules = new ArrayList<>(ruleCount);
+
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(new PromotionRule(i, KINDS[i % KINDS.length], 4154796L + (i % 500),
+                                        i % 3 == 0 ? "PREMIUM" : null, BigDecimal.valueOf(i % 20),
+                                        2, 1, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+
+        this.items = BenchmarkData.items(cartSize);
+        this.roles = Arrays.asList("PREMIUM", "EMPLOYEE");
+        this.now = System.currentTimeMillis();
+        this.table = PromotionTable.compile(rules, now);
+    }
+
+    @Benchmark
+    public BigDecimal priceCart()
+    {
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Item item : items) {
+            total = total.add(table.bestPrice(item.getMovieId(), item.getUnitPrice(), item.getQuantity(), roles, now));
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.config.OutboxConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.SlowQueryConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.TracingConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheInvalidationBus;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.LoopbackTransport;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.slowquery.SlowQueryLog;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the named-parameter, label-mapped cart read the repository used to do against the
+ * positional, index-mapped {@link BillingRepo#cartRetrieve}. Both run against the same in-memory
+ * H2 database; run with {@code -prof gc} to read the allocation per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class RepositoryAllocationBenchmark
+{
+    //language=sql
+    private static final String NAMED_CART_RETRIEVE =
+        "SELECT movie_price.unit_price, cart.quantity, cart.movie_id, movie.title, " +
+        "movie.backdrop_path, movie.poster_path, movie_price.premium_discount " +
+        "FROM billing.cart " +
+        "JOIN billing.movie_price ON cart.movie_id = movie_price.movie_id " +
+        "JOIN movies.movie ON cart.movie_id = movie.id " +
+        "WHERE cart.user_id = :userId;";
+
+    private static final long USER_ID = 1L;
+
+    @Param({"1", "10"})
+    private int cartSize;
+
+    private SingleConnectionDataSource dataSource;
+    private NamedParameterJdbcTemplate named;
+    private BillingRepo                repo;
+    private LabelItemRowMapper         labelMapper;
+
+    @Setup
+    public void setup()
+    {
+        this.dataSource = new SingleConnectionDataSource(
+            "jdbc:h2:mem:repo_benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "", true);
+        this.named = new NamedParameterJdbcTemplate(dataSource);
+        this.repo = new BillingRepo(named, new CacheInvalidationBus(new LoopbackTransport()),
+                                    new Tracer(new TracingConfig(false, 0.0, 0, 0L, "memory", 1, "", 1)),
+                                    new SlowQueryLog(new SlowQueryConfig(false, 0L, 1, 0.0, "", false, "", 0L, 0, 1)),
+                                    new OutboxConfig(false, false, 1, Duration.ofSeconds(30)));
+        this.labelMapper = new LabelItemRowMapper(false);
+
+        JdbcTemplate jdbc = named.getJdbcTemplate();
+
+        jdbc.execute("CREATE SCHEMA billing;");
+        jdbc.execute("CREATE SCHEMA movies;");
+        jdbc.execute("CREATE TABLE movies.movie (id INT PRIMARY KEY, title VARCHAR(128), " +
+                     "backdrop_path VARCHAR(32), poster_path VARCHAR(32));");
+        jdbc.execute("CREATE TABLE billing.movie_price (movie_id INT PRIMARY KEY, " +
+                     "unit_price DECIMAL(19,4), premium_discount INT);");
+        jdbc.execute("CREATE TABLE billing.cart (user_id INT, movie_id INT, quantity INT, " +
+                     "PRIMARY KEY (user_id, movie_id));");
+
+        for (int i = 0; i < cartSize; i++) {
+            Item item = BenchmarkData.item(i);
+
+            jdbc.update("INSERT INTO movies.movie VALUES (?, ?, ?, ?);",
+                        item.getMovieId(), item.getMovieTitle(), item.getBackdropPath(), item.getPosterPath());
+            jdbc.update("INSERT INTO billing.movie_price VALUES (?, 19.9500, 10);", item.getMovieId());
+            jdbc.update("INSERT INTO billing.cart VALUES (?, ?, ?);", USER_ID, item.getMovieId(), item.getQuantity());
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Item> namedByLabel()
+    {
+        return named.query(
+            NAMED_CART_RETRIEVE,
+            new MapSqlParameterSource().addValue("userId", USER_ID, Types.BIGINT),
+            labelMapper);
+    }
+
+    @Benchmark
+    public List<Item> positionalByIndex()
+    {
+        return repo.cartRetrieve(false, USER_ID);
+    }
+}
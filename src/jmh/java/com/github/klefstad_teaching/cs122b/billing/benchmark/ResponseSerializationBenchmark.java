@@ -0,0 +1,84 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.response.ListRetrieveResponse;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
+import com.github.klefstad_teaching.cs122b.core.result.BillingResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming billing serializers against plain reflective Jackson. Run with
+ * {@code -prof gc} to see the per-request allocation difference alongside the CPU time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark
+{
+    @Param({"1", "10", "50"})
+    private int cartSize;
+
+    private ListRetrieveResponse response;
+    private ObjectWriter         streamingWriter;
+    private ObjectWriter         reflectiveWriter;
+    private OutputStream         sink;
+
+    @Setup
+    public void setup()
+    {
+        List<Item> items = BenchmarkData.items(cartSize);
+
+        this.response = new ListRetrieveResponse()
+            .setResult(BillingResults.CART_RETRIEVED)
+            .setItems(items)
+            .setTotal(Pricing.total(items));
+
+        this.streamingWriter = new ObjectMapper().writerFor(ListRetrieveResponse.class);
+        this.reflectiveWriter = new ObjectMapper()
+            .addMixIn(ListRetrieveResponse.class, ReflectiveMixin.class)
+            .addMixIn(Item.class, ReflectiveMixin.class)
+            .writerFor(ListRetrieveResponse.class);
+        this.sink = OutputStream.nullOutputStream();
+    }
+
+    @Benchmark
+    public void streaming() throws IOException
+    {
+        streamingWriter.writeValue(sink, response);
+    }
+
+    @Benchmark
+    public void reflective() throws IOException
+    {
+        reflectiveWriter.writeValue(sink, response);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonSerialize(using = JsonSerializer.None.class)
+    abstract static class ReflectiveMixin
+    {
+    }
+}
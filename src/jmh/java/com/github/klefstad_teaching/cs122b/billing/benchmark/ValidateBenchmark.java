@@ -0,0 +1,69 @@
+package com.github.klefstad_teaching.cs122b.billing.benchmark;
+
+import com.github.klefstad_teaching.cs122b.billing.util.Validate;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import com.stripe.model.PaymentIntent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidateBenchmark
+{
+    private PaymentIntent paymentIntent;
+    private Integer       validQuantity;
+    private Integer       invalidQuantity;
+    private String        userId;
+
+    @Setup
+    public void setup()
+    {
+        this.paymentIntent = new PaymentIntent();
+        this.paymentIntent.setStatus("succeeded");
+        this.paymentIntent.setMetadata(Collections.singletonMap("userId", "1"));
+
+        this.validQuantity = 5;
+        this.invalidQuantity = 11;
+        this.userId = "1";
+    }
+
+    @Benchmark
+    public void validQuantity()
+    {
+        Validate.checkQuantity(validQuantity);
+    }
+
+    @Benchmark
+    public ResultError invalidQuantity()
+    {
+        try {
+            Validate.checkQuantity(invalidQuantity);
+        } catch (ResultError e) {
+            return e;
+        }
+
+        return null;
+    }
+
+    @Benchmark
+    public void paymentIntent()
+    {
+        Validate.checkPaymentStatus(paymentIntent);
+        Validate.checkCorrectUser(paymentIntent, userId);
+    }
+}
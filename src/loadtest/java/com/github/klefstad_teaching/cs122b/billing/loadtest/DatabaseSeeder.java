@@ -0,0 +1,91 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the embedded database from the same scripts production uses. The movies and idm data
+ * come from the other services, so only the rows the billing foreign keys need are synthesised.
+ */
+public class DatabaseSeeder
+{
+    private static final Pattern MOVIE_PRICE_ROW = Pattern.compile("\\(\\s*(\\d+)\\s*,");
+
+    private final DataSource   dataSource;
+    private final JdbcTemplate template;
+    private final Path         projectDir;
+
+    public DatabaseSeeder(DataSource dataSource, Path projectDir)
+    {
+        this.dataSource = dataSource;
+        this.template = new JdbcTemplate(dataSource);
+        this.projectDir = projectDir;
+    }
+
+    public List<Long> seed(int numUsers) throws SQLException, IOException
+    {
+        Path schema = projectDir.resolve("db.sql");
+        Path prices = projectDir.resolve("db/billing_movie_price.sql");
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new FileSystemResource(schema));
+        }
+
+        List<Long> movieIds = readMovieIds(prices);
+
+        template.update("INSERT INTO idm.user_status (id, value) VALUES (1, 'Active');");
+        template.update("INSERT INTO movies.person (id, name) VALUES (1, 'Load Test Director');");
+
+        List<Object[]> movies = new ArrayList<>(movieIds.size());
+        for (Long movieId : movieIds) {
+            movies.add(new Object[]{
+                movieId, "Movie " + movieId, "/backdrop_" + movieId + ".jpg", "/poster_" + movieId + ".jpg"
+            });
+        }
+        template.batchUpdate(
+            "INSERT INTO movies.movie (id, title, year, director_id, backdrop_path, poster_path) " +
+            "VALUES (?, ?, 2000, 1, ?, ?);",
+            movies);
+
+        List<Object[]> users = new ArrayList<>(numUsers);
+        for (int i = 1; i <= numUsers; i++) {
+            users.add(new Object[]{i, "load" + i + "@example.com"});
+        }
+        template.batchUpdate(
+            "INSERT INTO idm.user (id, email, user_status_id, salt, hashed_password) " +
+            "VALUES (?, ?, 1, 'AAAAAAA=', 'x');",
+            users);
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new FileSystemResource(prices));
+        }
+
+        return movieIds;
+    }
+
+    private static List<Long> readMovieIds(Path prices) throws IOException
+    {
+        String  sql     = new String(Files.readAllBytes(prices), StandardCharsets.UTF_8);
+        Matcher matcher = MOVIE_PRICE_ROW.matcher(sql.substring(sql.indexOf("VALUES")));
+
+        List<Long> movieIds = new ArrayList<>();
+        while (matcher.find()) {
+            movieIds.add(Long.parseLong(matcher.group(1)));
+        }
+
+        return movieIds;
+    }
+}
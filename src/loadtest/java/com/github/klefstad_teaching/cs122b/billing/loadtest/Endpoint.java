@@ -0,0 +1,38 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+public enum Endpoint
+{
+    CART_INSERT("POST", "/cart/insert"),
+    CART_UPDATE("POST", "/cart/update"),
+    CART_DELETE("DELETE", "/cart/delete/{movieId}"),
+    CART_RETRIEVE("GET", "/cart/retrieve"),
+    CART_CLEAR("POST", "/cart/clear"),
+    ORDER_PAYMENT("GET", "/order/payment"),
+    ORDER_COMPLETE("POST", "/order/complete"),
+    ORDER_LIST("GET", "/order/list"),
+    ORDER_DETAIL("GET", "/order/detail/{saleId}");
+
+    private final String method;
+    private final String path;
+
+    Endpoint(String method, String path)
+    {
+        this.method = method;
+        this.path = path;
+    }
+
+    public String method()
+    {
+        return method;
+    }
+
+    public String path()
+    {
+        return path;
+    }
+
+    public String path(long id)
+    {
+        return path.substring(0, path.indexOf('{')) + id;
+    }
+}
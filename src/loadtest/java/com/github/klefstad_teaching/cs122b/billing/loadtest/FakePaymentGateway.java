@@ -0,0 +1,66 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentGateway;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stands in for Stripe during load tests: every intent is created already succeeded so checkout
+ * can complete without any network access.
+ */
+public class FakePaymentGateway implements PaymentGateway
+{
+    private final ConcurrentHashMap<String, PaymentIntent> intents = new ConcurrentHashMap<>();
+
+    @Override
+    public PaymentIntent createPaymentIntent(Long amountInCents, String description, String userId)
+    {
+        String id = "pi_fake_" + UUID.randomUUID().toString().replace("-", "");
+
+        PaymentIntent paymentIntent = new PaymentIntent();
+        paymentIntent.setId(id);
+        paymentIntent.setClientSecret(id + "_secret");
+        paymentIntent.setAmount(amountInCents);
+        paymentIntent.setCurrency("usd");
+        paymentIntent.setDescription(description);
+        paymentIntent.setStatus("succeeded");
+        paymentIntent.setMetadata(Collections.singletonMap("userId", userId));
+
+        intents.put(id, paymentIntent);
+
+        return paymentIntent;
+    }
+
+    @Override
+    public PaymentIntent retrievePaymentIntent(String paymentIntentId)
+        throws StripeException
+    {
+        PaymentIntent paymentIntent = intents.get(paymentIntentId);
+
+        if (paymentIntent == null) {
+            throw new InvalidRequestException("No such payment_intent: " + paymentIntentId,
+                                              "intent", null, null, 404, null);
+        }
+
+        return paymentIntent;
+    }
+
+    @Override
+    public void cancelPaymentIntent(String paymentIntentId)
+        throws StripeException
+    {
+        retrievePaymentIntent(paymentIntentId).setStatus("canceled");
+    }
+
+    @Override
+    public void refundPaymentIntent(String paymentIntentId)
+        throws StripeException
+    {
+        retrievePaymentIntent(paymentIntentId).setAmountReceived(0L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Raw latency samples for one endpoint. Each virtual user owns its own recorders, so recording is
+ * a plain array append and the exact percentiles are computed once after the run.
+ */
+public class LatencyRecorder
+{
+    private long[] samples = new long[1024];
+    private int    count;
+    private int    errors;
+
+    public void record(long nanos)
+    {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+
+        samples[count++] = nanos;
+    }
+
+    public void recordError()
+    {
+        errors++;
+    }
+
+    public void merge(LatencyRecorder other)
+    {
+        if (count + other.count > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, count + other.count));
+        }
+
+        System.arraycopy(other.samples, 0, samples, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    public int count()
+    {
+        return count;
+    }
+
+    public int errors()
+    {
+        return errors;
+    }
+
+    public long[] sortedSamples()
+    {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public static long percentile(long[] sorted, double percentile)
+    {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentGateway;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class LoadTestConfig
+{
+    @Bean
+    @Primary
+    public PaymentGateway fakePaymentGateway()
+    {
+        return new FakePaymentGateway();
+    }
+}
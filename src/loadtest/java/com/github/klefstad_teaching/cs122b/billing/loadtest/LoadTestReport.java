@@ -0,0 +1,102 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LoadTestReport
+{
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Endpoint, LatencyRecorder> recorders;
+    private final double                         seconds;
+
+    public LoadTestReport(Map<Endpoint, LatencyRecorder> recorders, double seconds)
+    {
+        this.recorders = recorders;
+        this.seconds = seconds;
+    }
+
+    public int totalErrors()
+    {
+        int errors = 0;
+
+        for (LatencyRecorder recorder : recorders.values()) {
+            errors += recorder.errors();
+        }
+
+        return errors;
+    }
+
+    public double maxP99Millis()
+    {
+        double max = 0;
+
+        for (LatencyRecorder recorder : recorders.values()) {
+            max = Math.max(max, LatencyRecorder.percentile(recorder.sortedSamples(), 99) / NANOS_PER_MILLI);
+        }
+
+        return max;
+    }
+
+    public void print(PrintStream out)
+    {
+        long total = 0;
+
+        out.printf("%-16s %10s %10s %10s %10s %10s %10s %8s%n",
+                   "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+
+        for (Map.Entry<Endpoint, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            long[]          sorted   = recorder.sortedSamples();
+
+            total += sorted.length;
+
+            out.printf("%-16s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %8d%n",
+                       entry.getKey().name(),
+                       sorted.length,
+                       sorted.length / seconds,
+                       LatencyRecorder.percentile(sorted, 50) / NANOS_PER_MILLI,
+                       LatencyRecorder.percentile(sorted, 99) / NANOS_PER_MILLI,
+                       LatencyRecorder.percentile(sorted, 99.9) / NANOS_PER_MILLI,
+                       LatencyRecorder.percentile(sorted, 100) / NANOS_PER_MILLI,
+                       recorder.errors());
+        }
+
+        out.printf("%-16s %10d %10.1f%n", "TOTAL", total, total / seconds);
+    }
+
+    public void write(Path path) throws IOException
+    {
+        Map<String, Object> report    = new LinkedHashMap<>();
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        for (Map.Entry<Endpoint, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder     recorder = entry.getValue();
+            long[]              sorted   = recorder.sortedSamples();
+            Map<String, Object> stats    = new LinkedHashMap<>();
+
+            stats.put("requests", sorted.length);
+            stats.put("throughput", sorted.length / seconds);
+            stats.put("p50Millis", LatencyRecorder.percentile(sorted, 50) / NANOS_PER_MILLI);
+            stats.put("p99Millis", LatencyRecorder.percentile(sorted, 99) / NANOS_PER_MILLI);
+            stats.put("p999Millis", LatencyRecorder.percentile(sorted, 99.9) / NANOS_PER_MILLI);
+            stats.put("maxMillis", LatencyRecorder.percentile(sorted, 100) / NANOS_PER_MILLI);
+            stats.put("errors", recorder.errors());
+
+            endpoints.put(entry.getKey().name(), stats);
+        }
+
+        report.put("durationSeconds", seconds);
+        report.put("endpoints", endpoints);
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+    }
+}
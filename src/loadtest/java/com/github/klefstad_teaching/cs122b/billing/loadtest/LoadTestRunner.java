@@ -0,0 +1,120 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.github.klefstad_teaching.cs122b.billing.BillingService;
+import com.github.klefstad_teaching.cs122b.core.security.JWTManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the billing service on an embedded H2 database (MySQL mode) seeded from db.sql and
+ * db/billing_movie_price.sql with a fake payment gateway, drives a cart and checkout mix across all
+ * nine endpoints and reports throughput and p50/p99/p999 latency per endpoint.
+ *
+ * <p>Tunables are system properties: {@code loadtest.users}, {@code loadtest.warmupSeconds},
+ * {@code loadtest.durationSeconds}, {@code loadtest.premiumPercent}, {@code loadtest.report} and
+ * {@code loadtest.maxP99Millis}. The process exits non-zero on any non-2xx response or when the worst
+ * endpoint p99 exceeds {@code loadtest.maxP99Millis}, so it can gate a release.
+ */
+public class LoadTestRunner
+{
+    static final String DATABASE_URL =
+        "jdbc:h2:mem:billing;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,VALUE,YEAR;" +
+        "IGNORE_UNKNOWN_SETTINGS=TRUE";
+
+    public static void main(String[] args) throws Exception
+    {
+        int    users          = Integer.getInteger("loadtest.users", 50);
+        int    warmupSeconds  = Integer.getInteger("loadtest.warmupSeconds", 15);
+        int    durationSecs   = Integer.getInteger("loadtest.durationSeconds", 60);
+        int    premiumPercent = Integer.getInteger("loadtest.premiumPercent", 20);
+        Path   reportPath     = Paths.get(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        String maxP99Millis   = System.getProperty("loadtest.maxP99Millis");
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(DATABASE_URL, "sa", "");
+        List<Long>              movieIds   = new DatabaseSeeder(dataSource, Paths.get("").toAbsolutePath())
+            .seed(users);
+
+        ConfigurableApplicationContext context =
+            new SpringApplicationBuilder(BillingService.class, LoadTestConfig.class)
+                .properties(
+                    "server.port=0",
+                    "spring.datasource.url=" + DATABASE_URL,
+                    "spring.datasource.username=sa",
+                    "spring.datasource.password=",
+                    "spring.datasource.hikari.maximum-pool-size=" + Math.min(users, 50),
+                    "billing.stripe-api-key=sk_test_loadtest",
+                    // Every virtual user would be throttled like a real client; measure the service, not the limiters
+                    "billing.rate-limit.enabled=false",
+                    "billing.concurrency-limit.enabled=false",
+                    "logging.file.name=target/loadtest-service.log")
+                .run(args);
+
+        int exitCode;
+
+        try {
+            int         port    = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            TokenMinter minter  = new TokenMinter(context.getBean(JWTManager.class), Duration.ofHours(1));
+            HttpClient  client  = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String      baseUrl = "http://localhost:" + port;
+
+            long start     = System.nanoTime();
+            long warmupEnd = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end       = warmupEnd + TimeUnit.SECONDS.toNanos(durationSecs);
+
+            List<VirtualUser> virtualUsers = new ArrayList<>(users);
+            ExecutorService   executor     = Executors.newFixedThreadPool(users);
+
+            for (int i = 1; i <= users; i++) {
+                boolean isPremium = (i % 100) < premiumPercent;
+
+                VirtualUser virtualUser = new VirtualUser(
+                    baseUrl, minter.authorizationHeader(i, isPremium), client, movieIds, i, warmupEnd, end);
+
+                virtualUsers.add(virtualUser);
+                executor.execute(virtualUser);
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(warmupSeconds + durationSecs + 60, TimeUnit.SECONDS);
+
+            Map<Endpoint, LatencyRecorder> merged = new EnumMap<>(Endpoint.class);
+
+            for (Endpoint endpoint : Endpoint.values()) {
+                LatencyRecorder recorder = new LatencyRecorder();
+
+                for (VirtualUser virtualUser : virtualUsers) {
+                    recorder.merge(virtualUser.recorders().get(endpoint));
+                }
+
+                merged.put(endpoint, recorder);
+            }
+
+            LoadTestReport report = new LoadTestReport(merged, durationSecs);
+            report.print(System.out);
+            report.write(reportPath);
+
+            boolean failed = report.totalErrors() > 0 ||
+                             (maxP99Millis != null && report.maxP99Millis() > Double.parseDouble(maxP99Millis));
+
+            exitCode = failed ? 1 : 0;
+        } finally {
+            context.close();
+        }
+
+        System.exit(exitCode);
+    }
+}
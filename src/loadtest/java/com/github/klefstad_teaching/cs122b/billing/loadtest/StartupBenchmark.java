@@ -0,0 +1,205 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures cold-start time of the billing service in fresh JVMs, with and without class-data
+ * sharing and startup warmup:
+ * <pre>
+ *     mvn -Ploadtest test-compile exec:exec@startup
+ * </pre>
+ * The application archive is trained and dumped here for the benchmark's own class path, the same
+ * way the {@code cds} profile does it for the packaged service. Class directories are jarred first
+ * because AppCDS only archives classes loaded from jar files.
+ *
+ * <p>Tunables are system properties: {@code startup.runs} and {@code startup.report}.
+ */
+public class StartupBenchmark
+{
+    private static final String[][] VARIANTS = {
+        {"no-cds", "-Xshare:off"},
+        {"jdk-cds", "-Xshare:auto"},
+        {"app-cds", "-Xshare:auto", "-XX:SharedArchiveFile=%s"},
+        {"app-cds+warmup", "-Xshare:auto", "-XX:SharedArchiveFile=%s", "-Dbilling.warmup.enabled=true"}
+    };
+
+    public static void main(String[] args) throws Exception
+    {
+        int  runs       = Integer.getInteger("startup.runs", 5);
+        Path reportPath = Paths.get(System.getProperty("startup.report", "target/startup-report.json"));
+        Path workDir    = Files.createDirectories(Paths.get("target/startup-cds"));
+
+        String classPath = jarDirectories(System.getProperty("java.class.path"), workDir);
+        Path   classList = workDir.resolve("billing.classlist");
+        Path   archive   = workDir.resolve("billing.jsa");
+
+        probe(classPath, "-XX:DumpLoadedClassList=" + classList, "-Dbilling.warmup.enabled=true");
+        java(classPath, false, "-Xshare:dump", "-XX:SharedClassListFile=" + classList,
+             "-XX:SharedArchiveFile=" + archive);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        System.out.printf("%-16s %12s %12s %12s %18s%n",
+                          "variant", "min ready", "p50 ready", "p50 context", "p50 first request");
+
+        for (String[] variant : VARIANTS) {
+            List<Double> ready   = new ArrayList<>();
+            List<Double> context = new ArrayList<>();
+            List<Double> first   = new ArrayList<>();
+
+            String[] jvmArgs = new String[variant.length - 1];
+
+            for (int i = 1; i < variant.length; i++) {
+                jvmArgs[i - 1] = String.format(variant[i], archive);
+            }
+
+            for (int run = 0; run < runs; run++) {
+                Map<String, Double> result = probe(classPath, jvmArgs);
+
+                ready.add(result.get("ready_ms"));
+                context.add(result.get("context_ms"));
+                first.add(result.get("first_request_ms"));
+            }
+
+            System.out.printf("%-16s %10.0f ms %10.0f ms %10.0f ms %15.3f ms%n",
+                              variant[0], Collections.min(ready), median(ready), median(context), median(first));
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("jvmArgs", Arrays.asList(jvmArgs));
+            summary.put("readyMillis", ready);
+            summary.put("contextMillis", context);
+            summary.put("firstRequestMillis", first);
+
+            report.put(variant[0], summary);
+        }
+
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+    }
+
+    private static Map<String, Double> probe(String classPath, String... jvmArgs)
+        throws IOException, InterruptedException
+    {
+        List<String> lines = java(classPath, true, concat(jvmArgs, StartupProbe.class.getName()));
+
+        for (String line : lines) {
+            if (line.startsWith(StartupProbe.RESULT_PREFIX)) {
+                Map<String, Double> result = new LinkedHashMap<>();
+
+                for (String pair : line.substring(StartupProbe.RESULT_PREFIX.length()).split(" ")) {
+                    String[] keyValue = pair.split("=");
+                    result.put(keyValue[0], Double.parseDouble(keyValue[1]));
+                }
+
+                return result;
+            }
+        }
+
+        throw new IllegalStateException("Startup probe printed no result:\n" + String.join("\n", lines));
+    }
+
+    private static List<String> java(String classPath, boolean expectSuccess, String... args)
+        throws IOException, InterruptedException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(classPath);
+        command.addAll(Arrays.asList(args));
+
+        Process      process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines   = new ArrayList<>();
+
+        try (BufferedReader reader =
+                 new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        int exitCode = process.waitFor();
+
+        if (expectSuccess && exitCode != 0) {
+            throw new IllegalStateException("Exit code " + exitCode + " from " + command + ":\n" +
+                                            String.join("\n", lines));
+        }
+
+        return lines;
+    }
+
+    private static String jarDirectories(String classPath, Path workDir) throws IOException
+    {
+        List<String> entries = new ArrayList<>();
+
+        for (String entry : classPath.split(File.pathSeparator)) {
+            Path path = Paths.get(entry);
+
+            if (Files.isDirectory(path)) {
+                Path jar = workDir.resolve(path.getParent().getFileName() + "-" + path.getFileName() + ".jar");
+                writeJar(path, jar);
+                entries.add(jar.toAbsolutePath().toString());
+            } else {
+                entries.add(entry);
+            }
+        }
+
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void writeJar(Path directory, Path jar) throws IOException
+    {
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out);
+             Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(file -> !file.equals(directory))::iterator) {
+                String  name   = directory.relativize(file).toString().replace(File.separatorChar, '/');
+                boolean folder = Files.isDirectory(file);
+
+                // Directory entries matter: Spring's classpath scanning resolves package roots through them
+                jarOut.putNextEntry(new JarEntry(folder ? name + "/" : name));
+
+                if (!folder) {
+                    Files.copy(file, jarOut);
+                }
+
+                jarOut.closeEntry();
+            }
+        }
+    }
+
+    private static String[] concat(String[] head, String tail)
+    {
+        String[] all = Arrays.copyOf(head, head.length + 1);
+        all[head.length] = tail;
+        return all;
+    }
+
+    private static double median(List<Double> values)
+    {
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
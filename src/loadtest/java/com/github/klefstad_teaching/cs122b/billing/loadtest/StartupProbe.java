@@ -0,0 +1,68 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.github.klefstad_teaching.cs122b.billing.BillingService;
+import com.github.klefstad_teaching.cs122b.core.security.JWTManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * One cold start of the billing service, run in a fresh JVM by {@link StartupBenchmark}. Prints a
+ * single {@code STARTUP} line with the JVM uptime when the service was ready, the time spent in
+ * Spring context startup (including warmup when enabled) and the latency of the first real request.
+ */
+public class StartupProbe
+{
+    static final String RESULT_PREFIX = "STARTUP ";
+
+    public static void main(String[] args) throws Exception
+    {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(LoadTestRunner.DATABASE_URL, "sa", "");
+        new DatabaseSeeder(dataSource, Paths.get("").toAbsolutePath()).seed(4);
+
+        long contextStart = System.nanoTime();
+
+        ConfigurableApplicationContext context =
+            new SpringApplicationBuilder(BillingService.class, LoadTestConfig.class)
+                .properties(
+                    "server.port=0",
+                    "spring.datasource.url=" + LoadTestRunner.DATABASE_URL,
+                    "spring.datasource.username=sa",
+                    "spring.datasource.password=",
+                    "billing.stripe-api-key=sk_test_startup",
+                    "logging.level.root=WARN")
+                .run(args);
+
+        long readyUptime  = ManagementFactory.getRuntimeMXBean().getUptime();
+        long contextNanos = System.nanoTime() - contextStart;
+
+        int         port   = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        TokenMinter minter = new TokenMinter(context.getBean(JWTManager.class), Duration.ofMinutes(5));
+
+        HttpRequest request =
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cart/retrieve"))
+                       .header("Authorization", minter.authorizationHeader(1, false))
+                       .GET()
+                       .build();
+
+        long firstStart = System.nanoTime();
+        HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+        long firstNanos = System.nanoTime() - firstStart;
+
+        System.out.printf("%sready_ms=%d context_ms=%.1f first_request_ms=%.3f%n",
+                          RESULT_PREFIX, readyUptime, contextNanos / 1_000_000.0, firstNanos / 1_000_000.0);
+        System.out.flush();
+
+        context.close();
+        System.exit(0);
+    }
+}
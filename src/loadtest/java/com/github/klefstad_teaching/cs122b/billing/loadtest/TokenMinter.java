@@ -0,0 +1,55 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.github.klefstad_teaching.cs122b.core.security.JWTAuthenticationFilter;
+import com.github.klefstad_teaching.cs122b.core.security.JWTManager;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Mints access tokens with the service's own {@link JWTManager} key so synthetic load test users
+ * pass the core security filter exactly like tokens issued by the IDM service.
+ */
+public class TokenMinter
+{
+    private final JWTManager jwtManager;
+    private final Duration   lifetime;
+
+    public TokenMinter(JWTManager jwtManager, Duration lifetime)
+    {
+        this.jwtManager = jwtManager;
+        this.lifetime = lifetime;
+    }
+
+    public String authorizationHeader(long userId, boolean isPremium) throws JOSEException
+    {
+        Instant now = Instant.now();
+
+        JWTClaimsSet claimsSet =
+            new JWTClaimsSet.Builder()
+                .subject("synthetic" + userId + "@example.com")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(lifetime)))
+                .claim(JWTManager.CLAIM_ID, userId)
+                .claim(JWTManager.CLAIM_ROLES,
+                       Collections.singletonList(isPremium ? "PREMIUM" : "CUSTOMER"))
+                .build();
+
+        JWSHeader header =
+            new JWSHeader.Builder(JWTManager.JWS_ALGORITHM)
+                .keyID(jwtManager.getEcKey().getKeyID())
+                .type(JWTManager.JWS_TYPE)
+                .build();
+
+        SignedJWT signedJWT = new SignedJWT(header, claimsSet);
+        signedJWT.sign(jwtManager.getSigner());
+
+        return JWTAuthenticationFilter.BEARER_PREFIX + signedJWT.serialize();
+    }
+}
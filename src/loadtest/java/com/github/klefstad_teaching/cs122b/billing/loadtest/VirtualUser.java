@@ -0,0 +1,205 @@
+package com.github.klefstad_teaching.cs122b.billing.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * One synthetic shopper. Each iteration picks a scenario from a fixed mix that roughly follows
+ * storefront traffic: mostly browsing and cart edits, with a steady share of full checkouts.
+ */
+public class VirtualUser implements Runnable
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String     baseUrl;
+    private final String     authorization;
+    private final HttpClient client;
+    private final List<Long> movieIds;
+    private final Random     random;
+    private final long       warmupEndNanos;
+    private final long       endNanos;
+
+    private final Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+    private final List<Long>                     cart      = new ArrayList<>();
+
+    private Long lastSaleId;
+
+    public VirtualUser(String baseUrl, String authorization, HttpClient client, List<Long> movieIds,
+                       long seed, long warmupEndNanos, long endNanos)
+    {
+        this.baseUrl = baseUrl;
+        this.authorization = authorization;
+        this.client = client;
+        this.movieIds = movieIds;
+        this.random = new Random(seed);
+        this.warmupEndNanos = warmupEndNanos;
+        this.endNanos = endNanos;
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+    }
+
+    public Map<Endpoint, LatencyRecorder> recorders()
+    {
+        return recorders;
+    }
+
+    @Override
+    public void run()
+    {
+        while (System.nanoTime() < endNanos) {
+            int roll = random.nextInt(100);
+
+            try {
+                if (roll < 40) {
+                    browse();
+                } else if (roll < 75) {
+                    editCart();
+                } else if (roll < 95) {
+                    checkout();
+                } else {
+                    abandon();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void browse() throws InterruptedException
+    {
+        call(Endpoint.CART_RETRIEVE, Endpoint.CART_RETRIEVE.path(), null);
+        refreshLastSale();
+
+        if (lastSaleId != null) {
+            call(Endpoint.ORDER_DETAIL, Endpoint.ORDER_DETAIL.path(lastSaleId), null);
+        }
+    }
+
+    private void editCart() throws InterruptedException
+    {
+        Long movieId = addToCart();
+
+        call(Endpoint.CART_UPDATE, Endpoint.CART_UPDATE.path(), cartBody(movieId));
+
+        if (random.nextInt(3) == 0) {
+            call(Endpoint.CART_DELETE, Endpoint.CART_DELETE.path(movieId), null);
+            cart.remove(movieId);
+        }
+
+        call(Endpoint.CART_RETRIEVE, Endpoint.CART_RETRIEVE.path(), null);
+    }
+
+    private void checkout() throws InterruptedException
+    {
+        while (cart.size() < 1 + random.nextInt(3)) {
+            addToCart();
+        }
+
+        call(Endpoint.CART_RETRIEVE, Endpoint.CART_RETRIEVE.path(), null);
+
+        JsonNode payment = call(Endpoint.ORDER_PAYMENT, Endpoint.ORDER_PAYMENT.path(), null);
+
+        if (payment == null || !payment.hasNonNull("paymentIntentId")) {
+            return;
+        }
+
+        String body = "{\"paymentIntentId\":\"" + payment.get("paymentIntentId").asText() + "\"}";
+
+        if (call(Endpoint.ORDER_COMPLETE, Endpoint.ORDER_COMPLETE.path(), body) != null) {
+            cart.clear();
+        }
+
+        refreshLastSale();
+
+        if (lastSaleId != null) {
+            call(Endpoint.ORDER_DETAIL, Endpoint.ORDER_DETAIL.path(lastSaleId), null);
+        }
+    }
+
+    private void abandon() throws InterruptedException
+    {
+        addToCart();
+        call(Endpoint.CART_CLEAR, Endpoint.CART_CLEAR.path(), null);
+        cart.clear();
+    }
+
+    private Long addToCart() throws InterruptedException
+    {
+        Long movieId = movieIds.get(random.nextInt(movieIds.size()));
+
+        // Inserting a movie that is already in the cart is a 409, which now counts as an error
+        if (cart.contains(movieId)) {
+            call(Endpoint.CART_UPDATE, Endpoint.CART_UPDATE.path(), cartBody(movieId));
+        } else {
+            call(Endpoint.CART_INSERT, Endpoint.CART_INSERT.path(), cartBody(movieId));
+            cart.add(movieId);
+        }
+
+        return movieId;
+    }
+
+    private void refreshLastSale() throws InterruptedException
+    {
+        JsonNode list = call(Endpoint.ORDER_LIST, Endpoint.ORDER_LIST.path(), null);
+
+        if (list != null && list.has("sales") && list.get("sales").size() > 0) {
+            lastSaleId = list.get("sales").get(0).get("saleId").asLong();
+        }
+    }
+
+    private String cartBody(Long movieId)
+    {
+        return "{\"movieId\":" + movieId + ",\"quantity\":" + (1 + random.nextInt(10)) + "}";
+    }
+
+    private JsonNode call(Endpoint endpoint, String path, String body) throws InterruptedException
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                                 .header("Authorization", authorization);
+
+        if (body != null) {
+            builder.header("Content-Type", "application/json")
+                   .method(endpoint.method(), HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            builder.method(endpoint.method(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long                 elapsed  = System.nanoTime() - start;
+
+            if (start >= warmupEndNanos) {
+                // 429, 503 and business rejections are failures too, never latency samples
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    recorders.get(endpoint).recordError();
+                } else {
+                    recorders.get(endpoint).record(elapsed);
+                }
+            }
+
+            return response.statusCode() < 300 ? MAPPER.readTree(response.body()) : null;
+        } catch (IOException e) {
+            if (start >= warmupEndNanos) {
+                recorders.get(endpoint).recordError();
+            }
+
+            return null;
+        }
+    }
+}
@@ -1,6 +1,21 @@
 package com.github.klefstad_teaching.cs122b.billing;
 
 import com.github.klefstad_teaching.cs122b.billing.config.BillingServiceConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.CartConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.CartReaperConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.CheckoutConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.ConcurrencyLimitConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.FlashSaleConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.MetricsConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.OutboxConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.PriceUploadConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.PromotionConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.RateLimitConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.SlowQueryConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.TokenCacheConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.TracingConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.WarmupConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.WebhookConfig;
 import com.github.klefstad_teaching.cs122b.core.spring.SecuredStackService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -9,7 +24,22 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 @SpringBootApplication
 @SecuredStackService
 @EnableConfigurationProperties({
-    BillingServiceConfig.class
+    BillingServiceConfig.class,
+    TokenCacheConfig.class,
+    RateLimitConfig.class,
+    ConcurrencyLimitConfig.class,
+    CartConfig.class,
+    CartReaperConfig.class,
+    CheckoutConfig.class,
+    PromotionConfig.class,
+    WarmupConfig.class,
+    MetricsConfig.class,
+    TracingConfig.class,
+    SlowQueryConfig.class,
+    WebhookConfig.class,
+    PriceUploadConfig.class,
+    FlashSaleConfig.class,
+    OutboxConfig.class
 })
 public class BillingService
 {
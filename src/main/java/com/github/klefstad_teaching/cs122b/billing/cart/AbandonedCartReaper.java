@@ -0,0 +1,99 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CartReaperConfig;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes the carts nobody has touched for longer than the configured TTL. A cart is idle only when
+ * its most recently touched line is, so a cart is always reaped whole, never line by line. Users
+ * are walked in id order and their carts deleted in small batches, each in its own short
+ * transaction, with a pause between them, so no run holds locks long enough to get in the way of
+ * checkout.
+ */
+@Component
+@ConditionalOnProperty(prefix = "billing.cart", name = "mode", havingValue = "table", matchIfMissing = true)
+public class AbandonedCartReaper
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AbandonedCartReaper.class);
+
+    private final AtomicLong totalReclaimed = new AtomicLong();
+
+    private final BillingRepo      repo;
+    private final CartReaperConfig config;
+
+    private volatile long lastRunReclaimed;
+
+    @Autowired
+    public AbandonedCartReaper(BillingRepo repo, CartReaperConfig config)
+    {
+        this.repo = repo;
+        this.config = config;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.cart-reaper.interval-ms:300000}",
+               initialDelayString = "${billing.cart-reaper.interval-ms:300000}")
+    public void reap()
+    {
+        if (!config.getEnabled()) {
+            return;
+        }
+
+        Timestamp cutoff    = Timestamp.from(Instant.now().minus(config.getTtl()));
+        long      from      = 0;
+        long      reclaimed = 0;
+
+        for (int batch = 0; batch < config.getMaxBatchesPerRun(); batch++) {
+            List<Long> userIds = repo.cartIdleUsers(from, cutoff, config.getBatchSize());
+
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            reclaimed += repo.cartIdleDelete(userIds, cutoff);
+            from = userIds.get(userIds.size() - 1);
+
+            if (userIds.size() < config.getBatchSize() || !pause()) {
+                break;
+            }
+        }
+
+        lastRunReclaimed = reclaimed;
+        totalReclaimed.addAndGet(reclaimed);
+
+        if (reclaimed > 0) {
+            LOG.info("Reclaimed {} abandoned cart rows idle since {}", reclaimed, cutoff);
+        }
+    }
+
+    public long getLastRunReclaimed()
+    {
+        return lastRunReclaimed;
+    }
+
+    public long getTotalReclaimed()
+    {
+        return totalReclaimed.get();
+    }
+
+    private boolean pause()
+    {
+        try {
+            Thread.sleep(config.getPauseMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CartConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheInvalidationBus;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheRegion;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.InvalidationEvent;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for cart reads: concurrent reads of the same (user, premium) cart share one query.
+ * A cart invalidation for the user drops the pending flight, so a read that starts after a
+ * mutation never joins a query that may predate it. Callers mutate the items they get back (the
+ * promotion engine reprices them), so every caller receives its own copy.
+ */
+@Component
+public class CartReadFlights
+{
+    private final boolean                                            enabled;
+    private final ConcurrentMap<Long, CompletableFuture<List<Item>>> flights   = new ConcurrentHashMap<>();
+    private final LongAdder                                          coalesced = new LongAdder();
+
+    @Autowired
+    public CartReadFlights(CartConfig config, CacheInvalidationBus invalidation)
+    {
+        this.enabled = config.getSingleFlight();
+
+        invalidation.register(CacheRegion.CART, this::evict);
+    }
+
+    public List<Item> retrieve(Boolean isPremium, Long userId, Supplier<List<Item>> query)
+    {
+        if (!enabled) {
+            return query.get();
+        }
+
+        Long                          key      = key(userId, isPremium);
+        CompletableFuture<List<Item>> flight   = new CompletableFuture<>();
+        CompletableFuture<List<Item>> existing = flights.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            coalesced.increment();
+            return copy(await(existing));
+        }
+
+        try {
+            List<Item> items = query.get();
+            flight.complete(items);
+            return copy(items);
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return reads answered by joining another request's query
+     */
+    public long getCoalesced()
+    {
+        return coalesced.sum();
+    }
+
+    private void evict(long userId)
+    {
+        if (userId == InvalidationEvent.ALL_KEYS) {
+            flights.clear();
+            return;
+        }
+
+        flights.remove(key(userId, false));
+        flights.remove(key(userId, true));
+    }
+
+    private static Long key(long userId, boolean isPremium)
+    {
+        return (userId << 1) | (isPremium ? 1 : 0);
+    }
+
+    private static List<Item> await(CompletableFuture<List<Item>> flight)
+    {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private static List<Item> copy(List<Item> items)
+    {
+        List<Item> copy = new ArrayList<>(items.size());
+
+        for (Item item : items) {
+            copy.add(new Item()
+                         .setUnitPrice(item.getUnitPrice())
+                         .setQuantity(item.getQuantity())
+                         .setMovieId(item.getMovieId())
+                         .setMovieTitle(item.getMovieTitle())
+                         .setBackdropPath(item.getBackdropPath())
+                         .setPosterPath(item.getPosterPath()));
+        }
+
+        return copy;
+    }
+}
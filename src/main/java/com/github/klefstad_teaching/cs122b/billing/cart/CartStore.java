@@ -0,0 +1,30 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.request.CartInsertUpdateRequest;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.List;
+
+/**
+ * Where a user's cart lives. Selected with {@code billing.cart.mode}: {@code table} (default) keeps
+ * it in {@code billing.cart}, {@code event-sourced} in an append-only event log.
+ */
+public interface CartStore
+{
+    void cartInsert(CartInsertUpdateRequest request, Long userId) throws DuplicateKeyException;
+
+    Integer cartUpdate(CartInsertUpdateRequest request, Long userId);
+
+    Integer cartDelete(Long movieId, Long userId);
+
+    List<Item> cartRetrieve(Boolean isPremium, Long userId);
+
+    Integer cartClear(Long userId);
+
+    /**
+     * Removes the lines a completed order paid for: each (movie, quantity) that still matches. Called
+     * inside the order transaction.
+     */
+    Integer cartRemovePurchased(List<Item> purchased, Long userId);
+}
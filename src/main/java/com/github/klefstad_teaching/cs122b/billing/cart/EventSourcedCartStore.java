@@ -0,0 +1,330 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.catalog.CatalogEntry;
+import com.github.klefstad_teaching.cs122b.billing.catalog.MovieCatalog;
+import com.github.klefstad_teaching.cs122b.billing.config.CartConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.InvalidationTransport;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.LoopbackTransport;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.request.CartInsertUpdateRequest;
+import com.github.klefstad_teaching.cs122b.billing.repo.CartEventRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps every cart in memory and records each change as an event in {@code billing.cart_event}.
+ * On startup the carts are rebuilt from the latest snapshot plus the events after it, and a
+ * snapshot is written periodically so that replay stays short.
+ *
+ * <p>Mutations hold a per-user monitor while they append and apply their event, and the shared
+ * side of a read/write lock that the snapshot takes exclusively, so a snapshot always matches an
+ * exact position in the log. Events the snapshot covers are then deleted.
+ *
+ * <p>Only an insert creates a cart, and a cart that becomes empty is dropped, so the map holds just
+ * the users with something in their cart.
+ *
+ * <p>Single node only: the carts live in this JVM and other nodes' events are never applied, so the
+ * store refuses to start with any invalidation transport other than loopback. The first start
+ * against an empty log carries the {@code billing.cart} rows over; switching back to table mode
+ * does not carry carts back.
+ */
+@Component
+@ConditionalOnProperty(prefix = "billing.cart", name = "mode", havingValue = "event-sourced")
+public class EventSourcedCartStore implements CartStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(EventSourcedCartStore.class);
+
+    private final ConcurrentHashMap<Long, TreeMap<Long, Integer>> carts = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock snapshotLock        = new ReentrantReadWriteLock();
+    private final AtomicLong             lastEventId         = new AtomicLong();
+    private final AtomicLong             eventsSinceSnapshot = new AtomicLong();
+
+    private static final int TRUNCATE_BATCH_SIZE = 10000;
+
+    private final CartEventRepo repo;
+    private final MovieCatalog  catalog;
+    private final int           snapshotMinEvents;
+
+    @Autowired
+    public EventSourcedCartStore(CartEventRepo repo, MovieCatalog catalog, CartConfig config,
+                                 InvalidationTransport transport)
+    {
+        if (!(transport instanceof LoopbackTransport)) {
+            throw new IllegalStateException(
+                "billing.cart.mode=event-sourced keeps carts in one JVM and cannot run with the " +
+                transport.getClass().getSimpleName() + " invalidation transport; use table mode on multiple nodes");
+        }
+
+        this.repo = repo;
+        this.catalog = catalog;
+        this.snapshotMinEvents = config.getSnapshotMinEvents();
+    }
+
+    @PostConstruct
+    public void restore()
+    {
+        long start = System.currentTimeMillis();
+
+        if (repo.isLogEmpty()) {
+            List<long[]> lines = repo.tableCarts();
+
+            // Written as the first snapshot so the carts survive the switch and later restarts
+            repo.writeSnapshot(0, lines);
+
+            LOG.info("Carried {} billing.cart lines over into the cart event log", lines.size());
+        }
+
+        lastEventId.set(repo.replay((userId, type, movieId, quantity) -> apply(cart(userId), type, movieId, quantity)));
+        carts.values().removeIf(Map::isEmpty);
+
+        LOG.info("Restored {} carts up to cart event {} in {} ms",
+                 carts.size(), lastEventId.get(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void cartInsert(CartInsertUpdateRequest request, Long userId) throws DuplicateKeyException
+    {
+        mutate(userId, true, cart -> {
+            if (cart.containsKey(request.getMovieId())) {
+                throw new DuplicateKeyException("Cart already contains movie " + request.getMovieId());
+            }
+
+            append(cart, userId, CartEventRepo.INSERT, request.getMovieId(), request.getQuantity());
+            return 1;
+        });
+    }
+
+    @Override
+    public Integer cartUpdate(CartInsertUpdateRequest request, Long userId)
+    {
+        return mutate(userId, false, cart -> {
+            if (!cart.containsKey(request.getMovieId())) {
+                return 0;
+            }
+
+            append(cart, userId, CartEventRepo.UPDATE, request.getMovieId(), request.getQuantity());
+            return 1;
+        });
+    }
+
+    @Override
+    public Integer cartDelete(Long movieId, Long userId)
+    {
+        return mutate(userId, false, cart -> {
+            if (!cart.containsKey(movieId)) {
+                return 0;
+            }
+
+            append(cart, userId, CartEventRepo.DELETE, movieId, null);
+            return 1;
+        });
+    }
+
+    @Override
+    public List<Item> cartRetrieve(Boolean isPremium, Long userId)
+    {
+        TreeMap<Long, Integer> cart = carts.get(userId);
+
+        if (cart == null) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Integer> quantities;
+
+        synchronized (cart) {
+            quantities = new TreeMap<>(cart);
+        }
+
+        Map<Long, CatalogEntry> entries = catalog.getAll(quantities.keySet());
+        List<Item>              items   = new ArrayList<>(quantities.size());
+
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            CatalogEntry entry = entries.get(line.getKey());
+
+            if (entry != null) {
+                items.add(entry.toItem(line.getValue(), isPremium));
+            }
+        }
+
+        return items;
+    }
+
+    @Override
+    public Integer cartClear(Long userId)
+    {
+        return mutate(userId, false, cart -> {
+            int size = cart.size();
+
+            if (size > 0) {
+                append(cart, userId, CartEventRepo.CLEAR, null, null);
+            }
+
+            return size;
+        });
+    }
+
+    /**
+     * The in-memory carts cannot roll back, so inside a transaction the lines are removed once it
+     * commits.
+     */
+    @Override
+    public Integer cartRemovePurchased(List<Item> purchased, Long userId)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return removePurchased(purchased, userId);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+        {
+            @Override
+            public void afterCommit()
+            {
+                removePurchased(purchased, userId);
+            }
+        });
+
+        return purchased.size();
+    }
+
+    private int removePurchased(List<Item> purchased, Long userId)
+    {
+        return mutate(userId, false, cart -> {
+            int removed = 0;
+
+            for (Item item : purchased) {
+                if (item.getQuantity().equals(cart.get(item.getMovieId()))) {
+                    append(cart, userId, CartEventRepo.DELETE, item.getMovieId(), null);
+                    removed++;
+                }
+            }
+
+            return removed;
+        });
+    }
+
+    /**
+     * @return the number of carts held in memory
+     */
+    int size()
+    {
+        return carts.size();
+    }
+
+    @Scheduled(fixedDelayString = "${billing.cart.snapshot-interval-ms:60000}")
+    public void snapshot()
+    {
+        if (eventsSinceSnapshot.get() < snapshotMinEvents) {
+            return;
+        }
+
+        List<long[]> items = new ArrayList<>();
+        long         upTo;
+
+        snapshotLock.writeLock().lock();
+        try {
+            upTo = lastEventId.get();
+            eventsSinceSnapshot.set(0);
+
+            for (Map.Entry<Long, TreeMap<Long, Integer>> cart : carts.entrySet()) {
+                for (Map.Entry<Long, Integer> line : cart.getValue().entrySet()) {
+                    items.add(new long[]{cart.getKey(), line.getKey(), line.getValue()});
+                }
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+
+        repo.writeSnapshot(upTo, items);
+
+        int truncated = repo.truncate(upTo, TRUNCATE_BATCH_SIZE);
+
+        LOG.info("Wrote cart snapshot of {} items up to cart event {} and deleted {} covered events",
+                 items.size(), upTo, truncated);
+    }
+
+    /**
+     * Runs {@code mutation} on the user's cart, which is created only when {@code create} is set;
+     * without a cart the mutation has nothing to change and 0 is returned.
+     */
+    private int mutate(Long userId, boolean create, ToIntFunction<TreeMap<Long, Integer>> mutation)
+    {
+        snapshotLock.readLock().lock();
+        try {
+            while (true) {
+                TreeMap<Long, Integer> cart = create ? cart(userId) : carts.get(userId);
+
+                if (cart == null) {
+                    return 0;
+                }
+
+                synchronized (cart) {
+                    // Emptied and dropped while this call waited for the monitor; start over on the current cart
+                    if (carts.get(userId) != cart) {
+                        continue;
+                    }
+
+                    try {
+                        return mutation.applyAsInt(cart);
+                    } finally {
+                        if (cart.isEmpty()) {
+                            carts.remove(userId, cart);
+                        }
+                    }
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    private void append(TreeMap<Long, Integer> cart, Long userId, int type, Long movieId, Integer quantity)
+    {
+        long eventId = repo.append(userId, type, movieId, quantity);
+
+        apply(cart, type, movieId == null ? 0 : movieId, quantity == null ? 0 : quantity);
+
+        lastEventId.accumulateAndGet(eventId, Math::max);
+        eventsSinceSnapshot.incrementAndGet();
+    }
+
+    private TreeMap<Long, Integer> cart(long userId)
+    {
+        return carts.computeIfAbsent(userId, id -> new TreeMap<>());
+    }
+
+    private static void apply(TreeMap<Long, Integer> cart, int type, long movieId, int quantity)
+    {
+        switch (type) {
+            case CartEventRepo.INSERT:
+            case CartEventRepo.UPDATE:
+                cart.put(movieId, quantity);
+                break;
+            case CartEventRepo.DELETE:
+                cart.remove(movieId);
+                break;
+            case CartEventRepo.CLEAR:
+                cart.clear();
+                break;
+            default:
+                throw new IllegalStateException("Unknown cart event type " + type);
+        }
+    }
+}
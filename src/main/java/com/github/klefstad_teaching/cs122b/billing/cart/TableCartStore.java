@@ -0,0 +1,62 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.request.CartInsertUpdateRequest;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "billing.cart", name = "mode", havingValue = "table", matchIfMissing = true)
+public class TableCartStore implements CartStore
+{
+    private final BillingRepo     repo;
+    private final CartReadFlights flights;
+
+    @Autowired
+    public TableCartStore(BillingRepo repo, CartReadFlights flights)
+    {
+        this.repo = repo;
+        this.flights = flights;
+    }
+
+    @Override
+    public void cartInsert(CartInsertUpdateRequest request, Long userId) throws DuplicateKeyException
+    {
+        repo.cartInsert(request, userId);
+    }
+
+    @Override
+    public Integer cartUpdate(CartInsertUpdateRequest request, Long userId)
+    {
+        return repo.cartUpdate(request, userId);
+    }
+
+    @Override
+    public Integer cartDelete(Long movieId, Long userId)
+    {
+        return repo.cartDelete(movieId, userId);
+    }
+
+    @Override
+    public List<Item> cartRetrieve(Boolean isPremium, Long userId)
+    {
+        return flights.retrieve(isPremium, userId, () -> repo.cartRetrieve(isPremium, userId));
+    }
+
+    @Override
+    public Integer cartClear(Long userId)
+    {
+        return repo.cartClear(userId);
+    }
+
+    @Override
+    public Integer cartRemovePurchased(List<Item> purchased, Long userId)
+    {
+        return repo.cartDeletePurchased(purchased, userId);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.klefstad_teaching.cs122b.billing.catalog;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
+
+public final class CatalogEntry {
+    private final long movieId;
+    private final double unitPrice;
+    private final int premiumDiscount;
+    private final String movieTitle;
+    private final String backdropPath;
+    private final String posterPath;
+
+    public CatalogEntry(long movieId, double unitPrice, int premiumDiscount,
+                        String movieTitle, String backdropPath, String posterPath) {
+        this.movieId = movieId;
+        this.unitPrice = unitPrice;
+        this.premiumDiscount = premiumDiscount;
+        this.movieTitle = movieTitle;
+        this.backdropPath = backdropPath;
+        this.posterPath = posterPath;
+    }
+
+    public long getMovieId() {
+        return movieId;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getPremiumDiscount() {
+        return premiumDiscount;
+    }
+
+    public String getMovieTitle() {
+        return movieTitle;
+    }
+
+    public String getBackdropPath() {
+        return backdropPath;
+    }
+
+    public String getPosterPath() {
+        return posterPath;
+    }
+
+    public Item toItem(int quantity, boolean isPremium) {
+        return new Item()
+                .setMovieId(movieId)
+                .setBackdropPath(backdropPath)
+                .setMovieTitle(movieTitle)
+                .setQuantity(quantity)
+                .setPosterPath(posterPath)
+                .setUnitPrice(Pricing.unitPrice(unitPrice, premiumDiscount, isPremium));
+    }
+}
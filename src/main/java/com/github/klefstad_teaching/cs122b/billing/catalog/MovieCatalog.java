@@ -0,0 +1,91 @@
+package com.github.klefstad_teaching.cs122b.billing.catalog;
+
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheInvalidationBus;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheRegion;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.InvalidationEvent;
+import com.github.klefstad_teaching.cs122b.billing.repo.CatalogRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the price and movie metadata the billing responses need, filled lazily from
+ * {@code billing.movie_price} joined with {@code movies.movie}.
+ */
+@Component
+public class MovieCatalog
+{
+    private final ConcurrentHashMap<Long, CatalogEntry> entries = new ConcurrentHashMap<>();
+    private final CatalogRepo                           repo;
+
+    @Autowired
+    public MovieCatalog(CatalogRepo repo, CacheInvalidationBus invalidation)
+    {
+        this.repo = repo;
+
+        invalidation.register(CacheRegion.PRICE, movieId -> {
+            if (movieId == InvalidationEvent.ALL_KEYS) {
+                clear();
+            } else {
+                evict(movieId);
+            }
+        });
+    }
+
+    /**
+     * @return the entries for the given movies; movies without a price are left out, matching the
+     * inner joins of the cart and order queries
+     */
+    public Map<Long, CatalogEntry> getAll(Collection<Long> movieIds)
+    {
+        Map<Long, CatalogEntry> found   = new HashMap<>();
+        List<Long>              missing = new ArrayList<>();
+
+        for (Long movieId : movieIds) {
+            CatalogEntry entry = entries.get(movieId);
+
+            if (entry != null) {
+                found.put(movieId, entry);
+            } else {
+                missing.add(movieId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (CatalogEntry entry : repo.catalogByMovieIds(missing)) {
+                entries.put(entry.getMovieId(), entry);
+                found.put(entry.getMovieId(), entry);
+            }
+        }
+
+        return found;
+    }
+
+    public void loadAll()
+    {
+        for (CatalogEntry entry : repo.catalogAll()) {
+            entries.put(entry.getMovieId(), entry);
+        }
+    }
+
+    public void evict(Long movieId)
+    {
+        entries.remove(movieId);
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.klefstad_teaching.cs122b.billing.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@code movie_id,unit_price,premium_discount} rows one at a time, validating each against the
+ * {@code billing.movie_price} column types and constraints. Only the current row is held, so an
+ * upload of any size reads in constant memory. An optional header line and blank lines are skipped.
+ */
+public class PriceCsvReader
+{
+    public static final int MAX_PREMIUM_DISCOUNT = 25;
+
+    private static final String HEADER = "movie_id";
+
+    // DECIMAL(19, 4): at most 15 digits before the point and 4 after
+    private static final int PRICE_SCALE        = 4;
+    private static final int PRICE_INTEGER_PART = 15;
+
+    private final BufferedReader reader;
+    private final int            maxErrors;
+    private final List<String>   errors = new ArrayList<>();
+
+    private long       line;
+    private long       rejected;
+    private long       movieId;
+    private BigDecimal unitPrice;
+    private int        premiumDiscount;
+
+    public PriceCsvReader(BufferedReader reader, int maxErrors)
+    {
+        this.reader = reader;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Advances to the next valid row; invalid rows are counted and described in {@link #getErrors()}.
+     *
+     * @return false at the end of the input
+     */
+    public boolean next() throws IOException
+    {
+        String text;
+
+        while ((text = reader.readLine()) != null) {
+            line++;
+
+            if (text.trim().isEmpty() || (line == 1 && text.trim().startsWith(HEADER))) {
+                continue;
+            }
+
+            String error = parse(text);
+
+            if (error == null) {
+                return true;
+            }
+
+            rejected++;
+
+            if (errors.size() < maxErrors) {
+                errors.add("line " + line + ": " + error);
+            }
+        }
+
+        return false;
+    }
+
+    public long getMovieId()
+    {
+        return movieId;
+    }
+
+    public BigDecimal getUnitPrice()
+    {
+        return unitPrice;
+    }
+
+    public int getPremiumDiscount()
+    {
+        return premiumDiscount;
+    }
+
+    public long getLine()
+    {
+        return line;
+    }
+
+    public long getRejected()
+    {
+        return rejected;
+    }
+
+    /**
+     * @return the first {@code maxErrors} problems found
+     */
+    public List<String> getErrors()
+    {
+        return errors;
+    }
+
+    private String parse(String text)
+    {
+        String[] fields = text.split(",", -1);
+
+        if (fields.length != 3) {
+            return "expected 3 fields but found " + fields.length;
+        }
+
+        try {
+            movieId = Long.parseLong(unquote(fields[0]));
+        } catch (NumberFormatException e) {
+            return "movie_id is not a number";
+        }
+
+        if (movieId < 1 || movieId > Integer.MAX_VALUE) {
+            return "movie_id " + movieId + " is out of range";
+        }
+
+        try {
+            unitPrice = new BigDecimal(unquote(fields[1]));
+        } catch (NumberFormatException e) {
+            return "unit_price is not a number";
+        }
+
+        if (unitPrice.signum() < 0) {
+            return "unit_price must not be negative";
+        }
+
+        if (unitPrice.scale() > PRICE_SCALE || unitPrice.precision() - unitPrice.scale() > PRICE_INTEGER_PART) {
+            return "unit_price does not fit DECIMAL(19, 4)";
+        }
+
+        try {
+            premiumDiscount = Integer.parseInt(unquote(fields[2]));
+        } catch (NumberFormatException e) {
+            return "premium_discount is not a whole number";
+        }
+
+        if (premiumDiscount < 0 || premiumDiscount > MAX_PREMIUM_DISCOUNT) {
+            return "premium_discount must be between 0 and " + MAX_PREMIUM_DISCOUNT;
+        }
+
+        return null;
+    }
+
+    private static String unquote(String field)
+    {
+        String trimmed = field.trim();
+
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+
+        return trimmed;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.klefstad_teaching.cs122b.billing.catalog;
+
+import java.util.List;
+
+/**
+ * Outcome of one price upload. {@code applied} is only true when every row was valid and the
+ * whole list went live; otherwise nothing changed.
+ */
+public final class PriceUploadResult {
+    private final long rows;
+    private final long rejected;
+    private final boolean applied;
+    private final List<String> errors;
+    private final long elapsedMs;
+
+    public PriceUploadResult(long rows, long rejected, boolean applied, List<String> errors, long elapsedMs) {
+        this.rows = rows;
+        this.rejected = rejected;
+        this.applied = applied;
+        this.errors = errors;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+}
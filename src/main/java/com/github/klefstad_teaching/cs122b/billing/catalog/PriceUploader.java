@@ -0,0 +1,138 @@
+package com.github.klefstad_teaching.cs122b.billing.catalog;
+
+import com.github.klefstad_teaching.cs122b.billing.config.PriceUploadConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheInvalidationBus;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheRegion;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.InvalidationEvent;
+import com.github.klefstad_teaching.cs122b.billing.repo.PriceUploadRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Replaces movie prices from a CSV stream. Rows are validated as they are read and staged in fixed
+ * size batches, so memory does not grow with the upload. The live prices only change once the
+ * whole upload has staged cleanly, and then in a single transaction.
+ */
+@Component
+public class PriceUploader
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PriceUploader.class);
+
+    private final PriceUploadConfig    config;
+    private final PriceUploadRepo      repo;
+    private final CacheInvalidationBus invalidation;
+    private final ReentrantLock        lock = new ReentrantLock();
+
+    @Autowired
+    public PriceUploader(PriceUploadConfig config, PriceUploadRepo repo, CacheInvalidationBus invalidation)
+    {
+        this.config = config;
+        this.repo = repo;
+        this.invalidation = invalidation;
+    }
+
+    public boolean isEnabled()
+    {
+        return config.getEnabled();
+    }
+
+    /**
+     * @return null when another upload is already running
+     */
+    public PriceUploadResult upload(InputStream csv)
+        throws IOException
+    {
+        if (!lock.tryLock()) {
+            return null;
+        }
+
+        try {
+            return stageAndApply(csv);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PriceUploadResult stageAndApply(InputStream csv)
+        throws IOException
+    {
+        long           start    = System.nanoTime();
+        String         uploadId = UUID.randomUUID().toString();
+        int            size     = config.getBatchSize();
+        String         sql      = PriceUploadRepo.stagingUpsert(size);
+        PriceCsvReader reader   = new PriceCsvReader(
+            new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)), config.getMaxErrors());
+
+        long[]       movieIds         = new long[size];
+        BigDecimal[] unitPrices       = new BigDecimal[size];
+        int[]        premiumDiscounts = new int[size];
+        int          pending          = 0;
+        long         rows             = 0;
+        boolean      applied          = false;
+
+        try {
+            while (reader.next()) {
+                rows++;
+
+                // Once a row has been rejected the upload cannot be applied; keep reading only to report errors
+                if (reader.getRejected() > 0) {
+                    continue;
+                }
+
+                movieIds[pending] = reader.getMovieId();
+                unitPrices[pending] = reader.getUnitPrice();
+                premiumDiscounts[pending] = reader.getPremiumDiscount();
+
+                if (++pending == size) {
+                    repo.stagingUpsert(sql, uploadId, pending, movieIds, unitPrices, premiumDiscounts);
+                    pending = 0;
+                }
+            }
+
+            List<String> errors = reader.getErrors();
+
+            if (reader.getRejected() == 0 && pending > 0) {
+                repo.stagingUpsert(PriceUploadRepo.stagingUpsert(pending), uploadId, pending,
+                                   movieIds, unitPrices, premiumDiscounts);
+            }
+
+            if (reader.getRejected() == 0 && rows > 0) {
+                List<Long> unknown = repo.stagingUnknownMovies(uploadId, config.getMaxErrors());
+
+                for (Long movieId : unknown) {
+                    errors.add("movie_id " + movieId + " does not exist");
+                }
+
+                if (unknown.isEmpty()) {
+                    repo.stagingApply(uploadId);
+                    invalidation.invalidate(CacheRegion.PRICE, InvalidationEvent.ALL_KEYS);
+                    applied = true;
+                }
+            }
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            LOG.info("Price upload {} read {} rows, rejected {}, applied {} in {} ms",
+                     uploadId, rows + reader.getRejected(), reader.getRejected(), applied, elapsedMs);
+
+            return new PriceUploadResult(rows + reader.getRejected(), reader.getRejected(), applied, errors, elapsedMs);
+        } finally {
+            if (!applied) {
+                repo.stagingDiscard(uploadId);
+            }
+        }
+    }
+}
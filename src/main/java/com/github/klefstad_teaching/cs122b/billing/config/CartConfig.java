@@ -0,0 +1,50 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.cart")
+public class CartConfig
+{
+    private final String  mode;
+    private final Long    snapshotIntervalMs;
+    private final Integer snapshotMinEvents;
+    private final Boolean singleFlight;
+
+    public CartConfig(@DefaultValue("table") String mode,
+                      @DefaultValue("60000") Long snapshotIntervalMs,
+                      @DefaultValue("1000") Integer snapshotMinEvents,
+                      @DefaultValue("false") Boolean singleFlight)
+    {
+        this.mode = mode;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.snapshotMinEvents = snapshotMinEvents;
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * {@code table} or {@code event-sourced}; event-sourced carts are held in memory on one node and
+     * only run with the loopback invalidation transport.
+     */
+    public String getMode()
+    {
+        return mode;
+    }
+
+    public Long getSnapshotIntervalMs()
+    {
+        return snapshotIntervalMs;
+    }
+
+    public Integer getSnapshotMinEvents()
+    {
+        return snapshotMinEvents;
+    }
+
+    public Boolean getSingleFlight()
+    {
+        return singleFlight;
+    }
+}
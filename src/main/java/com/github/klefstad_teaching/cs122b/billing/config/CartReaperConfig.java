@@ -0,0 +1,59 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.cart-reaper")
+public class CartReaperConfig
+{
+    private final Boolean  enabled;
+    private final Duration ttl;
+    private final Integer  batchSize;
+    private final Long     pauseMs;
+    private final Integer  maxBatchesPerRun;
+
+    public CartReaperConfig(@DefaultValue("false") Boolean enabled,
+                            @DefaultValue("30d") Duration ttl,
+                            @DefaultValue("100") Integer batchSize,
+                            @DefaultValue("50") Long pauseMs,
+                            @DefaultValue("200") Integer maxBatchesPerRun)
+    {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Duration getTtl()
+    {
+        return ttl;
+    }
+
+    /**
+     * Carts, not rows, deleted per batch; each cart goes whole.
+     */
+    public Integer getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public Long getPauseMs()
+    {
+        return pauseMs;
+    }
+
+    public Integer getMaxBatchesPerRun()
+    {
+        return maxBatchesPerRun;
+    }
+}
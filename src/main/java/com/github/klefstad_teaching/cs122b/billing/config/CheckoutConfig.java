@@ -0,0 +1,32 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.checkout")
+public class CheckoutConfig
+{
+    private final Boolean  snapshotEnabled;
+    private final Duration snapshotTtl;
+
+    public CheckoutConfig(@DefaultValue("false") Boolean snapshotEnabled,
+                          @DefaultValue("1d") Duration snapshotTtl)
+    {
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshotTtl = snapshotTtl;
+    }
+
+    public Boolean getSnapshotEnabled()
+    {
+        return snapshotEnabled;
+    }
+
+    public Duration getSnapshotTtl()
+    {
+        return snapshotTtl;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.concurrency-limit")
+public class ConcurrencyLimitConfig
+{
+    private final Boolean enabled;
+    private final Integer initialLimit;
+    private final Integer minLimit;
+    private final Integer maxLimit;
+    private final Double  smoothing;
+    private final Double  highShare;
+    private final Double  sheddableShare;
+    private final Double  adminShare;
+
+    public ConcurrencyLimitConfig(@DefaultValue("false") Boolean enabled,
+                                  @DefaultValue("20") Integer initialLimit,
+                                  @DefaultValue("4") Integer minLimit,
+                                  @DefaultValue("200") Integer maxLimit,
+                                  @DefaultValue("0.2") Double smoothing,
+                                  @DefaultValue("0.9") Double highShare,
+                                  @DefaultValue("0.7") Double sheddableShare,
+                                  @DefaultValue("0.5") Double adminShare)
+    {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.highShare = highShare;
+        this.sheddableShare = sheddableShare;
+        this.adminShare = adminShare;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Integer getInitialLimit()
+    {
+        return initialLimit;
+    }
+
+    public Integer getMinLimit()
+    {
+        return minLimit;
+    }
+
+    public Integer getMaxLimit()
+    {
+        return maxLimit;
+    }
+
+    public Double getSmoothing()
+    {
+        return smoothing;
+    }
+
+    public Double getHighShare()
+    {
+        return highShare;
+    }
+
+    public Double getSheddableShare()
+    {
+        return sheddableShare;
+    }
+
+    public Double getAdminShare()
+    {
+        return adminShare;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.flash-sale")
+public class FlashSaleConfig
+{
+    private final Boolean enabled;
+
+    public FlashSaleConfig(@DefaultValue("false") Boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Reserved stock is held as long as the payment snapshot, so {@code billing.checkout.snapshot-ttl}
+     * is also how long an unpaid order keeps stock off sale.
+     */
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+}
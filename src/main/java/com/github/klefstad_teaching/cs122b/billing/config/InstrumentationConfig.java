@@ -0,0 +1,126 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import com.github.klefstad_teaching.cs122b.billing.logging.RequestLogContextFilter;
+import com.github.klefstad_teaching.cs122b.billing.metrics.LatencyMetrics;
+import com.github.klefstad_teaching.cs122b.billing.metrics.LatencyMetricsFilter;
+import com.github.klefstad_teaching.cs122b.billing.metrics.Phase;
+import com.github.klefstad_teaching.cs122b.billing.metrics.PhaseTimingInterceptor;
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentGateway;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.slowquery.ConnectionWaitDataSource;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import com.github.klefstad_teaching.cs122b.billing.tracing.TracingFilter;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Wiring for the per-phase latency metrics, request tracing, request log context and the
+ * slow-query log. The advisors
+ * are infrastructure beans so the same auto-proxy creator that applies {@code @Transactional} adds
+ * them to the repository and payment gateway beans; they are only registered when metrics are
+ * enabled, so nothing is proxied otherwise. Likewise the data source is only wrapped to time
+ * connection checkouts when the slow-query log is on.
+ */
+@Configuration
+public class InstrumentationConfig
+{
+    private static final String REPO_PACKAGE = BillingRepo.class.getPackage().getName();
+
+    private static final StaticMethodMatcher PUBLIC_METHODS = new StaticMethodMatcher()
+    {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass)
+        {
+            return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+        }
+    };
+
+    @Bean
+    public FilterRegistrationBean<LatencyMetricsFilter> latencyMetricsFilter(LatencyMetrics metrics)
+    {
+        FilterRegistrationBean<LatencyMetricsFilter> registration =
+            new FilterRegistrationBean<>(new LatencyMetricsFilter(metrics));
+
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer)
+    {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+
+        // Inside the metrics filter, so the root span also covers authentication
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestLogContextFilter> requestLogContextFilter()
+    {
+        FilterRegistrationBean<RequestLogContextFilter> registration =
+            new FilterRegistrationBean<>(new RequestLogContextFilter());
+
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+
+        return registration;
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(prefix = "billing.metrics", name = "enabled", havingValue = "true")
+    public static Advisor databasePhaseAdvisor()
+    {
+        return phaseAdvisor(type -> REPO_PACKAGE.equals(type.getPackageName()), Phase.DATABASE);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(prefix = "billing.metrics", name = "enabled", havingValue = "true")
+    public static Advisor paymentPhaseAdvisor()
+    {
+        return phaseAdvisor(PaymentGateway.class::isAssignableFrom, Phase.PAYMENT);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "billing.slow-query", name = "enabled", havingValue = "true")
+    public static BeanPostProcessor connectionWaitPostProcessor()
+    {
+        return new BeanPostProcessor()
+        {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName)
+            {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionWaitDataSource)) {
+                    return new ConnectionWaitDataSource((DataSource) bean);
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    private static Advisor phaseAdvisor(ClassFilter classFilter, Phase phase)
+    {
+        ComposablePointcut pointcut = new ComposablePointcut(classFilter, PUBLIC_METHODS);
+
+        return new DefaultPointcutAdvisor(pointcut, new PhaseTimingInterceptor(phase));
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.metrics")
+public class MetricsConfig
+{
+    private final Boolean enabled;
+
+    public MetricsConfig(@DefaultValue("false") Boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.outbox")
+public class OutboxConfig
+{
+    private final Boolean  enabled;
+    private final Boolean  relayEnabled;
+    private final Integer  batchSize;
+    private final Duration leaseTtl;
+
+    public OutboxConfig(@DefaultValue("false") Boolean enabled,
+                        @DefaultValue("true") Boolean relayEnabled,
+                        @DefaultValue("500") Integer batchSize,
+                        @DefaultValue("30s") Duration leaseTtl)
+    {
+        this.enabled = enabled;
+        this.relayEnabled = relayEnabled;
+        this.batchSize = batchSize;
+        this.leaseTtl = leaseTtl;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Whether this instance may publish the outbox. Enabled instances take turns through the relay
+     * lease, so only one publishes at a time.
+     */
+    public Boolean getRelayEnabled()
+    {
+        return relayEnabled;
+    }
+
+    public Integer getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * How long the relay lease outlives its last renewal. It is renewed before every batch, so it
+     * must be longer than the sink takes to publish one; otherwise another instance takes over and
+     * the batch in flight is delivered twice.
+     */
+    public Duration getLeaseTtl()
+    {
+        return leaseTtl;
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.price-upload")
+public class PriceUploadConfig
+{
+    private final Boolean enabled;
+    private final Integer batchSize;
+    private final Integer maxErrors;
+
+    public PriceUploadConfig(@DefaultValue("false") Boolean enabled,
+                             @DefaultValue("1000") Integer batchSize,
+                             @DefaultValue("100") Integer maxErrors)
+    {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Integer getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public Integer getMaxErrors()
+    {
+        return maxErrors;
+    }
+}
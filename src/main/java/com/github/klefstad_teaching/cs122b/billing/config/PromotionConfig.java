@@ -0,0 +1,30 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.promotions")
+public class PromotionConfig
+{
+    private final Boolean enabled;
+    private final Long    refreshIntervalMs;
+
+    public PromotionConfig(@DefaultValue("false") Boolean enabled,
+                           @DefaultValue("60000") Long refreshIntervalMs)
+    {
+        this.enabled = enabled;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Long getRefreshIntervalMs()
+    {
+        return refreshIntervalMs;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.rate-limit")
+public class RateLimitConfig
+{
+    private final Boolean enabled;
+    private final Integer maxUsers;
+    private final Double  mutationsPerSecond;
+    private final Integer mutationBurst;
+    private final Double  readsPerSecond;
+    private final Integer readBurst;
+    private final Double  checkoutsPerSecond;
+    private final Integer checkoutBurst;
+
+    public RateLimitConfig(@DefaultValue("false") Boolean enabled,
+                           @DefaultValue("100000") Integer maxUsers,
+                           @DefaultValue("5") Double mutationsPerSecond,
+                           @DefaultValue("20") Integer mutationBurst,
+                           @DefaultValue("20") Double readsPerSecond,
+                           @DefaultValue("50") Integer readBurst,
+                           @DefaultValue("1") Double checkoutsPerSecond,
+                           @DefaultValue("5") Integer checkoutBurst)
+    {
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+        this.mutationsPerSecond = mutationsPerSecond;
+        this.mutationBurst = mutationBurst;
+        this.readsPerSecond = readsPerSecond;
+        this.readBurst = readBurst;
+        this.checkoutsPerSecond = checkoutsPerSecond;
+        this.checkoutBurst = checkoutBurst;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Integer getMaxUsers()
+    {
+        return maxUsers;
+    }
+
+    public Double getMutationsPerSecond()
+    {
+        return mutationsPerSecond;
+    }
+
+    public Integer getMutationBurst()
+    {
+        return mutationBurst;
+    }
+
+    public Double getReadsPerSecond()
+    {
+        return readsPerSecond;
+    }
+
+    public Integer getReadBurst()
+    {
+        return readBurst;
+    }
+
+    public Double getCheckoutsPerSecond()
+    {
+        return checkoutsPerSecond;
+    }
+
+    public Integer getCheckoutBurst()
+    {
+        return checkoutBurst;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig
+{
+}
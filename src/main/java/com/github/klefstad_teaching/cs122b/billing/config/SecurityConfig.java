@@ -0,0 +1,20 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import com.github.klefstad_teaching.cs122b.billing.rest.WebhookController;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+
+/**
+ * Additions to the core JWT security setup. Stripe cannot present a JWT, so its webhook bypasses the
+ * security filter chain and is authenticated by its signature instead.
+ */
+@Configuration
+public class SecurityConfig
+{
+    @Bean
+    public WebSecurityCustomizer webhookSecurityCustomizer()
+    {
+        return web -> web.ignoring().antMatchers(WebhookController.STRIPE_PATH);
+    }
+}
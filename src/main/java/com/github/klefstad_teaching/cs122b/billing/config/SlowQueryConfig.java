@@ -0,0 +1,94 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.slow-query")
+public class SlowQueryConfig
+{
+    private final Boolean enabled;
+    private final Long    thresholdMs;
+    private final Integer capacity;
+    private final Double  bindSampleRatio;
+    private final String  hashSalt;
+    private final Boolean fileEnabled;
+    private final String  filePath;
+    private final Long    fileMaxBytes;
+    private final Integer fileMaxBackups;
+    private final Integer fileQueueSize;
+
+    public SlowQueryConfig(@DefaultValue("false") Boolean enabled,
+                           @DefaultValue("100") Long thresholdMs,
+                           @DefaultValue("500") Integer capacity,
+                           @DefaultValue("1.0") Double bindSampleRatio,
+                           @DefaultValue("") String hashSalt,
+                           @DefaultValue("false") Boolean fileEnabled,
+                           @DefaultValue("logs/slow-queries.jsonl") String filePath,
+                           @DefaultValue("10485760") Long fileMaxBytes,
+                           @DefaultValue("5") Integer fileMaxBackups,
+                           @DefaultValue("10000") Integer fileQueueSize)
+    {
+        this.enabled = enabled;
+        this.thresholdMs = thresholdMs;
+        this.capacity = capacity;
+        this.bindSampleRatio = bindSampleRatio;
+        this.hashSalt = hashSalt;
+        this.fileEnabled = fileEnabled;
+        this.filePath = filePath;
+        this.fileMaxBytes = fileMaxBytes;
+        this.fileMaxBackups = fileMaxBackups;
+        this.fileQueueSize = fileQueueSize;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Long getThresholdMs()
+    {
+        return thresholdMs;
+    }
+
+    public Integer getCapacity()
+    {
+        return capacity;
+    }
+
+    public Double getBindSampleRatio()
+    {
+        return bindSampleRatio;
+    }
+
+    public String getHashSalt()
+    {
+        return hashSalt;
+    }
+
+    public Boolean getFileEnabled()
+    {
+        return fileEnabled;
+    }
+
+    public String getFilePath()
+    {
+        return filePath;
+    }
+
+    public Long getFileMaxBytes()
+    {
+        return fileMaxBytes;
+    }
+
+    public Integer getFileMaxBackups()
+    {
+        return fileMaxBackups;
+    }
+
+    public Integer getFileQueueSize()
+    {
+        return fileQueueSize;
+    }
+}
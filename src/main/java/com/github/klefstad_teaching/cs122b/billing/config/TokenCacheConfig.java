@@ -0,0 +1,22 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.token-cache")
+public class TokenCacheConfig
+{
+    private final Integer maxSize;
+
+    public TokenCacheConfig(@DefaultValue("10000") Integer maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    public Integer getMaxSize()
+    {
+        return maxSize;
+    }
+}
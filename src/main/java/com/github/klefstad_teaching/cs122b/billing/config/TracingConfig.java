@@ -0,0 +1,82 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.tracing")
+public class TracingConfig
+{
+    private final Boolean enabled;
+    private final Double  sampleRatio;
+    private final Integer maxTracesPerSecond;
+    private final Long    slowThresholdMs;
+    private final String  exporter;
+    private final Integer memoryCapacity;
+    private final String  filePath;
+    private final Integer fileQueueSize;
+
+    public TracingConfig(@DefaultValue("false") Boolean enabled,
+                         @DefaultValue("0.01") Double sampleRatio,
+                         @DefaultValue("20") Integer maxTracesPerSecond,
+                         @DefaultValue("0") Long slowThresholdMs,
+                         @DefaultValue("memory") String exporter,
+                         @DefaultValue("200") Integer memoryCapacity,
+                         @DefaultValue("logs/traces.jsonl") String filePath,
+                         @DefaultValue("10000") Integer fileQueueSize)
+    {
+        this.enabled = enabled;
+        this.sampleRatio = sampleRatio;
+        this.maxTracesPerSecond = maxTracesPerSecond;
+        this.slowThresholdMs = slowThresholdMs;
+        this.exporter = exporter;
+        this.memoryCapacity = memoryCapacity;
+        this.filePath = filePath;
+        this.fileQueueSize = fileQueueSize;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Double getSampleRatio()
+    {
+        return sampleRatio;
+    }
+
+    public Integer getMaxTracesPerSecond()
+    {
+        return maxTracesPerSecond;
+    }
+
+    /**
+     * When positive, requests the sampler skipped are still recorded and exported if the root span
+     * takes at least this long, so slow checkouts are captured whatever the sample ratio.
+     */
+    public Long getSlowThresholdMs()
+    {
+        return slowThresholdMs;
+    }
+
+    public String getExporter()
+    {
+        return exporter;
+    }
+
+    public Integer getMemoryCapacity()
+    {
+        return memoryCapacity;
+    }
+
+    public String getFilePath()
+    {
+        return filePath;
+    }
+
+    public Integer getFileQueueSize()
+    {
+        return fileQueueSize;
+    }
+}
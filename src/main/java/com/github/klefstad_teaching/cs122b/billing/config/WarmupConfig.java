@@ -0,0 +1,49 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.warmup")
+public class WarmupConfig
+{
+    private final Boolean enabled;
+    private final Integer threads;
+    private final Integer requestsPerThread;
+    private final Boolean exitOnComplete;
+
+    public WarmupConfig(@DefaultValue("false") Boolean enabled,
+                        @DefaultValue("4") Integer threads,
+                        @DefaultValue("40") Integer requestsPerThread,
+                        @DefaultValue("false") Boolean exitOnComplete)
+    {
+        this.enabled = enabled;
+        this.threads = threads;
+        this.requestsPerThread = requestsPerThread;
+        this.exitOnComplete = exitOnComplete;
+    }
+
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public Integer getThreads()
+    {
+        return threads;
+    }
+
+    public Integer getRequestsPerThread()
+    {
+        return requestsPerThread;
+    }
+
+    /**
+     * Shuts the service down once warmup finishes; used by the class-data-sharing training run.
+     */
+    public Boolean getExitOnComplete()
+    {
+        return exitOnComplete;
+    }
+}
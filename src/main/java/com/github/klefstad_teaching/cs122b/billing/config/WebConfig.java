@@ -0,0 +1,75 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import com.github.klefstad_teaching.cs122b.billing.metrics.AuthPhaseInterceptor;
+import com.github.klefstad_teaching.cs122b.billing.metrics.LatencyMetrics;
+import com.github.klefstad_teaching.cs122b.billing.metrics.TimedJacksonConverter;
+import com.github.klefstad_teaching.cs122b.billing.ratelimit.ConcurrencyLimitInterceptor;
+import com.github.klefstad_teaching.cs122b.billing.ratelimit.RateLimitInterceptor;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipalArgumentResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer
+{
+    private final BillingPrincipalArgumentResolver principalResolver;
+    private final AuthPhaseInterceptor             authPhaseInterceptor;
+    private final ConcurrencyLimitInterceptor      concurrencyLimitInterceptor;
+    private final RateLimitInterceptor             rateLimitInterceptor;
+    private final LatencyMetrics                   latencyMetrics;
+
+    @Autowired
+    public WebConfig(BillingPrincipalArgumentResolver principalResolver,
+                     AuthPhaseInterceptor authPhaseInterceptor,
+                     ConcurrencyLimitInterceptor concurrencyLimitInterceptor,
+                     RateLimitInterceptor rateLimitInterceptor,
+                     LatencyMetrics latencyMetrics)
+    {
+        this.principalResolver = principalResolver;
+        this.authPhaseInterceptor = authPhaseInterceptor;
+        this.concurrencyLimitInterceptor = concurrencyLimitInterceptor;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        if (latencyMetrics.isEnabled()) {
+            registry.addInterceptor(authPhaseInterceptor);
+        }
+
+        // Rate limit first so a 429 never holds a concurrency slot or feeds the limiter an RTT sample
+        registry.addInterceptor(rateLimitInterceptor);
+        registry.addInterceptor(concurrencyLimitInterceptor);
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers)
+    {
+        resolvers.add(principalResolver);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters)
+    {
+        if (!latencyMetrics.isEnabled()) {
+            return;
+        }
+
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+
+            if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                converters.set(i, new TimedJacksonConverter(((MappingJackson2HttpMessageConverter) converter).getObjectMapper()));
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.klefstad_teaching.cs122b.billing.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties(prefix = "billing.webhook")
+public class WebhookConfig
+{
+    private final Boolean enabled;
+    private final String  signingSecret;
+    private final Long    toleranceSeconds;
+    private final Integer maxAttempts;
+    private final Integer batchSize;
+    private final Boolean simulatorEnabled;
+
+    public WebhookConfig(@DefaultValue("false") Boolean enabled,
+                         @DefaultValue("") String signingSecret,
+                         @DefaultValue("300") Long toleranceSeconds,
+                         @DefaultValue("5") Integer maxAttempts,
+                         @DefaultValue("100") Integer batchSize,
+                         @DefaultValue("false") Boolean simulatorEnabled)
+    {
+        this.enabled = enabled;
+        this.signingSecret = signingSecret;
+        this.toleranceSeconds = toleranceSeconds;
+        this.maxAttempts = maxAttempts;
+        this.batchSize = batchSize;
+        this.simulatorEnabled = simulatorEnabled;
+    }
+
+    /**
+     * Orders are completed from their payment snapshots, so the service refuses to start with this
+     * on and {@code billing.checkout.snapshot-enabled} off.
+     */
+    public Boolean getEnabled()
+    {
+        return enabled;
+    }
+
+    public String getSigningSecret()
+    {
+        return signingSecret;
+    }
+
+    public Long getToleranceSeconds()
+    {
+        return toleranceSeconds;
+    }
+
+    public Integer getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    public Integer getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public Boolean getSimulatorEnabled()
+    {
+        return simulatorEnabled;
+    }
+}
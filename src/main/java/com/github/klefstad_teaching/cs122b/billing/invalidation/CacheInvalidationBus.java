@@ -0,0 +1,94 @@
+package com.github.klefstad_teaching.cs122b.billing.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Keeps the in-process caches of every billing node coherent. Writers call {@link #invalidate};
+ * local evictors run straight away and the event goes out on the transport so the other nodes evict
+ * the same key.
+ */
+@Component
+public class CacheInvalidationBus
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final String                               nodeId    = UUID.randomUUID().toString();
+    private final Map<CacheRegion, List<LongConsumer>> evictors  = new EnumMap<>(CacheRegion.class);
+    private final AtomicLong                           published = new AtomicLong();
+    private final AtomicLong                           received  = new AtomicLong();
+    private final InvalidationTransport                transport;
+
+    @Autowired
+    public CacheInvalidationBus(InvalidationTransport transport)
+    {
+        for (CacheRegion region : CacheRegion.values()) {
+            evictors.put(region, new CopyOnWriteArrayList<>());
+        }
+
+        this.transport = transport;
+        this.transport.subscribe(this::receive);
+    }
+
+    /**
+     * Registers a local eviction callback; it receives the key, or {@link InvalidationEvent#ALL_KEYS}.
+     */
+    public void register(CacheRegion region, LongConsumer evictor)
+    {
+        evictors.get(region).add(evictor);
+    }
+
+    public void invalidate(CacheRegion region, long key)
+    {
+        evict(region, key);
+        published.incrementAndGet();
+
+        try {
+            transport.publish(new InvalidationEvent(nodeId, region, key));
+        } catch (RuntimeException e) {
+            LOG.warn("Could not publish invalidation of {} {}", region, key, e);
+        }
+    }
+
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    public long getPublished()
+    {
+        return published.get();
+    }
+
+    public long getReceived()
+    {
+        return received.get();
+    }
+
+    private void receive(InvalidationEvent event)
+    {
+        if (nodeId.equals(event.getOrigin())) {
+            return;
+        }
+
+        received.incrementAndGet();
+        evict(event.getRegion(), event.getKey());
+    }
+
+    private void evict(CacheRegion region, long key)
+    {
+        for (LongConsumer evictor : evictors.get(region)) {
+            evictor.accept(key);
+        }
+    }
+}
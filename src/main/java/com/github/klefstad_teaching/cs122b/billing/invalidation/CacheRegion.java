@@ -0,0 +1,11 @@
+package com.github.klefstad_teaching.cs122b.billing.invalidation;
+
+public enum CacheRegion
+{
+    /** Keyed by user id. */
+    CART,
+    /** Keyed by user id. */
+    SALE,
+    /** Keyed by movie id, or {@link InvalidationEvent#ALL_KEYS} after a bulk price change. */
+    PRICE
+}
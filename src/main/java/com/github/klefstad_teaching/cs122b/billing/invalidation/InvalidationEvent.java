@@ -0,0 +1,27 @@
+package com.github.klefstad_teaching.cs122b.billing.invalidation;
+
+public final class InvalidationEvent {
+    public static final long ALL_KEYS = -1;
+
+    private final String origin;
+    private final CacheRegion region;
+    private final long key;
+
+    public InvalidationEvent(String origin, CacheRegion region, long key) {
+        this.origin = origin;
+        this.region = region;
+        this.key = key;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public CacheRegion getRegion() {
+        return region;
+    }
+
+    public long getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.klefstad_teaching.cs122b.billing.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidation events between billing nodes. Implementations deliver every published event
+ * to every subscriber on every node, including the publishing node; the bus drops its own events.
+ */
+public interface InvalidationTransport
+{
+    void publish(InvalidationEvent event);
+
+    void subscribe(Consumer<InvalidationEvent> subscriber);
+}
@@ -0,0 +1,49 @@
+package com.github.klefstad_teaching.cs122b.billing.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events synchronously to every subscriber in this JVM. Several application contexts
+ * started in one process behave like separate nodes sharing one network, which is enough to test
+ * coherence on a single machine.
+ */
+@Component
+@ConditionalOnProperty(prefix = "billing.invalidation", name = "transport", havingValue = "loopback",
+                       matchIfMissing = true)
+public class LoopbackTransport implements InvalidationTransport
+{
+    private static final List<Consumer<InvalidationEvent>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<InvalidationEvent>> own = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationEvent event)
+    {
+        for (Consumer<InvalidationEvent> subscriber : SUBSCRIBERS) {
+            subscriber.accept(event);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationEvent> subscriber)
+    {
+        own.add(subscriber);
+        SUBSCRIBERS.add(subscriber);
+    }
+
+    /**
+     * Detaches this node's subscribers, as when a node leaves the cluster.
+     */
+    @PreDestroy
+    public void close()
+    {
+        SUBSCRIBERS.removeAll(own);
+        own.clear();
+    }
+}
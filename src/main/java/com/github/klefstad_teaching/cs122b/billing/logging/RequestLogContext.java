@@ -0,0 +1,56 @@
+package com.github.klefstad_teaching.cs122b.billing.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Per-request log context (user id, endpoint, sale id) carried in the MDC. Every setter first
+ * checks that the service logs at INFO, so with logging turned down no strings are built and the
+ * MDC is never touched.
+ */
+public final class RequestLogContext
+{
+    public static final String USER_ID  = "userId";
+    public static final String ENDPOINT = "endpoint";
+    public static final String SALE_ID  = "saleId";
+
+    private static final Logger LOG = LoggerFactory.getLogger("com.github.klefstad_teaching.cs122b.billing");
+
+    private RequestLogContext()
+    {
+    }
+
+    public static boolean isActive()
+    {
+        return LOG.isInfoEnabled();
+    }
+
+    public static void endpoint(String method, String uri)
+    {
+        if (isActive()) {
+            MDC.put(ENDPOINT, method + " " + uri);
+        }
+    }
+
+    public static void user(long userId)
+    {
+        if (isActive()) {
+            MDC.put(USER_ID, Long.toString(userId));
+        }
+    }
+
+    public static void sale(long saleId)
+    {
+        if (isActive()) {
+            MDC.put(SALE_ID, Long.toString(saleId));
+        }
+    }
+
+    public static void clear()
+    {
+        MDC.remove(USER_ID);
+        MDC.remove(ENDPOINT);
+        MDC.remove(SALE_ID);
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.klefstad_teaching.cs122b.billing.logging;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Tags everything logged while serving a request with its endpoint, and clears the request's
+ * context afterwards so nothing leaks to the next request on the same worker thread.
+ */
+public class RequestLogContextFilter extends OncePerRequestFilter
+{
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException
+    {
+        if (!RequestLogContext.isActive()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestLogContext.endpoint(request.getMethod(), request.getRequestURI());
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestLogContext.clear();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * First interceptor in the chain: a request only gets here once the security filter chain has
+ * verified its token, so everything up to this point is charged to {@link Phase#AUTH}.
+ */
+@Component
+public class AuthPhaseInterceptor implements HandlerInterceptor
+{
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        RequestPhases.addSinceStart(Phase.AUTH);
+        return true;
+    }
+}
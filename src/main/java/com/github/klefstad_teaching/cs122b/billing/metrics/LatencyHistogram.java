@@ -0,0 +1,103 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of nanosecond latencies. Every power of two is split into
+ * {@value #SUB_BUCKETS} linear buckets, so any recorded value is reported within about 6% while
+ * recording stays a couple of atomic increments.
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS         = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong      count  = new AtomicLong();
+    private final AtomicLong      sum    = new AtomicLong();
+    private final AtomicLong      max    = new AtomicLong();
+
+    public void record(long nanos)
+    {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts.incrementAndGet(index(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+
+        long current;
+
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // retry until this value is recorded or a larger one wins
+        }
+    }
+
+    public long count()
+    {
+        return count.get();
+    }
+
+    public double meanNanos()
+    {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    public long maxNanos()
+    {
+        return max.get();
+    }
+
+    /**
+     * @return the midpoint of the bucket holding the given percentile, or 0 when nothing was recorded
+     */
+    public long percentileNanos(double percentile)
+    {
+        long total = count.get();
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? max.get() : Math.min((lowerBound(i) + lowerBound(i + 1)) / 2, max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    static int index(long value)
+    {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub      = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int index)
+    {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub      = index % SUB_BUCKETS;
+
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import com.github.klefstad_teaching.cs122b.billing.config.MetricsConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link LatencyHistogram} per endpoint pattern and {@link Phase}.
+ */
+@Component
+public class LatencyMetrics
+{
+    private static final double[] PERCENTILES       = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_LABELS = {"p50Micros", "p90Micros", "p99Micros", "p999Micros"};
+
+    private final ConcurrentHashMap<String, LatencyHistogram[]> endpoints = new ConcurrentHashMap<>();
+    private final boolean                                       enabled;
+
+    @Autowired
+    public LatencyMetrics(MetricsConfig config)
+    {
+        this.enabled = config.getEnabled();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Records a finished request; phases that never ran are left out rather than counted as zero.
+     */
+    public void record(String endpoint, long[] phases)
+    {
+        LatencyHistogram[] histograms = endpoints.computeIfAbsent(endpoint, LatencyMetrics::newHistograms);
+
+        for (Phase phase : Phase.values()) {
+            long nanos = phases[phase.ordinal()];
+
+            if (nanos > 0 || phase == Phase.TOTAL) {
+                histograms[phase.ordinal()].record(nanos);
+            }
+        }
+    }
+
+    /**
+     * @return endpoint, then phase, then count / mean / percentiles / max in microseconds
+     */
+    public Map<String, Map<String, Map<String, Object>>> snapshot()
+    {
+        Map<String, Map<String, Map<String, Object>>> snapshot = new TreeMap<>();
+
+        for (Map.Entry<String, LatencyHistogram[]> entry : endpoints.entrySet()) {
+            Map<String, Map<String, Object>> phases = new LinkedHashMap<>();
+
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = entry.getValue()[phase.ordinal()];
+
+                if (histogram.count() == 0) {
+                    continue;
+                }
+
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("count", histogram.count());
+                stats.put("meanMicros", micros(histogram.meanNanos()));
+
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    stats.put(PERCENTILE_LABELS[i], micros(histogram.percentileNanos(PERCENTILES[i])));
+                }
+
+                stats.put("maxMicros", micros(histogram.maxNanos()));
+
+                phases.put(phase.name().toLowerCase(), stats);
+            }
+
+            snapshot.put(entry.getKey(), phases);
+        }
+
+        return snapshot;
+    }
+
+    private static LatencyHistogram[] newHistograms(String endpoint)
+    {
+        LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+
+        return histograms;
+    }
+
+    private static double micros(double nanos)
+    {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+}
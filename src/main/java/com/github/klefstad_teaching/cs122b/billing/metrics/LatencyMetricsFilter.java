@@ -0,0 +1,49 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Outermost filter (registered ahead of the security chain): opens the per-request phase scope
+ * and files the result under the matched handler pattern, e.g. {@code /order/detail/{saleId}}.
+ */
+public class LatencyMetricsFilter extends OncePerRequestFilter
+{
+    private static final String UNMATCHED = "unmatched";
+
+    private final LatencyMetrics metrics;
+
+    public LatencyMetricsFilter(LatencyMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException
+    {
+        if (!metrics.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestPhases.begin();
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long[] phases  = RequestPhases.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+            if (phases != null) {
+                metrics.record(pattern == null ? UNMATCHED : pattern.toString(), phases);
+            }
+        }
+    }
+}
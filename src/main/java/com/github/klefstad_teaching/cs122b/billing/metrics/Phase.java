@@ -0,0 +1,15 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+public enum Phase
+{
+    /** Security filter chain (JWT verification) and principal resolution. */
+    AUTH,
+    /** Calls into the repository classes. */
+    DATABASE,
+    /** Calls into the payment gateway. */
+    PAYMENT,
+    /** Writing the JSON response body. */
+    SERIALIZATION,
+    /** The whole request, as seen by the outermost filter. */
+    TOTAL
+}
@@ -0,0 +1,29 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Charges the time spent in an advised call to one phase of the current request.
+ */
+public class PhaseTimingInterceptor implements MethodInterceptor
+{
+    private final Phase phase;
+
+    public PhaseTimingInterceptor(Phase phase)
+    {
+        this.phase = phase;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable
+    {
+        long start = System.nanoTime();
+
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestPhases.add(phase, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+/**
+ * Per-thread phase totals for the request being served. The outermost filter opens and closes the
+ * scope; everything in between adds elapsed nanos to its phase. Time measured outside a request
+ * (scheduled jobs, warmup preloading) is dropped.
+ */
+public final class RequestPhases
+{
+    private static final int PHASES = Phase.values().length;
+
+    private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+
+    private RequestPhases()
+    {
+    }
+
+    static void begin()
+    {
+        long[] phases = new long[PHASES + 1];
+        phases[PHASES] = System.nanoTime();
+        CURRENT.set(phases);
+    }
+
+    /**
+     * @return the per-phase totals indexed by {@link Phase#ordinal()}, with TOTAL filled in
+     */
+    static long[] end()
+    {
+        long[] phases = CURRENT.get();
+        CURRENT.remove();
+
+        if (phases == null) {
+            return null;
+        }
+
+        phases[Phase.TOTAL.ordinal()] = System.nanoTime() - phases[PHASES];
+
+        return phases;
+    }
+
+    public static void add(Phase phase, long nanos)
+    {
+        long[] phases = CURRENT.get();
+
+        if (phases != null) {
+            phases[phase.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * Adds the time since the request entered the outermost filter, e.g. to close the AUTH phase once
+     * the security chain has let the request through.
+     */
+    public static void addSinceStart(Phase phase)
+    {
+        long[] phases = CURRENT.get();
+
+        if (phases != null) {
+            phases[phase.ordinal()] += System.nanoTime() - phases[PHASES];
+        }
+    }
+}
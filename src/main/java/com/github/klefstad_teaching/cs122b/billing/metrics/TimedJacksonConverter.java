@@ -0,0 +1,33 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The regular Jackson converter, charging response writing to {@link Phase#SERIALIZATION}.
+ */
+public class TimedJacksonConverter extends MappingJackson2HttpMessageConverter
+{
+    public TimedJacksonConverter(ObjectMapper objectMapper)
+    {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+        throws IOException, HttpMessageNotWritableException
+    {
+        long start = System.nanoTime();
+
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestPhases.add(Phase.SERIALIZATION, System.nanoTime() - start);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.github.klefstad_teaching.cs122b.billing.model.Data;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.github.klefstad_teaching.cs122b.billing.model.serializer.ItemSerializer;
+
 import java.math.BigDecimal;
 
+@JsonSerialize(using = ItemSerializer.class)
 public class Item {
     private BigDecimal unitPrice;
     private Integer quantity;
@@ -1,12 +1,20 @@
 package com.github.klefstad_teaching.cs122b.billing.model.Data;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.github.klefstad_teaching.cs122b.billing.model.serializer.SaleSerializer;
+
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 
+@JsonSerialize(using = SaleSerializer.class)
 public class Sale {
     private Long saleId;
     private BigDecimal total;
     private Instant orderDate;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Item> items;
 
     public Long getSaleId() {
         return saleId;
@@ -34,4 +42,13 @@ public class Sale {
         this.orderDate = orderDate;
         return this;
     }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Sale setItems(List<Item> items) {
+        this.items = items;
+        return this;
+    }
 }
@@ -1,13 +1,16 @@
 package com.github.klefstad_teaching.cs122b.billing.model.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.serializer.ListRetrieveResponseSerializer;
 import com.github.klefstad_teaching.cs122b.core.result.Result;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonSerialize(using = ListRetrieveResponseSerializer.class)
 public class ListRetrieveResponse {
     private BigDecimal total;
     private List<Item> items;
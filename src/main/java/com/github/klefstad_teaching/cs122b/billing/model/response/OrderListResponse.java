@@ -1,12 +1,15 @@
 package com.github.klefstad_teaching.cs122b.billing.model.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
+import com.github.klefstad_teaching.cs122b.billing.model.serializer.OrderListResponseSerializer;
 import com.github.klefstad_teaching.cs122b.core.result.Result;
 
 import java.util.List;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonSerialize(using = OrderListResponseSerializer.class)
 public class OrderListResponse {
     private Result result;
     private List<Sale> sales;
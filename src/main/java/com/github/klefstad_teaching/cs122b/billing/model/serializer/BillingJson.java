@@ -0,0 +1,145 @@
+package com.github.klefstad_teaching.cs122b.billing.model.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
+import com.github.klefstad_teaching.cs122b.core.result.Result;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Field names are pre-encoded once so the generator copies their quoted bytes straight into its
+ * recycled output buffer instead of escaping them on every response.
+ */
+final class BillingJson
+{
+    static final SerializedString RESULT        = new SerializedString("result");
+    static final SerializedString TOTAL         = new SerializedString("total");
+    static final SerializedString ITEMS         = new SerializedString("items");
+    static final SerializedString SALES         = new SerializedString("sales");
+    static final SerializedString UNIT_PRICE    = new SerializedString("unitPrice");
+    static final SerializedString QUANTITY      = new SerializedString("quantity");
+    static final SerializedString MOVIE_ID      = new SerializedString("movieId");
+    static final SerializedString MOVIE_TITLE   = new SerializedString("movieTitle");
+    static final SerializedString BACKDROP_PATH = new SerializedString("backdropPath");
+    static final SerializedString POSTER_PATH   = new SerializedString("posterPath");
+    static final SerializedString SALE_ID       = new SerializedString("saleId");
+    static final SerializedString ORDER_DATE    = new SerializedString("orderDate");
+
+    private BillingJson()
+    {
+    }
+
+    static void writeResult(Result result, JsonGenerator gen, SerializerProvider provider)
+        throws IOException
+    {
+        if (result != null) {
+            gen.writeFieldName(RESULT);
+            provider.defaultSerializeValue(result, gen);
+        }
+    }
+
+    static void writeItems(List<Item> items, JsonGenerator gen)
+        throws IOException
+    {
+        gen.writeStartArray();
+
+        for (int i = 0; i < items.size(); i++) {
+            writeItem(items.get(i), gen);
+        }
+
+        gen.writeEndArray();
+    }
+
+    /**
+     * Writes every property, nulls included, in declaration order, matching what the reflective
+     * mapping produced for {@link Item}.
+     */
+    static void writeItem(Item item, JsonGenerator gen)
+        throws IOException
+    {
+        gen.writeStartObject();
+
+        gen.writeFieldName(UNIT_PRICE);
+        writeNumber(item.getUnitPrice(), gen);
+        gen.writeFieldName(QUANTITY);
+        writeNumber(item.getQuantity(), gen);
+        gen.writeFieldName(MOVIE_ID);
+        writeNumber(item.getMovieId(), gen);
+        writeString(MOVIE_TITLE, item.getMovieTitle(), gen);
+        writeString(BACKDROP_PATH, item.getBackdropPath(), gen);
+        writeString(POSTER_PATH, item.getPosterPath(), gen);
+
+        gen.writeEndObject();
+    }
+
+    /**
+     * Same as the reflective mapping of {@link Sale}: nulls are written, except {@code items}, which
+     * only order details fill in.
+     */
+    static void writeSale(Sale sale, JsonGenerator gen, SerializerProvider provider)
+        throws IOException
+    {
+        gen.writeStartObject();
+
+        gen.writeFieldName(SALE_ID);
+        writeNumber(sale.getSaleId(), gen);
+        gen.writeFieldName(TOTAL);
+        writeNumber(sale.getTotal(), gen);
+        // Delegates to the configured JavaTimeModule so the date format matches the rest of the service
+        gen.writeFieldName(ORDER_DATE);
+        provider.defaultSerializeValue(sale.getOrderDate(), gen);
+        if (sale.getItems() != null) {
+            gen.writeFieldName(ITEMS);
+            writeItems(sale.getItems(), gen);
+        }
+
+        gen.writeEndObject();
+    }
+
+    private static void writeNumber(BigDecimal value, JsonGenerator gen)
+        throws IOException
+    {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeNumber(Integer value, JsonGenerator gen)
+        throws IOException
+    {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeNumber(Long value, JsonGenerator gen)
+        throws IOException
+    {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeString(SerializedString name, String value, JsonGenerator gen)
+        throws IOException
+    {
+        gen.writeFieldName(name);
+
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+}
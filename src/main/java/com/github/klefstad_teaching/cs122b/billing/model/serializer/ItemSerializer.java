@@ -0,0 +1,23 @@
+package com.github.klefstad_teaching.cs122b.billing.model.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+
+import java.io.IOException;
+
+public class ItemSerializer extends StdSerializer<Item>
+{
+    public ItemSerializer()
+    {
+        super(Item.class);
+    }
+
+    @Override
+    public void serialize(Item value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException
+    {
+        BillingJson.writeItem(value, gen);
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.klefstad_teaching.cs122b.billing.model.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.klefstad_teaching.cs122b.billing.model.response.ListRetrieveResponse;
+
+import java.io.IOException;
+
+public class ListRetrieveResponseSerializer extends StdSerializer<ListRetrieveResponse>
+{
+    public ListRetrieveResponseSerializer()
+    {
+        super(ListRetrieveResponse.class);
+    }
+
+    @Override
+    public void serialize(ListRetrieveResponse value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException
+    {
+        gen.writeStartObject();
+
+        if (value.getTotal() != null) {
+            gen.writeFieldName(BillingJson.TOTAL);
+            gen.writeNumber(value.getTotal());
+        }
+        if (value.getItems() != null) {
+            gen.writeFieldName(BillingJson.ITEMS);
+            BillingJson.writeItems(value.getItems(), gen);
+        }
+        BillingJson.writeResult(value.getResult(), gen, provider);
+
+        gen.writeEndObject();
+    }
+}
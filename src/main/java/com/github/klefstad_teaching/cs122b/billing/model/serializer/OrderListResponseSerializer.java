@@ -0,0 +1,42 @@
+package com.github.klefstad_teaching.cs122b.billing.model.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
+import com.github.klefstad_teaching.cs122b.billing.model.response.OrderListResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+public class OrderListResponseSerializer extends StdSerializer<OrderListResponse>
+{
+    public OrderListResponseSerializer()
+    {
+        super(OrderListResponse.class);
+    }
+
+    @Override
+    public void serialize(OrderListResponse value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException
+    {
+        gen.writeStartObject();
+
+        BillingJson.writeResult(value.getResult(), gen, provider);
+
+        List<Sale> sales = value.getSales();
+
+        if (sales != null) {
+            gen.writeFieldName(BillingJson.SALES);
+            gen.writeStartArray();
+
+            for (int i = 0; i < sales.size(); i++) {
+                BillingJson.writeSale(sales.get(i), gen, provider);
+            }
+
+            gen.writeEndArray();
+        }
+
+        gen.writeEndObject();
+    }
+}
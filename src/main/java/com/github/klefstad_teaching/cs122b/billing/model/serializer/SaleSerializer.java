@@ -0,0 +1,23 @@
+package com.github.klefstad_teaching.cs122b.billing.model.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
+
+import java.io.IOException;
+
+public class SaleSerializer extends StdSerializer<Sale>
+{
+    public SaleSerializer()
+    {
+        super(Sale.class);
+    }
+
+    @Override
+    public void serialize(Sale value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException
+    {
+        BillingJson.writeSale(value, gen, provider);
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.klefstad_teaching.cs122b.billing.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Local stand-in sink that writes each event to the {@code outbox} logger.
+ */
+public class LoggingOutboxSink implements OutboxSink
+{
+    private static final Logger LOG = LoggerFactory.getLogger("outbox");
+
+    @Override
+    public void publish(List<OutboxEvent> batch)
+    {
+        for (OutboxEvent event : batch) {
+            LOG.info("{} #{} user={} {}", event.getEventType(), event.getId(), event.getUserId(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.klefstad_teaching.cs122b.billing.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payload of the event written when an order completes.
+ */
+public final class OrderCompleted
+{
+    public static final String EVENT_TYPE = "order.completed";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private OrderCompleted()
+    {
+    }
+
+    public static String payload(long saleId, long userId, BigDecimal total, Instant orderDate, List<Item> items)
+    {
+        List<Map<String, Object>> lines = new ArrayList<>(items.size());
+
+        for (Item item : items) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("movieId", item.getMovieId());
+            line.put("quantity", item.getQuantity());
+            line.put("unitPrice", item.getUnitPrice() == null ? null : item.getUnitPrice().toPlainString());
+            lines.add(line);
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("saleId", saleId);
+        payload.put("userId", userId);
+        payload.put("total", total.toPlainString());
+        payload.put("orderDate", orderDate.toString());
+        payload.put("items", lines);
+
+        try {
+            return MAPPER.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write the order completed payload", e);
+        }
+    }
+}
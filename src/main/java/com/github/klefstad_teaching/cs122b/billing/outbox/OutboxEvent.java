@@ -0,0 +1,50 @@
+package com.github.klefstad_teaching.cs122b.billing.outbox;
+
+/**
+ * One row of {@code billing.order_outbox}. The id increases with insertion order and doubles as the
+ * event id consumers deduplicate on, since delivery is at least once.
+ */
+public final class OutboxEvent {
+    private final long id;
+    private final String eventType;
+    private final long userId;
+    private final long saleId;
+    private final String payload;
+    private final long createdAt;
+
+    public OutboxEvent(long id, String eventType, long userId, long saleId, String payload, long createdAt) {
+        this.id = id;
+        this.eventType = eventType;
+        this.userId = userId;
+        this.saleId = saleId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getSaleId() {
+        return saleId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return epoch millis at which the order transaction wrote the event
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.klefstad_teaching.cs122b.billing.outbox;
+
+import com.github.klefstad_teaching.cs122b.billing.config.OutboxConfig;
+import com.github.klefstad_teaching.cs122b.billing.repo.OutboxRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes {@code billing.order_outbox} to the {@link OutboxSink} in batches, oldest first, and
+ * deletes each batch only once the sink accepted all of it. A failed batch is retried whole on the
+ * next run and nothing after it is sent first, so events arrive at least once.
+ * <p>
+ * Only the instance holding the relay lease publishes, so several instances neither send the same
+ * batch nor overtake each other. Events are ordered by id. An order transaction takes its user's
+ * row in {@code billing.order_user_lock} before inserting its event, so one user's events get ids in
+ * the order their transactions commit and are published in that order. Across users ids are
+ * assigned at insert, not commit: an event whose transaction commits after a higher id was
+ * published is sent in a later batch, after it.
+ */
+@Component
+public class OutboxRelay
+{
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxConfig config;
+    private final OutboxRepo   repo;
+    private final OutboxSink   sink;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failures  = new AtomicLong();
+    private final AtomicLong lastLagMs = new AtomicLong();
+
+    @Autowired
+    public OutboxRelay(OutboxConfig config, OutboxRepo repo, ObjectProvider<OutboxSink> sink)
+    {
+        this.config = config;
+        this.repo = repo;
+        this.sink = sink.getIfAvailable(LoggingOutboxSink::new);
+    }
+
+    @Scheduled(fixedDelayString = "${billing.outbox.relay-interval-ms:500}",
+               initialDelayString = "${billing.outbox.relay-interval-ms:500}")
+    public void relay()
+    {
+        if (!config.getEnabled() || !config.getRelayEnabled()) {
+            return;
+        }
+
+        int size = config.getBatchSize();
+
+        while (true) {
+            // Renewed every batch, so an instance that lost the lease stops after the one in flight
+            if (!repo.leaseAcquire(owner, config.getLeaseTtl())) {
+                return;
+            }
+
+            List<OutboxEvent> batch = repo.outboxBatch(size);
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                sink.publish(batch);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                LOG.warn("Outbox sink rejected {} events starting at #{}; retrying next run",
+                         batch.size(), batch.get(0).getId(), e);
+                return;
+            }
+
+            repo.outboxDelete(batch);
+            published.addAndGet(batch.size());
+            lastLagMs.set(System.currentTimeMillis() - batch.get(batch.size() - 1).getCreatedAt());
+
+            if (batch.size() < size) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hands the lease over right away instead of making the next relay wait for it to expire.
+     */
+    @PreDestroy
+    public void close()
+    {
+        if (config.getEnabled() && config.getRelayEnabled()) {
+            repo.leaseRelease(owner);
+        }
+    }
+
+    /**
+     * @return delivery counters and how far the relay is behind the order transactions
+     */
+    public Map<String, Object> metrics()
+    {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+
+        metrics.put("published", published.get());
+        metrics.put("failures", failures.get());
+        metrics.put("lastDeliveryLagMs", lastLagMs.get());
+
+        if (config.getEnabled()) {
+            long[] backlog = repo.outboxBacklog();
+
+            metrics.put("backlog", backlog[0]);
+            metrics.put("oldestAgeMs", backlog[0] == 0 ? 0 : System.currentTimeMillis() - backlog[1]);
+        }
+
+        return metrics;
+    }
+}
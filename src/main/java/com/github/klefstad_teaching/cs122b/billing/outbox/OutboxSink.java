@@ -0,0 +1,16 @@
+package com.github.klefstad_teaching.cs122b.billing.outbox;
+
+import java.util.List;
+
+/**
+ * Destination for outbox events, such as a message broker. Define a bean of this type to replace
+ * the {@link LoggingOutboxSink} stand-in.
+ */
+public interface OutboxSink
+{
+    /**
+     * Delivers a batch in order. Throwing means none of the batch counts as delivered; it is sent
+     * again, in the same order, on the next relay run.
+     */
+    void publish(List<OutboxEvent> batch);
+}
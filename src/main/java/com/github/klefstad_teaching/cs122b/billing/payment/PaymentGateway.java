@@ -0,0 +1,32 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+public interface PaymentGateway
+{
+    PaymentIntent createPaymentIntent(Long amountInCents, String description, String userId)
+        throws StripeException;
+
+    PaymentIntent retrievePaymentIntent(String paymentIntentId)
+        throws StripeException;
+
+    /**
+     * Cancels an intent that has not been paid, so the client can no longer confirm it.
+     */
+    void cancelPaymentIntent(String paymentIntentId)
+        throws StripeException;
+
+    /**
+     * Refunds the full amount of a paid intent.
+     */
+    void refundPaymentIntent(String paymentIntentId)
+        throws StripeException;
+
+    /**
+     * Loads and initializes whatever the gateway needs on its first call, without calling out.
+     */
+    default void warmup()
+    {
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CheckoutConfig;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Drops payment snapshots whose intent was never completed, once they are older than the TTL, and
+ * puts the flash sale stock they reserved back on sale.
+ */
+@Component
+public class PaymentSnapshotPurger
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentSnapshotPurger.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final BillingRepo    repo;
+    private final CheckoutConfig config;
+
+    @Autowired
+    public PaymentSnapshotPurger(BillingRepo repo, CheckoutConfig config)
+    {
+        this.repo = repo;
+        this.config = config;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.checkout.snapshot-purge-interval-ms:3600000}",
+               initialDelayString = "${billing.checkout.snapshot-purge-interval-ms:3600000}")
+    public void purge()
+    {
+        if (!config.getSnapshotEnabled()) {
+            return;
+        }
+
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(config.getSnapshotTtl()));
+        int       purged = 0;
+        int       batch;
+
+        do {
+            batch = repo.snapshotPurge(cutoff, BATCH_SIZE);
+            purged += batch;
+        } while (batch == BATCH_SIZE);
+
+        if (purged > 0) {
+            LOG.info("Purged {} payment snapshots created before {}", purged, cutoff);
+        }
+    }
+}
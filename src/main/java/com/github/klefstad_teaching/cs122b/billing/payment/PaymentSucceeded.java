@@ -0,0 +1,36 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+/**
+ * The parts of a verified {@code payment_intent.succeeded} webhook event needed to complete the order.
+ */
+public final class PaymentSucceeded {
+    public static final String EVENT_TYPE = "payment_intent.succeeded";
+
+    private final String eventId;
+    private final String paymentIntentId;
+    private final long userId;
+    private final long amountReceived;
+
+    public PaymentSucceeded(String eventId, String paymentIntentId, long userId, long amountReceived) {
+        this.eventId = eventId;
+        this.paymentIntentId = paymentIntentId;
+        this.userId = userId;
+        this.amountReceived = amountReceived;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getPaymentIntentId() {
+        return paymentIntentId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getAmountReceived() {
+        return amountReceived;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.github.klefstad_teaching.cs122b.billing.cart.CartStore;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.repo.PaymentSnapshot;
+import com.github.klefstad_teaching.cs122b.billing.stock.SoldOutException;
+import com.github.klefstad_teaching.cs122b.billing.stock.StockLedger;
+import com.stripe.exception.StripeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opens and completes the payment snapshot of an order. Stock is reserved in the transaction that
+ * stores the snapshot; completing writes the order and removes the cart lines it paid for in one
+ * transaction, so lines added or changed after the intent was created stay in the cart. Both take
+ * stock as their last statement, so a hot movie's row is locked only while they commit.
+ */
+@Component
+public class SnapshotOrderWriter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotOrderWriter.class);
+
+    private final BillingRepo    repo;
+    private final CartStore      carts;
+    private final StockLedger    stock;
+    private final PaymentGateway gateway;
+
+    @Autowired
+    public SnapshotOrderWriter(BillingRepo repo, CartStore carts, StockLedger stock, PaymentGateway gateway)
+    {
+        this.repo = repo;
+        this.carts = carts;
+        this.stock = stock;
+        this.gateway = gateway;
+    }
+
+    /**
+     * @throws SoldOutException with nothing reserved or stored
+     */
+    @Transactional
+    public void open(String paymentIntentId, Long userId, long totalCents, List<Item> items)
+    {
+        Set<Long> limited = stock.limited(items);
+
+        repo.snapshotInsert(paymentIntentId, userId, totalCents, items, limited);
+        stock.reserve(items, limited, userId);
+    }
+
+    /**
+     * Runs in a savepoint when called inside a transaction, so a caller that catches
+     * {@link SoldOutException} can still record the outcome and commit.
+     *
+     * @return false when the snapshot was already consumed
+     * @throws SoldOutException with nothing written, when a line's stock ran out before it was taken
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public boolean complete(PaymentSnapshot snapshot)
+    {
+        if (!repo.orderComplete(snapshot)) {
+            return false;
+        }
+
+        carts.cartRemovePurchased(snapshot.getItems(), snapshot.getUserId());
+        stock.commit(snapshot);
+
+        return true;
+    }
+
+    /**
+     * Refunds a paid intent whose order sold out and releases its snapshot, so it cannot be
+     * completed after the money went back. If the refund fails the snapshot is kept, and the
+     * payment can still be matched up and refunded by hand.
+     */
+    public void refund(String paymentIntentId, long userId)
+    {
+        try {
+            gateway.refundPaymentIntent(paymentIntentId);
+        } catch (StripeException e) {
+            LOG.error("Could not refund payment intent {} after its stock sold out", paymentIntentId, e);
+            return;
+        }
+
+        LOG.warn("Refunded payment intent {}: its stock sold out before the order was written", paymentIntentId);
+        repo.snapshotRelease(paymentIntentId, userId);
+    }
+}
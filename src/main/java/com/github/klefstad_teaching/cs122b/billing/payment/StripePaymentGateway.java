@@ -0,0 +1,117 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.github.klefstad_teaching.cs122b.billing.tracing.Span;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.Refund;
+import com.stripe.net.ApiResource;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.RefundCreateParams;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StripePaymentGateway implements PaymentGateway
+{
+    private static final String WARMUP_INTENT =
+        "{\"id\": \"pi_warmup\", \"object\": \"payment_intent\", \"amount\": 0, \"currency\": \"usd\", " +
+        "\"status\": \"succeeded\", \"metadata\": {\"userId\": \"0\"}}";
+
+    private final Tracer tracer;
+
+    @Autowired
+    public StripePaymentGateway(Tracer tracer)
+    {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public PaymentIntent createPaymentIntent(Long amountInCents, String description, String userId)
+        throws StripeException
+    {
+        PaymentIntentCreateParams paymentIntentCreateParams =
+            PaymentIntentCreateParams
+                .builder()
+                .setCurrency("USD")
+                .setDescription(description)
+                .setAmount(amountInCents)
+                .putMetadata("userId", userId)
+                .setAutomaticPaymentMethods(
+                    PaymentIntentCreateParams.AutomaticPaymentMethods
+                        .builder()
+                        .setEnabled(true)
+                        .build()
+                )
+                .build();
+
+        try (Span span = tracer.start("stripe PaymentIntent.create").attribute("payment.amount_cents", amountInCents)) {
+            try {
+                PaymentIntent paymentIntent = PaymentIntent.create(paymentIntentCreateParams);
+                span.attribute("payment.intent_id", paymentIntent.getId());
+                return paymentIntent;
+            } catch (StripeException | RuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public PaymentIntent retrievePaymentIntent(String paymentIntentId)
+        throws StripeException
+    {
+        try (Span span = tracer.start("stripe PaymentIntent.retrieve").attribute("payment.intent_id", paymentIntentId)) {
+            try {
+                PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
+                span.attribute("payment.status", paymentIntent.getStatus());
+                return paymentIntent;
+            } catch (StripeException | RuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void cancelPaymentIntent(String paymentIntentId)
+        throws StripeException
+    {
+        try (Span span = tracer.start("stripe PaymentIntent.cancel").attribute("payment.intent_id", paymentIntentId)) {
+            try {
+                PaymentIntent.retrieve(paymentIntentId).cancel();
+            } catch (StripeException | RuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void refundPaymentIntent(String paymentIntentId)
+        throws StripeException
+    {
+        RefundCreateParams refundCreateParams =
+            RefundCreateParams
+                .builder()
+                .setPaymentIntent(paymentIntentId)
+                .build();
+
+        try (Span span = tracer.start("stripe Refund.create").attribute("payment.intent_id", paymentIntentId)) {
+            try {
+                span.attribute("payment.refund_id", Refund.create(refundCreateParams).getId());
+            } catch (StripeException | RuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void warmup()
+    {
+        // Builds the request params and the Gson type adapters a real round trip would need
+        PaymentIntentCreateParams.builder().setCurrency("USD").setAmount(0L).build().toMap();
+        ApiResource.GSON.fromJson(WARMUP_INTENT, PaymentIntent.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.repo.PaymentSnapshot;
+import com.github.klefstad_teaching.cs122b.billing.repo.WebhookEventRepo;
+import com.github.klefstad_teaching.cs122b.billing.stock.SoldOutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Completes one stored payment event per transaction, so an event that fails rolls back alone and
+ * cannot hold up the rest. The event row is locked first, so a redelivered or concurrently drained
+ * event is settled once.
+ */
+@Component
+public class WebhookOrderCompleter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookOrderCompleter.class);
+
+    private final BillingRepo         repo;
+    private final WebhookEventRepo    events;
+    private final SnapshotOrderWriter orders;
+
+    @Autowired
+    public WebhookOrderCompleter(BillingRepo repo, WebhookEventRepo events, SnapshotOrderWriter orders)
+    {
+        this.repo = repo;
+        this.events = events;
+        this.orders = orders;
+    }
+
+    /**
+     * @return how the event was settled, or null if another node already settled it
+     */
+    @Transactional
+    public WebhookOutcome complete(PaymentSucceeded event)
+    {
+        if (!events.eventClaim(event.getEventId())) {
+            return null;
+        }
+
+        WebhookOutcome outcome = settle(event);
+
+        events.eventOutcome(event.getEventId(), outcome);
+
+        return outcome;
+    }
+
+    private WebhookOutcome settle(PaymentSucceeded event)
+    {
+        PaymentSnapshot snapshot = repo.snapshotRetrieve(event.getPaymentIntentId(), event.getUserId());
+
+        if (snapshot == null) {
+            return WebhookOutcome.NO_SNAPSHOT;
+        }
+
+        if (snapshot.getTotalCents() != event.getAmountReceived()) {
+            LOG.warn("Payment intent {} received {} cents but its order totals {}",
+                     event.getPaymentIntentId(), event.getAmountReceived(), snapshot.getTotalCents());
+            return WebhookOutcome.AMOUNT_MISMATCH;
+        }
+
+        try {
+            return orders.complete(snapshot) ? WebhookOutcome.COMPLETED : WebhookOutcome.NO_SNAPSHOT;
+        } catch (SoldOutException e) {
+            LOG.warn("Payment intent {} was paid after its flash sale stock sold out", event.getPaymentIntentId());
+            return WebhookOutcome.SOLD_OUT;
+        }
+    }
+}
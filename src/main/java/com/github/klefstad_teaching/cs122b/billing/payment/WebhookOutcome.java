@@ -0,0 +1,15 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+public enum WebhookOutcome
+{
+    /** The sale was recorded from the payment snapshot. */
+    COMPLETED,
+    /** No snapshot was left: completed through {@code /order/complete}, purged, or never created. */
+    NO_SNAPSHOT,
+    /** The amount received differs from the snapshot total; the snapshot is kept for follow-up. */
+    AMOUNT_MISMATCH,
+    /** A flash sale movie sold out before the order could be written; the payment is refunded. */
+    SOLD_OUT,
+    /** Completing kept failing until the attempts ran out; the snapshot is kept for follow-up. */
+    FAILED
+}
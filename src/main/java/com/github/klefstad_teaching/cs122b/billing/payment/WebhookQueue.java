@@ -0,0 +1,90 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CheckoutConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.WebhookConfig;
+import com.github.klefstad_teaching.cs122b.billing.repo.WebhookEventRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the payment events the webhook endpoint stored in {@code billing.webhook_event}, oldest
+ * first. An event that fails stays pending and is retried on the next flush until it has used up
+ * {@code billing.webhook.max-attempts}, then it is settled as {@link WebhookOutcome#FAILED}.
+ */
+@Component
+public class WebhookQueue
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookQueue.class);
+
+    private final WebhookEventRepo      events;
+    private final WebhookOrderCompleter completer;
+    private final SnapshotOrderWriter   orders;
+    private final boolean               enabled;
+    private final int                   batchSize;
+    private final int                   maxAttempts;
+    private final AtomicLong            completed = new AtomicLong();
+
+    @Autowired
+    public WebhookQueue(WebhookConfig config, CheckoutConfig checkout, WebhookEventRepo events,
+                        WebhookOrderCompleter completer, SnapshotOrderWriter orders)
+    {
+        if (config.getEnabled() && !checkout.getSnapshotEnabled()) {
+            throw new IllegalStateException(
+                "billing.webhook.enabled completes orders from their payment snapshots and cannot run with " +
+                "billing.checkout.snapshot-enabled=false; enable snapshots or turn the webhook off");
+        }
+
+        this.enabled = config.getEnabled();
+        this.batchSize = config.getBatchSize();
+        this.maxAttempts = config.getMaxAttempts();
+        this.events = events;
+        this.completer = completer;
+        this.orders = orders;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.webhook.flush-interval-ms:200}")
+    public void flush()
+    {
+        if (!enabled) {
+            return;
+        }
+
+        List<PaymentSucceeded> batch = events.eventPending(batchSize);
+
+        for (PaymentSucceeded event : batch) {
+            WebhookOutcome outcome;
+
+            try {
+                outcome = completer.complete(event);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not complete payment event {} for intent {}, retrying on a later flush",
+                         event.getEventId(), event.getPaymentIntentId(), e);
+                events.eventAttempt(event.getEventId(), maxAttempts);
+                continue;
+            }
+
+            if (outcome == WebhookOutcome.COMPLETED) {
+                completed.incrementAndGet();
+            } else if (outcome == WebhookOutcome.SOLD_OUT) {
+                // Refunded once the outcome is committed, so a rolled back event is never refunded
+                orders.refund(event.getPaymentIntentId(), event.getUserId());
+            }
+        }
+    }
+
+    public int getPending()
+    {
+        return events.eventPendingCount();
+    }
+
+    public long getCompleted()
+    {
+        return completed.get();
+    }
+}
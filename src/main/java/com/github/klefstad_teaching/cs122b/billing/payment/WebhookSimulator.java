@@ -0,0 +1,57 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.stripe.Stripe;
+import com.stripe.net.ApiResource;
+import com.stripe.net.Webhook;
+
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds {@code payment_intent.succeeded} events signed the way Stripe signs them, so webhook
+ * completion can be driven locally and in tests without a Stripe account or tunnel.
+ */
+public final class WebhookSimulator
+{
+    private WebhookSimulator()
+    {
+    }
+
+    public static String paymentIntentSucceeded(String eventId, String paymentIntentId, long userId,
+                                                long amountCents, long createdSeconds)
+    {
+        Map<String, Object> intent = new LinkedHashMap<>();
+        intent.put("id", paymentIntentId);
+        intent.put("object", "payment_intent");
+        intent.put("amount", amountCents);
+        intent.put("amount_received", amountCents);
+        intent.put("currency", "usd");
+        intent.put("status", "succeeded");
+        intent.put("metadata", Collections.singletonMap("userId", Long.toString(userId)));
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", eventId);
+        event.put("object", "event");
+        event.put("api_version", Stripe.API_VERSION);
+        event.put("created", createdSeconds);
+        event.put("type", PaymentSucceeded.EVENT_TYPE);
+        event.put("data", Collections.singletonMap("object", intent));
+
+        return ApiResource.GSON.toJson(event);
+    }
+
+    /**
+     * @return a {@code Stripe-Signature} header value for the payload
+     */
+    public static String signature(String payload, String secret, long timestampSeconds)
+    {
+        try {
+            String v1 = Webhook.Util.computeHmacSha256(secret, timestampSeconds + "." + payload);
+            return "t=" + timestampSeconds + ",v1=" + v1;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
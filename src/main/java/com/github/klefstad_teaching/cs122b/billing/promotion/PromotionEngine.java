@@ -0,0 +1,97 @@
+package com.github.klefstad_teaching.cs122b.billing.promotion;
+
+import com.github.klefstad_teaching.cs122b.billing.config.PromotionConfig;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.repo.PromotionRepo;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Applies {@code billing.promotion} rules on top of the list price (which already includes the
+ * premium discount). Rules are compiled into a {@link PromotionTable} on a schedule and swapped in
+ * atomically, so pricing a cart never touches the database.
+ */
+@Component
+public class PromotionEngine
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PromotionEngine.class);
+
+    private final AtomicReference<PromotionTable> table = new AtomicReference<>(PromotionTable.EMPTY);
+
+    private final PromotionRepo   repo;
+    private final PromotionConfig config;
+
+    @Autowired
+    public PromotionEngine(PromotionRepo repo, PromotionConfig config)
+    {
+        this.repo = repo;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if (config.getEnabled()) {
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.promotions.refresh-interval-ms:60000}",
+               initialDelayString = "${billing.promotions.refresh-interval-ms:60000}")
+    public void refresh()
+    {
+        if (config.getEnabled()) {
+            reload();
+        }
+    }
+
+    public void reload()
+    {
+        long now = System.currentTimeMillis();
+
+        PromotionTable compiled = PromotionTable.compile(repo.promotionCurrent(new Timestamp(now)), now);
+        PromotionTable previous = table.getAndSet(compiled);
+
+        if (compiled.size() != previous.size()) {
+            LOG.info("Promotion table now holds {} rules", compiled.size());
+        }
+    }
+
+    /**
+     * Rewrites each item's unit price to the best promotion price available to {@code user}.
+     */
+    public List<Item> apply(List<Item> items, BillingPrincipal user)
+    {
+        PromotionTable current = table.get();
+
+        if (current.isEmpty()) {
+            return items;
+        }
+
+        long now = System.currentTimeMillis();
+
+        for (Item item : items) {
+            BigDecimal price = current.bestPrice(item.getMovieId(), item.getUnitPrice(), item.getQuantity(),
+                                                 user.getRoles(), now);
+
+            item.setUnitPrice(price);
+        }
+
+        return items;
+    }
+
+    public PromotionTable getTable()
+    {
+        return table.get();
+    }
+}
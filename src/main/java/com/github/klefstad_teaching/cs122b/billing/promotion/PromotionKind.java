@@ -0,0 +1,11 @@
+package com.github.klefstad_teaching.cs122b.billing.promotion;
+
+public enum PromotionKind
+{
+    /** {@code amount} percent off every unit. */
+    PERCENTAGE,
+    /** {@code amount} dollars off every unit, never below zero. */
+    FIXED,
+    /** For every {@code buy_quantity} units paid for, {@code free_quantity} more are free. */
+    BUY_N
+}
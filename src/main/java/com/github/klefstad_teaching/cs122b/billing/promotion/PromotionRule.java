@@ -0,0 +1,88 @@
+package com.github.klefstad_teaching.cs122b.billing.promotion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * One row of {@code billing.promotion}. A null movie id or role matches every movie or user, and a
+ * missing window bound is stored as {@link Long#MIN_VALUE} / {@link Long#MAX_VALUE}.
+ */
+public final class PromotionRule {
+    private final long id;
+    private final PromotionKind kind;
+    private final Long movieId;
+    private final String role;
+    private final BigDecimal amount;
+    private final int buyQuantity;
+    private final int freeQuantity;
+    private final long startsAt;
+    private final long endsAt;
+
+    public PromotionRule(long id, PromotionKind kind, Long movieId, String role, BigDecimal amount,
+                         int buyQuantity, int freeQuantity, long startsAt, long endsAt) {
+        this.id = id;
+        this.kind = kind;
+        this.movieId = movieId;
+        this.role = role;
+        this.amount = amount == null ? BigDecimal.ZERO : amount;
+        this.buyQuantity = buyQuantity;
+        this.freeQuantity = freeQuantity;
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public PromotionKind getKind() {
+        return kind;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getStartsAt() {
+        return startsAt;
+    }
+
+    public long getEndsAt() {
+        return endsAt;
+    }
+
+    public boolean isActive(long now) {
+        return startsAt <= now && now < endsAt;
+    }
+
+    /**
+     * @return the unit price after this rule, rounded down to the cent like {@code Pricing.unitPrice}
+     */
+    public BigDecimal apply(BigDecimal unitPrice, int quantity) {
+        switch (kind) {
+            case PERCENTAGE:
+                return unitPrice.multiply(BigDecimal.valueOf(100).subtract(amount))
+                                .movePointLeft(2)
+                                .max(BigDecimal.ZERO)
+                                .setScale(2, RoundingMode.DOWN);
+            case FIXED:
+                return unitPrice.subtract(amount).max(BigDecimal.ZERO).setScale(2, RoundingMode.DOWN);
+            case BUY_N:
+                int group = buyQuantity + freeQuantity;
+                int free  = group > 0 && freeQuantity > 0 ? (quantity / group) * freeQuantity : 0;
+
+                if (free == 0) {
+                    return unitPrice;
+                }
+
+                return unitPrice.multiply(BigDecimal.valueOf(quantity - free))
+                                .divide(BigDecimal.valueOf(quantity), 2, RoundingMode.DOWN);
+            default:
+                return unitPrice;
+        }
+    }
+}
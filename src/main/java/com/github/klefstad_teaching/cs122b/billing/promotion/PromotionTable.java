@@ -0,0 +1,159 @@
+package com.github.klefstad_teaching.cs122b.billing.promotion;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable decision table compiled from the promotion rules, indexed by movie id and then role so
+ * pricing a cart line only looks at the handful of rules that can match it.
+ */
+public final class PromotionTable
+{
+    public static final PromotionTable EMPTY = compile(Collections.emptyList(), 0);
+
+    private static final PromotionRule[] NONE = new PromotionRule[0];
+
+    private final Map<Long, RoleIndex> byMovie;
+    private final RoleIndex            anyMovie;
+    private final int                  size;
+
+    private PromotionTable(Map<Long, RoleIndex> byMovie, RoleIndex anyMovie, int size)
+    {
+        this.byMovie = byMovie;
+        this.anyMovie = anyMovie;
+        this.size = size;
+    }
+
+    /**
+     * Rules that have already ended by {@code now} are dropped; rules that have not started yet are
+     * kept and filtered by their window at evaluation time.
+     */
+    public static PromotionTable compile(List<PromotionRule> rules, long now)
+    {
+        Map<Long, RoleIndex.Builder> byMovie  = new HashMap<>();
+        RoleIndex.Builder            anyMovie = new RoleIndex.Builder();
+        int                          size     = 0;
+
+        for (PromotionRule rule : rules) {
+            if (rule.getEndsAt() <= now) {
+                continue;
+            }
+
+            RoleIndex.Builder index = rule.getMovieId() == null ?
+                                      anyMovie :
+                                      byMovie.computeIfAbsent(rule.getMovieId(), id -> new RoleIndex.Builder());
+
+            index.add(rule);
+            size++;
+        }
+
+        Map<Long, RoleIndex> compiled = new HashMap<>();
+
+        for (Map.Entry<Long, RoleIndex.Builder> entry : byMovie.entrySet()) {
+            compiled.put(entry.getKey(), entry.getValue().build());
+        }
+
+        return new PromotionTable(compiled, anyMovie.build(), size);
+    }
+
+    /**
+     * @return the lowest unit price any active rule gives this line, or {@code unitPrice} when none
+     * applies; promotions do not stack
+     */
+    public BigDecimal bestPrice(long movieId, BigDecimal unitPrice, int quantity,
+                                Iterable<String> roles, long now)
+    {
+        BigDecimal best = unitPrice;
+
+        RoleIndex movie = byMovie.get(movieId);
+
+        if (movie != null) {
+            best = movie.bestPrice(best, unitPrice, quantity, roles, now);
+        }
+
+        return anyMovie.bestPrice(best, unitPrice, quantity, roles, now);
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    private static final class RoleIndex
+    {
+        private final PromotionRule[]              anyRole;
+        private final Map<String, PromotionRule[]> byRole;
+
+        private RoleIndex(PromotionRule[] anyRole, Map<String, PromotionRule[]> byRole)
+        {
+            this.anyRole = anyRole;
+            this.byRole = byRole;
+        }
+
+        private BigDecimal bestPrice(BigDecimal best, BigDecimal unitPrice, int quantity,
+                                     Iterable<String> roles, long now)
+        {
+            best = bestOf(anyRole, best, unitPrice, quantity, now);
+
+            if (!byRole.isEmpty()) {
+                for (String role : roles) {
+                    best = bestOf(byRole.getOrDefault(role, NONE), best, unitPrice, quantity, now);
+                }
+            }
+
+            return best;
+        }
+
+        private static BigDecimal bestOf(PromotionRule[] rules, BigDecimal best,
+                                         BigDecimal unitPrice, int quantity, long now)
+        {
+            for (PromotionRule rule : rules) {
+                if (rule.isActive(now)) {
+                    BigDecimal price = rule.apply(unitPrice, quantity);
+
+                    if (price.compareTo(best) < 0) {
+                        best = price;
+                    }
+                }
+            }
+
+            return best;
+        }
+
+        private static final class Builder
+        {
+            private final List<PromotionRule>              anyRole = new ArrayList<>();
+            private final Map<String, List<PromotionRule>> byRole  = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+            private void add(PromotionRule rule)
+            {
+                if (rule.getRole() == null) {
+                    anyRole.add(rule);
+                } else {
+                    byRole.computeIfAbsent(rule.getRole(), role -> new ArrayList<>()).add(rule);
+                }
+            }
+
+            private RoleIndex build()
+            {
+                Map<String, PromotionRule[]> roles = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+                for (Map.Entry<String, List<PromotionRule>> entry : byRole.entrySet()) {
+                    roles.put(entry.getKey(), entry.getValue().toArray(NONE));
+                }
+
+                return new RoleIndex(anyRole.toArray(NONE), roles);
+            }
+        }
+    }
+}
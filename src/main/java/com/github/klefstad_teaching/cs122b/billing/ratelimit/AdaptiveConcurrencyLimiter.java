@@ -0,0 +1,116 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import com.github.klefstad_teaching.cs122b.billing.config.ConcurrencyLimitConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-style adaptive concurrency limit. The limit shrinks when the short term latency rises
+ * above the long term baseline (the database or payment gateway is queueing) and grows back by a
+ * small queue allowance while latency holds. Each priority class may only fill a share of the
+ * limit, so admin calls and then sheddable reads are turned away first and order completion last.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter
+{
+    private static final double LONG_TERM_WEIGHT = 0.01;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final boolean  enabled;
+    private final int      minLimit;
+    private final int      maxLimit;
+    private final double   smoothing;
+    private final double[] shares = new double[PriorityClass.values().length];
+
+    private volatile double limit;
+
+    private double longTermRtt;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitConfig config)
+    {
+        this.enabled = config.getEnabled();
+        this.limit = config.getInitialLimit();
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.smoothing = config.getSmoothing();
+
+        shares[PriorityClass.CRITICAL.ordinal()] = 1.0;
+        shares[PriorityClass.HIGH.ordinal()] = config.getHighShare();
+        shares[PriorityClass.SHEDDABLE.ordinal()] = config.getSheddableShare();
+        shares[PriorityClass.ADMIN.ordinal()] = config.getAdminShare();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public boolean tryAcquire(PriorityClass priorityClass)
+    {
+        int allowed = Math.max(1, (int) (limit * shares[priorityClass.ordinal()]));
+
+        while (true) {
+            int current = inFlight.get();
+
+            if (current >= allowed) {
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos)
+    {
+        int current = inFlight.getAndDecrement();
+
+        update(rttNanos, current);
+    }
+
+    /**
+     * Frees the slot of a request whose latency says nothing about the service, such as one that
+     * was rejected before reaching its handler.
+     */
+    public void releaseWithoutSample()
+    {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit()
+    {
+        return (int) limit;
+    }
+
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtCompletion)
+    {
+        if (longTermRtt == 0) {
+            longTermRtt = rttNanos;
+            return;
+        }
+
+        longTermRtt = longTermRtt * (1 - LONG_TERM_WEIGHT) + rttNanos * LONG_TERM_WEIGHT;
+
+        // Leave the limit alone while the service is not using it; latency says nothing about headroom then
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, longTermRtt / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
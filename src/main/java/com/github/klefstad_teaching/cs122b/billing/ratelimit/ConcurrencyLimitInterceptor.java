@@ -0,0 +1,70 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Registered after {@link RateLimitInterceptor}, so a request refused by the rate limiter never
+ * takes a concurrency slot; every request that passes here goes on to its handler.
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor
+{
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    @Autowired
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter)
+    {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        if (!limiter.isEnabled()) {
+            return true;
+        }
+
+        if (!limiter.tryAcquire(PriorityClass.of(request.getServletPath()))) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            throw new ResultError(BillingServiceResults.OVERLOADED);
+        }
+
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex)
+    {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+
+        if (start == null) {
+            return;
+        }
+
+        // Rejections are answered without doing the work, so their short RTT would skew the baseline
+        if (isRejection(response.getStatus())) {
+            limiter.releaseWithoutSample();
+        } else {
+            limiter.release(System.nanoTime() - (Long) start);
+        }
+    }
+
+    private static boolean isRejection(int status)
+    {
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+/**
+ * Classes in the order they are shed: {@link #ADMIN} covers price uploads, metrics, traces and
+ * any path not listed, so only order completion is never turned away early.
+ */
+public enum PriorityClass
+{
+    CRITICAL,
+    HIGH,
+    SHEDDABLE,
+    ADMIN;
+
+    public static PriorityClass of(String path)
+    {
+        if (path.startsWith("/order/complete")) {
+            return CRITICAL;
+        } else if (path.startsWith("/order/payment") || path.startsWith("/webhook/")) {
+            return HIGH;
+        } else if (path.startsWith("/cart/retrieve") || path.startsWith("/order/")) {
+            return SHEDDABLE;
+        } else if (path.startsWith("/cart/")) {
+            return HIGH;
+        }
+
+        return ADMIN;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+public enum RateLimitClass
+{
+    MUTATION,
+    READ,
+    CHECKOUT;
+
+    public static RateLimitClass of(String path)
+    {
+        if (path.startsWith("/order/payment") || path.startsWith("/order/complete")) {
+            return CHECKOUT;
+        } else if (path.startsWith("/cart/retrieve") || path.startsWith("/order/")) {
+            return READ;
+        } else if (path.startsWith("/cart/")) {
+            return MUTATION;
+        }
+
+        return null;
+    }
+}
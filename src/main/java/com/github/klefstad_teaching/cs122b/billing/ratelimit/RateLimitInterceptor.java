@@ -0,0 +1,59 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.billing.security.VerifiedTokenCache;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor
+{
+    private final UserRateLimiter    limiter;
+    private final VerifiedTokenCache tokenCache;
+
+    @Autowired
+    public RateLimitInterceptor(UserRateLimiter limiter, VerifiedTokenCache tokenCache)
+    {
+        this.limiter = limiter;
+        this.tokenCache = tokenCache;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+        throws Exception
+    {
+        if (!limiter.isEnabled()) {
+            return true;
+        }
+
+        RateLimitClass   limitClass = RateLimitClass.of(request.getServletPath());
+        BillingPrincipal principal  = tokenCache.currentPrincipal();
+
+        if (limitClass == null || principal == null) {
+            return true;
+        }
+
+        long waitNanos = limiter.tryAcquire(principal.getUserId(), limitClass);
+
+        if (waitNanos > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(waitNanos)));
+            throw new ResultError(BillingServiceResults.RATE_LIMITED);
+        }
+
+        return true;
+    }
+
+    // Rounded up, so a client that waits as told always finds a token
+    static long retryAfterSeconds(long waitNanos)
+    {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as a single "theoretical arrival time" (the GCRA formulation), so taking a
+ * token is one compare-and-set with no lock and no refill bookkeeping.
+ */
+public final class TokenBucket
+{
+    private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @return 0 when a token was taken, otherwise the nanos until the next token is available
+     */
+    public long tryAcquire(long now, long intervalNanos, long burstNanos)
+    {
+        while (true) {
+            long current = arrival.get();
+            long base    = Math.max(current, now);
+
+            if (base - now > burstNanos) {
+                return base - now - burstNanos;
+            }
+
+            if (arrival.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public boolean isIdle(long now)
+    {
+        return arrival.get() <= now;
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import com.github.klefstad_teaching.cs122b.billing.config.RateLimitConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class UserRateLimiter
+{
+    private final ConcurrentHashMap<Long, TokenBucket[]> buckets = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final int     maxUsers;
+    private final long[]  intervalNanos = new long[RateLimitClass.values().length];
+    private final long[]  burstNanos    = new long[RateLimitClass.values().length];
+
+    @Autowired
+    public UserRateLimiter(RateLimitConfig config)
+    {
+        this.enabled = config.getEnabled();
+        this.maxUsers = config.getMaxUsers();
+
+        limit(RateLimitClass.MUTATION, config.getMutationsPerSecond(), config.getMutationBurst());
+        limit(RateLimitClass.READ, config.getReadsPerSecond(), config.getReadBurst());
+        limit(RateLimitClass.CHECKOUT, config.getCheckoutsPerSecond(), config.getCheckoutBurst());
+    }
+
+    private void limit(RateLimitClass limitClass, double perSecond, int burst)
+    {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+
+        intervalNanos[limitClass.ordinal()] = interval;
+        burstNanos[limitClass.ordinal()] = interval * (burst - 1);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return 0 when the call may proceed, otherwise the nanos the user has to wait
+     */
+    public long tryAcquire(long userId, RateLimitClass limitClass)
+    {
+        return tryAcquire(userId, limitClass, System.nanoTime());
+    }
+
+    long tryAcquire(long userId, RateLimitClass limitClass, long now)
+    {
+        TokenBucket[] bucket = buckets.get(userId);
+
+        if (bucket == null) {
+            if (buckets.size() >= maxUsers) {
+                evictIdle(now);
+            }
+
+            bucket = buckets.computeIfAbsent(userId, id -> newBuckets());
+        }
+
+        int i = limitClass.ordinal();
+
+        return bucket[i].tryAcquire(now, intervalNanos[i], burstNanos[i]);
+    }
+
+    public int size()
+    {
+        return buckets.size();
+    }
+
+    private static TokenBucket[] newBuckets()
+    {
+        TokenBucket[] bucket = new TokenBucket[RateLimitClass.values().length];
+
+        for (int i = 0; i < bucket.length; i++) {
+            bucket[i] = new TokenBucket();
+        }
+
+        return bucket;
+    }
+
+    // A bucket whose arrival time has passed is full again, so dropping it loses no state
+    private void evictIdle(long now)
+    {
+        buckets.values().removeIf(bucket -> {
+            for (TokenBucket tokenBucket : bucket) {
+                if (!tokenBucket.isIdle(now)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -1,53 +1,89 @@
 package com.github.klefstad_teaching.cs122b.billing.repo;
 
+import com.github.klefstad_teaching.cs122b.billing.config.OutboxConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheInvalidationBus;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheRegion;
+import com.github.klefstad_teaching.cs122b.billing.logging.RequestLogContext;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
 import com.github.klefstad_teaching.cs122b.billing.model.request.CartInsertUpdateRequest;
-import com.github.klefstad_teaching.cs122b.billing.util.Validate;
+import com.github.klefstad_teaching.cs122b.billing.outbox.OrderCompleted;
+import com.github.klefstad_teaching.cs122b.billing.slowquery.SlowQueryLog;
+import com.github.klefstad_teaching.cs122b.billing.stock.SoldOutException;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Span;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.sql.Types;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class BillingRepo
 {
-    private final NamedParameterJdbcTemplate template;
-    private static final Logger LOG = LoggerFactory.getLogger(Validate.class);
+    private static final Logger LOG = LoggerFactory.getLogger(BillingRepo.class);
+
+    private final JdbcTemplate         template;
+    private final CacheInvalidationBus invalidation;
+    private final Tracer               tracer;
+    private final SlowQueryLog         slowQueries;
+    private final boolean              outbox;
 
     @Autowired
-    public BillingRepo(NamedParameterJdbcTemplate template)
+    public BillingRepo(NamedParameterJdbcTemplate template, CacheInvalidationBus invalidation, Tracer tracer,
+                       SlowQueryLog slowQueries, OutboxConfig outbox)
     {
-        this.template = template;
+        // Every statement is positional so it maps 1:1 onto a cached server-side prepared statement
+        this.template = template.getJdbcTemplate();
+        this.invalidation = invalidation;
+        this.tracer = tracer;
+        this.slowQueries = slowQueries;
+        this.outbox = outbox.getEnabled();
     }
 
     //language=sql
     private final static String CART_INSERT =
-            "INSERT INTO billing.cart " +
-                    "VALUES (:userId, :movieId, :quantity);";
+            "INSERT INTO billing.cart (user_id, movie_id, quantity) " +
+                    "VALUES (?, ?, ?);";
 
     //language=sql
     private final static String CART_UPDATE =
             "UPDATE billing.cart " +
-                    "SET cart.quantity = :quantity " +
-                    "WHERE cart.user_id = :userId AND cart.movie_id = :movieId;";
+                    "SET cart.quantity = ? " +
+                    "WHERE cart.user_id = ? AND cart.movie_id = ?;";
 
     //language=sql
     private final static String CART_DELETE =
             "DELETE FROM billing.cart " +
-                    "WHERE cart.user_id = :userId AND cart.movie_id = :movieId;";
+                    "WHERE cart.user_id = ? AND cart.movie_id = ?;";
 
     //language=sql
     private final static String CART_RETRIEVE =
@@ -56,175 +92,909 @@ public class BillingRepo
                 "FROM billing.cart " +
                 "JOIN billing.movie_price ON cart.movie_id = movie_price.movie_id " +
                 "JOIN movies.movie ON cart.movie_id = movie.id " +
-                "WHERE cart.user_id = :userId;";
+                "WHERE cart.user_id = ?;";
 
     //language=sql
     private final static String CART_CLEAR =
             "DELETE FROM billing.cart " +
-                    "WHERE cart.user_id = :userId;";
+                    "WHERE cart.user_id = ?;";
+
+    //language=sql
+    private final static String CART_DELETE_PURCHASED =
+            "DELETE FROM billing.cart " +
+                    "WHERE cart.user_id = ? AND cart.movie_id = ? AND cart.quantity = ?;";
 
     //language=sql
     private final static String SALE_INSERT =
             "INSERT INTO billing.sale (user_id, total, order_date) " +
-                    "VALUES (:userId, :total, :orderDate);";
+                    "VALUES (?, ?, ?);";
 
     //language=sql
     private final static String SALE_ITEM_INSERT =
-            "INSERT INTO billing.sale_item (sale_id, movie_id, quantity) " +
-                    "VALUES (:saleId, :movieId, :quantity);";
+            "INSERT INTO billing.sale_item (sale_id, movie_id, quantity, unit_price) " +
+                    "VALUES (?, ?, ?, ?);";
 
     //language=sql
     private final static String ORDER_LIST =
             "SELECT id, total, order_date " +
                     "FROM billing.sale " +
-                    "WHERE sale.user_id = :userId " +
+                    "WHERE sale.user_id = ? " +
                     "ORDER BY order_date DESC " +
                     "LIMIT 5;";
 
     //language=sql
     private final static String ORDER_DETAIL =
             "SELECT movie_price.unit_price, sale_item.quantity, sale_item.movie_id, movie.title, " +
-                    "movie.backdrop_path, movie.poster_path, movie_price.premium_discount " +
+                    "movie.backdrop_path, movie.poster_path, movie_price.premium_discount, sale_item.unit_price " +
                     "FROM billing.sale_item " +
                     "JOIN billing.movie_price ON sale_item.movie_id = movie_price.movie_id " +
                     "JOIN movies.movie ON sale_item.movie_id = movie.id " +
                     "JOIN billing.sale ON sale_item.sale_id = sale.id " +
-                    "WHERE sale_item.sale_id = :saleId AND sale.user_id = :userId;";
+                    "WHERE sale_item.sale_id = ? AND sale.user_id = ?;";
+
+    //language=sql
+    private final static String ORDER_LATEST_IDS =
+            "SELECT id " +
+                    "FROM billing.sale " +
+                    "WHERE sale.user_id = ? " +
+                    "ORDER BY order_date DESC " +
+                    "LIMIT ?;";
+
+    // The single IN placeholder is expanded to one per sale id; kept complete so it can be explained
+    //language=sql
+    private final static String ORDER_DETAILS =
+            "SELECT movie_price.unit_price, sale_item.quantity, sale_item.movie_id, movie.title, " +
+                    "movie.backdrop_path, movie.poster_path, movie_price.premium_discount, sale_item.unit_price, " +
+                    "sale.id, sale.order_date, sale.total " +
+                    "FROM billing.sale " +
+                    "JOIN billing.sale_item ON sale_item.sale_id = sale.id " +
+                    "JOIN billing.movie_price ON sale_item.movie_id = movie_price.movie_id " +
+                    "JOIN movies.movie ON sale_item.movie_id = movie.id " +
+                    "WHERE sale.user_id = ? AND sale.id IN (?);";
+
+    private static final int ORDER_DETAILS_SALE_ID    = 9;
+    private static final int ORDER_DETAILS_ORDER_DATE = 10;
+    private static final int ORDER_DETAILS_TOTAL      = 11;
+
+    // Walks the carts in primary key order, a batch of idle users at a time
+    //language=sql
+    private final static String CART_IDLE_USERS =
+            "SELECT user_id " +
+                    "FROM billing.cart " +
+                    "WHERE user_id > ? " +
+                    "GROUP BY user_id " +
+                    "HAVING MAX(last_touched) < ? " +
+                    "ORDER BY user_id " +
+                    "LIMIT ?;";
+
+    //language=sql
+    private final static String CART_IDLE_LOCK =
+            "SELECT user_id " +
+                    "FROM billing.cart " +
+                    "WHERE user_id IN (?) " +
+                    "GROUP BY user_id " +
+                    "HAVING MAX(last_touched) < ? " +
+                    "FOR UPDATE;";
+
+    //language=sql
+    private final static String CART_IDLE_DELETE =
+            "DELETE FROM billing.cart " +
+                    "WHERE user_id IN (?);";
+
+    //language=sql
+    private final static String SNAPSHOT_INSERT =
+            "INSERT INTO billing.payment_snapshot (payment_intent_id, user_id, total_cents) " +
+                    "VALUES (?, ?, ?);";
+
+    //language=sql
+    private final static String SNAPSHOT_ITEM_INSERT =
+            "INSERT INTO billing.payment_snapshot_item " +
+                    "(payment_intent_id, movie_id, quantity, unit_price, stock_reserved) " +
+                    "VALUES (?, ?, ?, ?, ?);";
+
+    //language=sql
+    private final static String SNAPSHOT_RETRIEVE =
+            "SELECT payment_snapshot.total_cents, payment_snapshot_item.movie_id, " +
+                    "payment_snapshot_item.quantity, payment_snapshot_item.unit_price, " +
+                    "payment_snapshot_item.stock_reserved " +
+                    "FROM billing.payment_snapshot " +
+                    "JOIN billing.payment_snapshot_item " +
+                    "ON payment_snapshot_item.payment_intent_id = payment_snapshot.payment_intent_id " +
+                    "WHERE payment_snapshot.payment_intent_id = ? AND payment_snapshot.user_id = ?;";
+
+    //language=sql
+    private final static String SNAPSHOT_DELETE =
+            "DELETE FROM billing.payment_snapshot " +
+                    "WHERE payment_intent_id = ? AND user_id = ?;";
+
+    //language=sql
+    private final static String SNAPSHOT_EXPIRED =
+            "SELECT payment_intent_id " +
+                    "FROM billing.payment_snapshot " +
+                    "WHERE created_at < ? " +
+                    "ORDER BY created_at " +
+                    "LIMIT ? " +
+                    "FOR UPDATE SKIP LOCKED;";
+
+    //language=sql
+    private final static String SNAPSHOT_LOCK =
+            "SELECT payment_intent_id " +
+                    "FROM billing.payment_snapshot " +
+                    "WHERE payment_intent_id = ? AND user_id = ? " +
+                    "FOR UPDATE;";
+
+    //language=sql
+    private final static String SNAPSHOT_RESERVED =
+            "SELECT movie_id, quantity " +
+                    "FROM billing.payment_snapshot_item " +
+                    "WHERE payment_intent_id IN (?) AND stock_reserved = TRUE;";
+
+    //language=sql
+    private final static String SNAPSHOT_PURGE =
+            "DELETE FROM billing.payment_snapshot " +
+                    "WHERE payment_intent_id IN (?);";
+
+    // The upsert X-locks the user's row whether or not it exists yet
+    //language=sql
+    private final static String ORDER_USER_LOCK =
+            "INSERT INTO billing.order_user_lock (user_id) " +
+                    "VALUES (?) " +
+                    "ON DUPLICATE KEY UPDATE user_id = user_id;";
+
+    //language=sql
+    private final static String OUTBOX_INSERT =
+            "INSERT INTO billing.order_outbox (event_type, user_id, sale_id, payload) " +
+                    "VALUES (?, ?, ?, ?);";
+
+    // A plain consistent read: it never waits on a buyer holding the row lock
+    //language=sql
+    private final static String STOCK_LIMITED =
+            "SELECT movie_id, remaining " +
+                    "FROM billing.movie_stock " +
+                    "WHERE movie_id IN (?);";
+
+    //language=sql
+    private final static String STOCK_TAKE =
+            "UPDATE billing.movie_stock " +
+                    "SET remaining = remaining - ? " +
+                    "WHERE movie_id = ? AND remaining >= ?;";
+
+    //language=sql
+    private final static String STOCK_RETURN =
+            "UPDATE billing.movie_stock " +
+                    "SET remaining = remaining + ? " +
+                    "WHERE movie_id = ?;";
+
+    private final static RowMapper<Sale> SALE_MAPPER =
+            (rs, rowNum) ->
+                    new Sale()
+                            .setSaleId(rs.getLong(1))
+                            .setOrderDate(rs.getTimestamp(3).toInstant())
+                            .setTotal(BigDecimal.valueOf(rs.getDouble(2))
+                                    .setScale(2, RoundingMode.DOWN));
 
     public void cartInsert(CartInsertUpdateRequest request, Long userId) throws DuplicateKeyException
     {
-        MapSqlParameterSource source = new MapSqlParameterSource();
-
-        source.addValue("userId", userId, Types.BIGINT);
-        source.addValue("movieId", request.getMovieId(), Types.BIGINT);
-        source.addValue("quantity", request.getQuantity(), Types.INTEGER);
+        try (StatementScope scope = statement("CART_INSERT", userId, request.getMovieId(), request.getQuantity())) {
+            scope.rows(this.template.update(CART_INSERT, ps -> {
+                ps.setLong(1, userId);
+                ps.setLong(2, request.getMovieId());
+                ps.setInt(3, request.getQuantity());
+            }));
+        }
 
-        this.template.update(CART_INSERT, source);
+        invalidate(CacheRegion.CART, userId);
     }
 
     public Integer cartUpdate(CartInsertUpdateRequest request, Long userId)
     {
-        MapSqlParameterSource source = new MapSqlParameterSource();
-
-        source.addValue("userId", userId, Types.BIGINT);
-        source.addValue("movieId", request.getMovieId(), Types.BIGINT);
-        source.addValue("quantity", request.getQuantity(), Types.INTEGER);
+        Integer numRowsAffected;
+
+        try (StatementScope scope = statement("CART_UPDATE", userId, request.getMovieId(), request.getQuantity())) {
+            numRowsAffected = this.template.update(CART_UPDATE, ps -> {
+                ps.setInt(1, request.getQuantity());
+                ps.setLong(2, userId);
+                ps.setLong(3, request.getMovieId());
+            });
+            scope.rows(numRowsAffected);
+        }
 
-        Integer numRowsAffected = this.template.update(CART_UPDATE, source);
+        invalidateCart(numRowsAffected, userId);
 
         return numRowsAffected;
     }
 
     public Integer cartDelete(Long movieId, Long userId)
     {
-        MapSqlParameterSource source = new MapSqlParameterSource();
-
-        source.addValue("userId", userId, Types.BIGINT);
-        source.addValue("movieId", movieId, Types.BIGINT);
+        Integer numRowsAffected;
+
+        try (StatementScope scope = statement("CART_DELETE", userId, movieId)) {
+            numRowsAffected = this.template.update(CART_DELETE, ps -> {
+                ps.setLong(1, userId);
+                ps.setLong(2, movieId);
+            });
+            scope.rows(numRowsAffected);
+        }
 
-        Integer numRowsAffected = this.template.update(CART_DELETE, source);
+        invalidateCart(numRowsAffected, userId);
 
         return numRowsAffected;
     }
 
     public List<Item> cartRetrieve(Boolean isPremium, Long userId)
     {
-        // LOG.info("isPremium: " + isPremium.toString());
-
-        List<Item> items = this.template.query(
-                CART_RETRIEVE,
-                new MapSqlParameterSource()
-                        .addValue("userId", userId, Types.BIGINT),
-                (rs, rowNum) ->
-                        new Item()
-                                .setMovieId(rs.getLong("cart.movie_id"))
-                                .setBackdropPath(rs.getString("movie.backdrop_path"))
-                                .setMovieTitle(rs.getString("movie.title"))
-                                .setQuantity(rs.getInt("cart.quantity"))
-                                .setPosterPath(rs.getString("movie.poster_path"))
-                                .setUnitPrice(
-                                        BigDecimal.valueOf(isPremium ? rs.getDouble("movie_price.unit_price")
-                                                        * (1 - (rs.getInt("movie_price.premium_discount") / 100.0))
-                                                        : rs.getDouble("movie_price.unit_price"))
-                                        .setScale(2, RoundingMode.DOWN))
-        );
-
-        return items;
+        try (StatementScope scope = statement("CART_RETRIEVE", userId)) {
+            List<Item> items = this.template.query(
+                    CART_RETRIEVE,
+                    ps -> ps.setLong(1, userId),
+                    ItemRowMapper.of(isPremium)
+            );
+            scope.rows(items.size()).span().attribute("cart.size", items.size());
+
+            return items;
+        }
     }
 
     public Integer cartClear(Long userId)
     {
-        Integer numRowsAffected = this.template.update(CART_CLEAR, new MapSqlParameterSource().addValue("userId", userId, Types.BIGINT));
+        Integer numRowsAffected;
+
+        try (StatementScope scope = statement("CART_CLEAR", userId)) {
+            numRowsAffected = this.template.update(CART_CLEAR, ps -> ps.setLong(1, userId));
+            scope.rows(numRowsAffected);
+        }
+
+        invalidateCart(numRowsAffected, userId);
 
         return numRowsAffected;
     }
 
+    /**
+     * Deletes the cart lines an order paid for, leaving lines added or changed since untouched.
+     *
+     * @return the number of lines deleted
+     */
+    public int cartDeletePurchased(List<Item> purchased, Long userId)
+    {
+        int deleted = 0;
+
+        try (StatementScope scope = statement("CART_DELETE_PURCHASED", userId, purchased.size())) {
+            int[] rows = this.template.batchUpdate(CART_DELETE_PURCHASED, new BatchPreparedStatementSetter()
+            {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException
+                {
+                    Item item = purchased.get(i);
+                    ps.setLong(1, userId);
+                    ps.setLong(2, item.getMovieId());
+                    ps.setInt(3, item.getQuantity());
+                }
+
+                @Override
+                public int getBatchSize()
+                {
+                    return purchased.size();
+                }
+            });
+
+            for (int row : rows) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements, so treat that as a hit
+                if (row != 0) {
+                    deleted += Math.max(row, 1);
+                }
+            }
+
+            scope.rows(deleted);
+        }
+
+        invalidateCart(deleted, userId);
+
+        return deleted;
+    }
+
+    /**
+     * Writes the sale, its items and, with the outbox enabled, its order completed event in one
+     * transaction, so the event exists exactly when the order does. With the outbox enabled the
+     * user's order lock is taken first, so the user's orders commit one after another and their
+     * events get ids in commit order.
+     */
+    @Transactional
     public void orderComplete(List<Item> items, Long userId) {
-        MapSqlParameterSource source = new MapSqlParameterSource();
+        BigDecimal total     = Pricing.total(items);
+        Instant    orderDate = Instant.now();
+
+        if (outbox) {
+            try (StatementScope scope = statement("ORDER_USER_LOCK", userId)) {
+                scope.rows(this.template.update(ORDER_USER_LOCK, ps -> ps.setLong(1, userId)));
+            }
+        }
 
-        BigDecimal total = BigDecimal.valueOf(0).setScale(4, RoundingMode.UNNECESSARY);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        for (Item item : items) {
-            total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        try (StatementScope scope = statement("SALE_INSERT", userId, total)) {
+            scope.rows(this.template.update(con -> {
+                PreparedStatement ps = con.prepareStatement(SALE_INSERT, Statement.RETURN_GENERATED_KEYS);
+                ps.setLong(1, userId);
+                ps.setDouble(2, total.doubleValue());
+                ps.setTimestamp(3, Timestamp.from(orderDate));
+                return ps;
+            }, keyHolder));
         }
 
-        source.addValue("userId", userId, Types.BIGINT);
-        source.addValue("total", total.doubleValue(), Types.DOUBLE);
-        source.addValue("orderDate", Date.from(Instant.now()), Types.TIMESTAMP);
+        int saleId = keyHolder.getKey().intValue();
+
+        RequestLogContext.sale(saleId);
+
+        try (StatementScope scope = statement("SALE_ITEM_INSERT", userId, saleId)) {
+            scope.span().attribute("db.batch_size", items.size());
+
+            scope.rows(this.template.batchUpdate(SALE_ITEM_INSERT, new BatchPreparedStatementSetter()
+            {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException
+                {
+                    Item item = items.get(i);
+                    ps.setInt(1, saleId);
+                    ps.setLong(2, item.getMovieId());
+                    ps.setInt(3, item.getQuantity());
+                    ps.setBigDecimal(4, item.getUnitPrice());
+                }
+
+                @Override
+                public int getBatchSize()
+                {
+                    return items.size();
+                }
+            }).length);
+        }
 
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        this.template.update(SALE_INSERT, source, keyHolder);
+        if (outbox) {
+            String payload = OrderCompleted.payload(saleId, userId, total, orderDate, items);
+
+            try (StatementScope scope = statement("OUTBOX_INSERT", userId, saleId)) {
+                scope.rows(this.template.update(OUTBOX_INSERT, ps -> {
+                    ps.setString(1, OrderCompleted.EVENT_TYPE);
+                    ps.setLong(2, userId);
+                    ps.setInt(3, saleId);
+                    ps.setString(4, payload);
+                }));
+            }
+        }
+
+        invalidate(CacheRegion.SALE, userId);
+    }
+
+    /**
+     * Stores the priced cart behind a payment intent; items and total are written together. The
+     * {@code stockReserved} movies had their stock taken for this intent and get it back if the
+     * snapshot is purged.
+     */
+    @Transactional
+    public void snapshotInsert(String paymentIntentId, Long userId, long totalCents, List<Item> items,
+                               Set<Long> stockReserved)
+    {
+        try (StatementScope scope = statement("SNAPSHOT_INSERT", userId, paymentIntentId, totalCents)) {
+            scope.rows(this.template.update(SNAPSHOT_INSERT, ps -> {
+                ps.setString(1, paymentIntentId);
+                ps.setLong(2, userId);
+                ps.setLong(3, totalCents);
+            }));
+        }
+
+        try (StatementScope scope = statement("SNAPSHOT_ITEM_INSERT", userId, paymentIntentId)) {
+            scope.rows(this.template.batchUpdate(SNAPSHOT_ITEM_INSERT, new BatchPreparedStatementSetter()
+            {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException
+                {
+                    Item item = items.get(i);
+                    ps.setString(1, paymentIntentId);
+                    ps.setLong(2, item.getMovieId());
+                    ps.setInt(3, item.getQuantity());
+                    ps.setBigDecimal(4, item.getUnitPrice());
+                    ps.setBoolean(5, stockReserved.contains(item.getMovieId()));
+                }
+
+                @Override
+                public int getBatchSize()
+                {
+                    return items.size();
+                }
+            }).length);
+        }
+    }
 
-        for (Item item : items) {
-            this.template.update(SALE_ITEM_INSERT,
-                    new MapSqlParameterSource()
-                            .addValue("saleId", keyHolder.getKey(), Types.INTEGER)
-                            .addValue("movieId", item.getMovieId(), Types.BIGINT)
-                            .addValue("quantity", item.getQuantity(), Types.INTEGER));
+    /**
+     * @return the user's snapshot for the intent, or null when there is none (never created,
+     * already completed or purged)
+     */
+    public PaymentSnapshot snapshotRetrieve(String paymentIntentId, Long userId)
+    {
+        long[]     totalCents    = {-1};
+        List<Item> items         = new ArrayList<>();
+        Set<Long>  stockReserved = new HashSet<>();
+
+        try (StatementScope scope = statement("SNAPSHOT_RETRIEVE", userId, paymentIntentId)) {
+            this.template.query(
+                    SNAPSHOT_RETRIEVE,
+                    ps -> {
+                        ps.setString(1, paymentIntentId);
+                        ps.setLong(2, userId);
+                    },
+                    (RowCallbackHandler) rs -> {
+                        totalCents[0] = rs.getLong(1);
+                        items.add(new Item()
+                                          .setMovieId(rs.getLong(2))
+                                          .setQuantity(rs.getInt(3))
+                                          .setUnitPrice(rs.getBigDecimal(4).setScale(2, RoundingMode.DOWN)));
+
+                        if (rs.getBoolean(5)) {
+                            stockReserved.add(rs.getLong(2));
+                        }
+                    }
+            );
+            scope.rows(items.size());
         }
 
-        this.cartClear(userId);
+        return items.isEmpty() ? null : new PaymentSnapshot(paymentIntentId, userId, totalCents[0], items,
+                                                                    stockReserved);
+    }
+
+    /**
+     * Records the sale from a snapshot and consumes the snapshot in the same transaction, so each
+     * payment intent completes at most one order.
+     *
+     * @return false, with nothing written, when the snapshot was already consumed
+     */
+    @Transactional
+    public boolean orderComplete(PaymentSnapshot snapshot)
+    {
+        int consumed;
+
+        try (StatementScope scope = statement("SNAPSHOT_DELETE", snapshot.getUserId(),
+                                              snapshot.getPaymentIntentId())) {
+            consumed = this.template.update(SNAPSHOT_DELETE, ps -> {
+                ps.setString(1, snapshot.getPaymentIntentId());
+                ps.setLong(2, snapshot.getUserId());
+            });
+            scope.rows(consumed);
+        }
+
+        if (consumed == 0) {
+            return false;
+        }
+
+        orderComplete(snapshot.getItems(), snapshot.getUserId());
+
+        return true;
+    }
+
+    /**
+     * Reads the stock left of the lines that are stock limited, as of the transaction's read view and
+     * without locking the rows, so it can be stale by the reservations committed since.
+     *
+     * @return the remaining stock of each stock limited movie among the lines
+     */
+    public Map<Long, Integer> stockLimited(List<Item> lines)
+    {
+        StringBuilder in = new StringBuilder("IN (");
+
+        for (int i = 0; i < lines.size(); i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+
+        String             sql     = STOCK_LIMITED.replace("IN (?)", in.append(')'));
+        Map<Long, Integer> limited = new HashMap<>();
+
+        try (StatementScope scope = statement("STOCK_LIMITED", null, lines.size())) {
+            this.template.query(
+                    sql,
+                    ps -> {
+                        for (int i = 0; i < lines.size(); i++) {
+                            ps.setLong(i + 1, lines.get(i).getMovieId());
+                        }
+                    },
+                    (RowCallbackHandler) rs -> limited.put(rs.getLong(1), rs.getInt(2))
+            );
+            scope.rows(limited.size());
+        }
+
+        return limited;
+    }
+
+    /**
+     * Takes the lines off {@code billing.movie_stock}. The update never lets stock go negative;
+     * when a line would, this throws {@link SoldOutException} and the caller's transaction rolls back the
+     * lines already taken. Each row stays locked until the caller commits, so this should be the
+     * transaction's last statement.
+     */
+    public void stockTake(List<Item> lines, Long userId)
+    {
+        int[] updated;
+
+        try (StatementScope scope = statement("STOCK_TAKE", userId, lines.size())) {
+            scope.span().attribute("db.batch_size", lines.size());
+
+            updated = this.template.batchUpdate(STOCK_TAKE, new BatchPreparedStatementSetter()
+            {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException
+                {
+                    Item item = lines.get(i);
+                    ps.setInt(1, item.getQuantity());
+                    ps.setLong(2, item.getMovieId());
+                    ps.setInt(3, item.getQuantity());
+                }
+
+                @Override
+                public int getBatchSize()
+                {
+                    return lines.size();
+                }
+            });
+            scope.rows(updated.length);
+        }
+
+        for (int row : updated) {
+            if (row == 0) {
+                throw new SoldOutException();
+            }
+        }
+    }
+
+    /**
+     * Deletes up to {@code batchSize} snapshots created before {@code cutoff} and puts the stock
+     * they reserved back on sale. The snapshots are locked first, so one that is being completed
+     * is skipped rather than both consumed and returned.
+     *
+     * @return the number of snapshots deleted
+     */
+    @Transactional
+    public int snapshotPurge(Timestamp cutoff, int batchSize)
+    {
+        List<String> expired;
+
+        try (StatementScope scope = statement("SNAPSHOT_EXPIRED", null, cutoff, batchSize)) {
+            expired = this.template.query(
+                    SNAPSHOT_EXPIRED,
+                    ps -> {
+                        ps.setTimestamp(1, cutoff);
+                        ps.setInt(2, batchSize);
+                    },
+                    (rs, rowNum) -> rs.getString(1)
+            );
+            scope.rows(expired.size());
+        }
+
+        return expired.isEmpty() ? 0 : snapshotDelete(expired);
+    }
+
+    /**
+     * Deletes the user's snapshot for a payment intent that will not be completed, putting the
+     * stock it reserved back on sale.
+     *
+     * @return false when there was no snapshot left to delete
+     */
+    @Transactional
+    public boolean snapshotRelease(String paymentIntentId, Long userId)
+    {
+        List<String> locked;
+
+        try (StatementScope scope = statement("SNAPSHOT_LOCK", userId, paymentIntentId)) {
+            locked = this.template.query(
+                    SNAPSHOT_LOCK,
+                    ps -> {
+                        ps.setString(1, paymentIntentId);
+                        ps.setLong(2, userId);
+                    },
+                    (rs, rowNum) -> rs.getString(1)
+            );
+            scope.rows(locked.size());
+        }
+
+        return !locked.isEmpty() && snapshotDelete(locked) > 0;
+    }
+
+    /**
+     * Returns the stock reserved by the snapshots, which the caller has locked, and deletes them.
+     */
+    private int snapshotDelete(List<String> paymentIntentIds)
+    {
+        StringBuilder in = new StringBuilder("IN (");
+
+        for (int i = 0; i < paymentIntentIds.size(); i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+
+        in.append(')');
+
+        List<Item> reserved;
+
+        try (StatementScope scope = statement("SNAPSHOT_RESERVED", null, paymentIntentIds.size())) {
+            reserved = this.template.query(
+                    SNAPSHOT_RESERVED.replace("IN (?)", in),
+                    ps -> {
+                        for (int i = 0; i < paymentIntentIds.size(); i++) {
+                            ps.setString(i + 1, paymentIntentIds.get(i));
+                        }
+                    },
+                    (rs, rowNum) -> new Item().setMovieId(rs.getLong(1)).setQuantity(rs.getInt(2))
+            );
+            scope.rows(reserved.size());
+        }
+
+        if (!reserved.isEmpty()) {
+            try (StatementScope scope = statement("STOCK_RETURN", null, reserved.size())) {
+                scope.rows(this.template.batchUpdate(STOCK_RETURN, new BatchPreparedStatementSetter()
+                {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException
+                    {
+                        Item item = reserved.get(i);
+                        ps.setInt(1, item.getQuantity());
+                        ps.setLong(2, item.getMovieId());
+                    }
+
+                    @Override
+                    public int getBatchSize()
+                    {
+                        return reserved.size();
+                    }
+                }).length);
+            }
+        }
+
+        try (StatementScope scope = statement("SNAPSHOT_PURGE", null, paymentIntentIds.size())) {
+            int purged = this.template.update(
+                    SNAPSHOT_PURGE.replace("IN (?)", in),
+                    ps -> {
+                        for (int i = 0; i < paymentIntentIds.size(); i++) {
+                            ps.setString(i + 1, paymentIntentIds.get(i));
+                        }
+                    }
+            );
+            scope.rows(purged);
+
+            return purged;
+        }
+    }
+
+    /**
+     * Reads the next batch of users whose whole cart is untouched since {@code cutoff}, in user id
+     * order, starting after {@code from} (the last user of the previous batch).
+     */
+    public List<Long> cartIdleUsers(long from, Timestamp cutoff, int batchSize)
+    {
+        try (StatementScope scope = statement("CART_IDLE_USERS", null, from, cutoff, batchSize)) {
+            List<Long> userIds = this.template.query(
+                    CART_IDLE_USERS,
+                    ps -> {
+                        ps.setLong(1, from);
+                        ps.setTimestamp(2, cutoff);
+                        ps.setInt(3, batchSize);
+                    },
+                    (rs, rowNum) -> rs.getLong(1)
+            );
+            scope.rows(userIds.size());
+
+            return userIds;
+        }
+    }
+
+    /**
+     * Deletes the carts of the given users, except those with a line touched again after
+     * {@code cutoff}. The carts are locked and checked again first, so a cart is either deleted whole
+     * or kept whole.
+     *
+     * @return the number of cart rows deleted
+     */
+    @Transactional
+    public int cartIdleDelete(List<Long> userIds, Timestamp cutoff)
+    {
+        List<Long> idle;
+
+        try (StatementScope scope = statement("CART_IDLE_LOCK", null, userIds.size(), cutoff)) {
+            idle = this.template.query(
+                    CART_IDLE_LOCK.replace("IN (?)", in(userIds.size())),
+                    ps -> {
+                        for (int i = 0; i < userIds.size(); i++) {
+                            ps.setLong(i + 1, userIds.get(i));
+                        }
+
+                        ps.setTimestamp(userIds.size() + 1, cutoff);
+                    },
+                    (rs, rowNum) -> rs.getLong(1)
+            );
+            scope.rows(idle.size());
+        }
+
+        if (idle.isEmpty()) {
+            return 0;
+        }
+
+        int deleted;
+
+        try (StatementScope scope = statement("CART_IDLE_DELETE", null, idle.size())) {
+            deleted = this.template.update(
+                    CART_IDLE_DELETE.replace("IN (?)", in(idle.size())),
+                    ps -> {
+                        for (int i = 0; i < idle.size(); i++) {
+                            ps.setLong(i + 1, idle.get(i));
+                        }
+                    }
+            );
+            scope.rows(deleted);
+        }
+
+        for (Long userId : idle) {
+            invalidate(CacheRegion.CART, userId);
+        }
+
+        return deleted;
     }
 
     public List<Sale> orderList(Long userId)
     {
-        List<Sale> sales = this.template.query(ORDER_LIST,
-                new MapSqlParameterSource()
-                        .addValue("userId", userId, Types.BIGINT),
-                (rs, rowNum) ->
-                        new Sale()
-                                .setSaleId(rs.getLong("id"))
-                                .setOrderDate(rs.getTimestamp("order_date").toInstant())
-                                .setTotal(BigDecimal.valueOf(rs.getDouble("total"))
-                                        .setScale(2, RoundingMode.DOWN))
-        );
+        try (StatementScope scope = statement("ORDER_LIST", userId)) {
+            List<Sale> sales = this.template.query(ORDER_LIST, ps -> ps.setLong(1, userId), SALE_MAPPER);
+            scope.rows(sales.size());
 
-        return sales;
+            return sales;
+        }
     }
 
     public List<Item> orderDetail(Boolean isPremium, Long saleId, Long userId)
     {
-        // LOG.info("isPremium: " + isPremium.toString());
-
-        List<Item> items = this.template.query(
-                ORDER_DETAIL,
-                new MapSqlParameterSource()
-                        .addValue("saleId", saleId, Types.BIGINT)
-                        .addValue("userId", userId, Types.BIGINT),
-                (rs, rowNum) ->
-                        new Item()
-                                .setMovieId(rs.getLong("sale_item.movie_id"))
-                                .setBackdropPath(rs.getString("movie.backdrop_path"))
-                                .setMovieTitle(rs.getString("movie.title"))
-                                .setQuantity(rs.getInt("sale_item.quantity"))
-                                .setPosterPath(rs.getString("movie.poster_path"))
-                                .setUnitPrice(
-                                        BigDecimal.valueOf(isPremium ? rs.getDouble("movie_price.unit_price")
-                                                        * (1 - (rs.getInt("movie_price.premium_discount") / 100.0))
-                                                        : rs.getDouble("movie_price.unit_price"))
-                                                .setScale(2, RoundingMode.DOWN))
-        );
-
-        return items;
+        try (StatementScope scope = statement("ORDER_DETAIL", userId, saleId)) {
+            List<Item> items = this.template.query(
+                    ORDER_DETAIL,
+                    ps -> {
+                        ps.setLong(1, saleId);
+                        ps.setLong(2, userId);
+                    },
+                    ItemRowMapper.sold(isPremium)
+            );
+            scope.rows(items.size());
+
+            return items;
+        }
+    }
+
+    /**
+     * @return ids of the user's {@code limit} most recent sales, newest first
+     */
+    public List<Long> orderLatestIds(Long userId, int limit)
+    {
+        try (StatementScope scope = statement("ORDER_LATEST_IDS", userId, limit)) {
+            List<Long> saleIds = this.template.query(
+                    ORDER_LATEST_IDS,
+                    ps -> {
+                        ps.setLong(1, userId);
+                        ps.setInt(2, limit);
+                    },
+                    (rs, rowNum) -> rs.getLong(1)
+            );
+            scope.rows(saleIds.size());
+
+            return saleIds;
+        }
+    }
+
+    /**
+     * Reads the items of several of the user's sales with one query. Each sale keeps the total it was
+     * charged; sales that are not the user's or have no items are left out.
+     *
+     * @return the sales, newest first, each with its items
+     */
+    public List<Sale> orderDetails(Boolean isPremium, List<Long> saleIds, Long userId)
+    {
+        if (saleIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        StringBuilder in = new StringBuilder("IN (");
+
+        for (int i = 0; i < saleIds.size(); i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+
+        String          sql    = ORDER_DETAILS.replace("IN (?)", in.append(')'));
+        ItemRowMapper   mapper = ItemRowMapper.sold(isPremium);
+        Map<Long, Sale> sales  = new LinkedHashMap<>();
+        int[]           rows   = {0};
+
+        try (StatementScope scope = statement("ORDER_DETAILS", userId, saleIds.size())) {
+            this.template.query(
+                    sql,
+                    ps -> {
+                        ps.setLong(1, userId);
+
+                        for (int i = 0; i < saleIds.size(); i++) {
+                            ps.setLong(i + 2, saleIds.get(i));
+                        }
+                    },
+                    (RowCallbackHandler) rs -> {
+                        long saleId = rs.getLong(ORDER_DETAILS_SALE_ID);
+                        Sale sale   = sales.get(saleId);
+
+                        if (sale == null) {
+                            sale = new Sale()
+                                    .setSaleId(saleId)
+                                    .setOrderDate(rs.getTimestamp(ORDER_DETAILS_ORDER_DATE).toInstant())
+                                    .setTotal(BigDecimal.valueOf(rs.getDouble(ORDER_DETAILS_TOTAL))
+                                                        .setScale(2, RoundingMode.DOWN))
+                                    .setItems(new ArrayList<>());
+                            sales.put(saleId, sale);
+                        }
+
+                        sale.getItems().add(mapper.mapRow(rs, rows[0]++));
+                    }
+            );
+            scope.rows(rows[0]);
+        }
+
+        List<Sale> grouped = new ArrayList<>(sales.values());
+
+        // Sorted here rather than in SQL so the join needs no filesort
+        grouped.sort(Comparator.comparing(Sale::getOrderDate).thenComparing(Sale::getSaleId).reversed());
+
+        return grouped;
+    }
+
+    /**
+     * Opens the trace span and slow-query timer for one statement. {@code userId} is kept apart from
+     * the other binds so the slow-query log can hash it.
+     */
+    private StatementScope statement(String name, Long userId, Object... binds)
+    {
+        Span span = tracer.start("db " + name);
+
+        if (!span.isRecording() && !slowQueries.isEnabled()) {
+            return StatementScope.NOOP;
+        }
+
+        return new StatementScope(slowQueries, span.attribute("db.statement.name", name), name, userId, binds);
+    }
+
+    /**
+     * @return an {@code IN} list of {@code size} placeholders, to replace a statement's {@code IN (?)}
+     */
+    private static String in(int size)
+    {
+        StringBuilder in = new StringBuilder("IN (");
+
+        for (int i = 0; i < size; i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+
+        return in.append(')').toString();
+    }
+
+    private void invalidateCart(Integer numRowsAffected, Long userId)
+    {
+        if (numRowsAffected != null && numRowsAffected > 0) {
+            invalidate(CacheRegion.CART, userId);
+        }
+    }
+
+    /**
+     * Inside a transaction the invalidation is published once it commits, so no node can reload the
+     * old rows before the new ones are visible, and a rolled back write publishes nothing.
+     */
+    private void invalidate(CacheRegion region, long key)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.invalidate(region, key);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+        {
+            @Override
+            public void afterCommit()
+            {
+                invalidation.invalidate(region, key);
+            }
+        });
     }
 }
@@ -0,0 +1,225 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+@Component
+public class CartEventRepo
+{
+    public static final int INSERT = 1;
+    public static final int UPDATE = 2;
+    public static final int DELETE = 3;
+    public static final int CLEAR  = 4;
+
+    private final JdbcTemplate template;
+
+    @Autowired
+    public CartEventRepo(NamedParameterJdbcTemplate template)
+    {
+        this.template = template.getJdbcTemplate();
+    }
+
+    //language=sql
+    private final static String EVENT_APPEND =
+            "INSERT INTO billing.cart_event (user_id, type, movie_id, quantity) " +
+                    "VALUES (?, ?, ?, ?);";
+
+    //language=sql
+    private final static String EVENTS_AFTER =
+            "SELECT id, user_id, type, movie_id, quantity " +
+                    "FROM billing.cart_event " +
+                    "WHERE id > ? " +
+                    "ORDER BY id;";
+
+    //language=sql
+    private final static String SNAPSHOT_LATEST =
+            "SELECT id, last_event_id " +
+                    "FROM billing.cart_snapshot " +
+                    "ORDER BY id DESC " +
+                    "LIMIT 1;";
+
+    //language=sql
+    private final static String SNAPSHOT_ITEMS =
+            "SELECT user_id, movie_id, quantity " +
+                    "FROM billing.cart_snapshot_item " +
+                    "WHERE snapshot_id = ?;";
+
+    //language=sql
+    private final static String SNAPSHOT_INSERT =
+            "INSERT INTO billing.cart_snapshot (last_event_id, created) " +
+                    "VALUES (?, ?);";
+
+    //language=sql
+    private final static String SNAPSHOT_ITEM_INSERT =
+            "INSERT INTO billing.cart_snapshot_item (snapshot_id, user_id, movie_id, quantity) " +
+                    "VALUES (?, ?, ?, ?);";
+
+    //language=sql
+    private final static String SNAPSHOT_DELETE_OLDER =
+            "DELETE FROM billing.cart_snapshot " +
+                    "WHERE id < ?;";
+
+    //language=sql
+    private final static String LOG_EMPTY =
+            "SELECT NOT EXISTS (SELECT 1 FROM billing.cart_snapshot) " +
+                    "AND NOT EXISTS (SELECT 1 FROM billing.cart_event);";
+
+    //language=sql
+    private final static String TABLE_CARTS =
+            "SELECT user_id, movie_id, quantity " +
+                    "FROM billing.cart;";
+
+    //language=sql
+    private final static String EVENTS_DELETE_UP_TO =
+            "DELETE FROM billing.cart_event " +
+                    "WHERE id <= ? " +
+                    "LIMIT ?;";
+
+    public long append(Long userId, int type, Long movieId, Integer quantity)
+    {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        this.template.update(con -> {
+            PreparedStatement ps = con.prepareStatement(EVENT_APPEND, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setInt(2, type);
+            if (movieId == null) {
+                ps.setNull(3, Types.INTEGER);
+            } else {
+                ps.setLong(3, movieId);
+            }
+            if (quantity == null) {
+                ps.setNull(4, Types.INTEGER);
+            } else {
+                ps.setInt(4, quantity);
+            }
+            return ps;
+        }, keyHolder);
+
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Replays the latest snapshot into {@code handler} as INSERT events, then every event after it.
+     *
+     * @return the id of the last event seen
+     */
+    public long replay(EventHandler handler)
+    {
+        List<long[]> latest = this.template.query(SNAPSHOT_LATEST,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+
+        long lastEventId = 0;
+
+        if (!latest.isEmpty()) {
+            lastEventId = latest.get(0)[1];
+
+            this.template.query(SNAPSHOT_ITEMS, ps -> ps.setLong(1, latest.get(0)[0]), (RowCallbackHandler) rs ->
+                    handler.apply(rs.getLong(1), INSERT, rs.getLong(2), rs.getInt(3)));
+        }
+
+        long[] last = {lastEventId};
+
+        this.template.query(EVENTS_AFTER, ps -> ps.setLong(1, last[0]), (RowCallbackHandler) rs -> {
+            last[0] = rs.getLong(1);
+            handler.apply(rs.getLong(2), rs.getInt(3), rs.getLong(4), rs.getInt(5));
+        });
+
+        return last[0];
+    }
+
+    @Transactional
+    public void writeSnapshot(long lastEventId, List<long[]> items)
+    {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        this.template.update(con -> {
+            PreparedStatement ps = con.prepareStatement(SNAPSHOT_INSERT, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, lastEventId);
+            ps.setTimestamp(2, Timestamp.from(Instant.now()));
+            return ps;
+        }, keyHolder);
+
+        long snapshotId = keyHolder.getKey().longValue();
+
+        this.template.batchUpdate(SNAPSHOT_ITEM_INSERT, new BatchPreparedStatementSetter()
+        {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException
+            {
+                long[] item = items.get(i);
+                ps.setLong(1, snapshotId);
+                ps.setLong(2, item[0]);
+                ps.setLong(3, item[1]);
+                ps.setInt(4, (int) item[2]);
+            }
+
+            @Override
+            public int getBatchSize()
+            {
+                return items.size();
+            }
+        });
+
+        this.template.update(SNAPSHOT_DELETE_OLDER, ps -> ps.setLong(1, snapshotId));
+    }
+
+    /**
+     * @return true when no snapshot or event has been written yet, i.e. the store has never run
+     */
+    public boolean isLogEmpty()
+    {
+        return Boolean.TRUE.equals(this.template.queryForObject(LOG_EMPTY, Boolean.class));
+    }
+
+    /**
+     * @return every line of {@code billing.cart} as {user_id, movie_id, quantity}, for carrying table
+     * mode carts over into the log
+     */
+    public List<long[]> tableCarts()
+    {
+        return this.template.query(TABLE_CARTS, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getInt(3)});
+    }
+
+    /**
+     * Deletes the events a snapshot already covers, a batch at a time so no statement holds locks
+     * for long.
+     *
+     * @return the number of events deleted
+     */
+    public int truncate(long upToEventId, int batchSize)
+    {
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = this.template.update(EVENTS_DELETE_UP_TO, ps -> {
+                ps.setLong(1, upToEventId);
+                ps.setInt(2, batchSize);
+            });
+            total += deleted;
+        } while (deleted == batchSize);
+
+        return total;
+    }
+
+    public interface EventHandler
+    {
+        void apply(long userId, int type, long movieId, int quantity);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.catalog.CatalogEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Component
+public class CatalogRepo
+{
+    private final JdbcTemplate template;
+
+    @Autowired
+    public CatalogRepo(NamedParameterJdbcTemplate template)
+    {
+        this.template = template.getJdbcTemplate();
+    }
+
+    //language=sql
+    private final static String CATALOG_SELECT =
+            "SELECT movie_price.movie_id, movie_price.unit_price, movie_price.premium_discount, " +
+                    "movie.title, movie.backdrop_path, movie.poster_path " +
+                    "FROM billing.movie_price " +
+                    "JOIN movies.movie ON movie_price.movie_id = movie.id ";
+
+    //language=sql
+    private final static String CATALOG_ALL =
+            CATALOG_SELECT + ";";
+
+    private final static RowMapper<CatalogEntry> CATALOG_MAPPER =
+            (rs, rowNum) ->
+                    new CatalogEntry(rs.getLong(1), rs.getDouble(2), rs.getInt(3),
+                                     rs.getString(4), rs.getString(5), rs.getString(6));
+
+    public List<CatalogEntry> catalogAll()
+    {
+        return this.template.query(CATALOG_ALL, CATALOG_MAPPER);
+    }
+
+    public List<CatalogEntry> catalogByMovieIds(Collection<Long> movieIds)
+    {
+        if (movieIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        StringBuilder sql = new StringBuilder(CATALOG_SELECT).append("WHERE movie_price.movie_id IN (");
+
+        for (int i = 0; i < movieIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+
+        return this.template.query(sql.append(");").toString(), CATALOG_MAPPER, movieIds.toArray());
+    }
+}
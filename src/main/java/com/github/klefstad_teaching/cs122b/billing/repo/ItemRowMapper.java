@@ -0,0 +1,73 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the shared CART_RETRIEVE / ORDER_DETAIL select list by column index:
+ * unit_price, quantity, movie_id, title, backdrop_path, poster_path, premium_discount.
+ * ORDER_DETAIL and ORDER_DETAILS append sale_item.unit_price, the price the line was sold at, which
+ * the {@link #sold} mappers use instead of today's price when it is stored. ORDER_DETAILS appends its
+ * sale columns after that.
+ */
+public class ItemRowMapper implements RowMapper<Item>
+{
+    public static final ItemRowMapper STANDARD      = new ItemRowMapper(false, false);
+    public static final ItemRowMapper PREMIUM       = new ItemRowMapper(true, false);
+    public static final ItemRowMapper SOLD_STANDARD = new ItemRowMapper(false, true);
+    public static final ItemRowMapper SOLD_PREMIUM  = new ItemRowMapper(true, true);
+
+    private static final int UNIT_PRICE       = 1;
+    private static final int QUANTITY         = 2;
+    private static final int MOVIE_ID         = 3;
+    private static final int TITLE            = 4;
+    private static final int BACKDROP_PATH    = 5;
+    private static final int POSTER_PATH      = 6;
+    private static final int PREMIUM_DISCOUNT = 7;
+    private static final int SOLD_PRICE       = 8;
+
+    private final boolean isPremium;
+    private final boolean isSold;
+
+    private ItemRowMapper(boolean isPremium, boolean isSold)
+    {
+        this.isPremium = isPremium;
+        this.isSold = isSold;
+    }
+
+    public static ItemRowMapper of(boolean isPremium)
+    {
+        return isPremium ? PREMIUM : STANDARD;
+    }
+
+    /**
+     * @return a mapper for sale items, which prices sales written before the sold price was stored at
+     * today's price
+     */
+    public static ItemRowMapper sold(boolean isPremium)
+    {
+        return isPremium ? SOLD_PREMIUM : SOLD_STANDARD;
+    }
+
+    @Override
+    public Item mapRow(ResultSet rs, int rowNum) throws SQLException
+    {
+        BigDecimal soldPrice = isSold ? rs.getBigDecimal(SOLD_PRICE) : null;
+
+        return new Item()
+            .setMovieId(rs.getLong(MOVIE_ID))
+            .setBackdropPath(rs.getString(BACKDROP_PATH))
+            .setMovieTitle(rs.getString(TITLE))
+            .setQuantity(rs.getInt(QUANTITY))
+            .setPosterPath(rs.getString(POSTER_PATH))
+            .setUnitPrice(soldPrice != null ?
+                          soldPrice.setScale(2, RoundingMode.DOWN) :
+                          Pricing.unitPrice(rs.getDouble(UNIT_PRICE), rs.getInt(PREMIUM_DISCOUNT), isPremium));
+    }
+}
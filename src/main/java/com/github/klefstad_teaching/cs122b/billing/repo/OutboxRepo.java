@@ -0,0 +1,122 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.outbox.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+
+@Component
+public class OutboxRepo
+{
+    private final JdbcTemplate template;
+
+    @Autowired
+    public OutboxRepo(NamedParameterJdbcTemplate template)
+    {
+        this.template = template.getJdbcTemplate();
+    }
+
+    //language=sql
+    private final static String OUTBOX_BATCH =
+            "SELECT id, event_type, user_id, sale_id, payload, created_at " +
+                    "FROM billing.order_outbox " +
+                    "ORDER BY id " +
+                    "LIMIT ?;";
+
+    //language=sql
+    private final static String OUTBOX_DELETE =
+            "DELETE FROM billing.order_outbox " +
+                    "WHERE id = ?;";
+
+    //language=sql
+    private final static String LEASE_ACQUIRE =
+            "UPDATE billing.outbox_relay_lease " +
+                    "SET owner = ?, expires_at = CURRENT_TIMESTAMP(3) + INTERVAL ? MICROSECOND " +
+                    "WHERE id = 1 AND (owner = ? OR owner IS NULL OR expires_at < CURRENT_TIMESTAMP(3));";
+
+    //language=sql
+    private final static String LEASE_RELEASE =
+            "UPDATE billing.outbox_relay_lease " +
+                    "SET owner = NULL " +
+                    "WHERE id = 1 AND owner = ?;";
+
+    //language=sql
+    private final static String OUTBOX_BACKLOG =
+            "SELECT COUNT(*), MIN(created_at) " +
+                    "FROM billing.order_outbox;";
+
+    /**
+     * @return the oldest undelivered events, in the order they were written
+     */
+    public List<OutboxEvent> outboxBatch(int limit)
+    {
+        return this.template.query(
+                OUTBOX_BATCH,
+                ps -> ps.setInt(1, limit),
+                (rs, rowNum) -> new OutboxEvent(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getLong(4),
+                                                rs.getString(5), rs.getTimestamp(6).getTime())
+        );
+    }
+
+    /**
+     * Deletes exactly the delivered ids. A range delete could drop an event with a lower id whose
+     * transaction committed after the batch was read.
+     */
+    public void outboxDelete(List<OutboxEvent> delivered)
+    {
+        this.template.batchUpdate(OUTBOX_DELETE, new BatchPreparedStatementSetter()
+        {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException
+            {
+                ps.setLong(1, delivered.get(i).getId());
+            }
+
+            @Override
+            public int getBatchSize()
+            {
+                return delivered.size();
+            }
+        });
+    }
+
+    /**
+     * Takes or renews the relay lease for {@code owner}. The database clock decides expiry, so
+     * instances do not need synchronized clocks.
+     *
+     * @return false while another instance holds an unexpired lease
+     */
+    public boolean leaseAcquire(String owner, Duration ttl)
+    {
+        // Counts matched rows: Connector/J reports found rather than changed rows by default
+        return this.template.update(LEASE_ACQUIRE, ps -> {
+            ps.setString(1, owner);
+            ps.setLong(2, ttl.toNanos() / 1000);
+            ps.setString(3, owner);
+        }) > 0;
+    }
+
+    public void leaseRelease(String owner)
+    {
+        this.template.update(LEASE_RELEASE, ps -> ps.setString(1, owner));
+    }
+
+    /**
+     * @return {undelivered count, epoch millis of the oldest undelivered event or 0}
+     */
+    public long[] outboxBacklog()
+    {
+        return this.template.queryForObject(OUTBOX_BACKLOG, (rs, rowNum) -> {
+            Timestamp oldest = rs.getTimestamp(2);
+            return new long[]{rs.getLong(1), oldest == null ? 0 : oldest.getTime()};
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The priced cart a payment intent was created for. Written once by {@code /order/payment} and
+ * consumed by completing the order, so the sale records exactly what was paid for.
+ */
+public final class PaymentSnapshot {
+    private final String paymentIntentId;
+    private final long userId;
+    private final long totalCents;
+    private final List<Item> items;
+    private final Set<Long> stockReserved;
+
+    public PaymentSnapshot(String paymentIntentId, long userId, long totalCents, List<Item> items,
+                           Set<Long> stockReserved) {
+        this.paymentIntentId = paymentIntentId;
+        this.userId = userId;
+        this.totalCents = totalCents;
+        this.items = items;
+        this.stockReserved = stockReserved;
+    }
+
+    public String getPaymentIntentId() {
+        return paymentIntentId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the movies whose stock was reserved for this intent when the snapshot was stored
+     */
+    public Set<Long> getStockReserved() {
+        return stockReserved;
+    }
+}
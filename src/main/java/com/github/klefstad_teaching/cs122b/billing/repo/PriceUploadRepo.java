@@ -0,0 +1,119 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Statements behind the bulk price upload: rows are staged under an upload id, checked, and then
+ * applied to {@code billing.movie_price} by a single statement.
+ */
+@Component
+public class PriceUploadRepo
+{
+    private final JdbcTemplate template;
+
+    @Autowired
+    public PriceUploadRepo(NamedParameterJdbcTemplate template)
+    {
+        this.template = template.getJdbcTemplate();
+    }
+
+    //language=sql
+    private final static String STAGING_INSERT =
+            "INSERT INTO billing.movie_price_staging (upload_id, movie_id, unit_price, premium_discount) " +
+                    "VALUES ";
+
+    //language=sql
+    private final static String STAGING_UPSERT =
+            " ON DUPLICATE KEY UPDATE " +
+                    "unit_price = VALUES(unit_price), premium_discount = VALUES(premium_discount);";
+
+    //language=sql
+    private final static String STAGING_UNKNOWN_MOVIES =
+            "SELECT movie_price_staging.movie_id " +
+                    "FROM billing.movie_price_staging " +
+                    "LEFT JOIN movies.movie ON movie_price_staging.movie_id = movie.id " +
+                    "WHERE movie_price_staging.upload_id = ? AND movie.id IS NULL " +
+                    "LIMIT ?;";
+
+    //language=sql
+    private final static String STAGING_APPLY =
+            "INSERT INTO billing.movie_price (movie_id, unit_price, premium_discount) " +
+                    "SELECT movie_id, unit_price, premium_discount " +
+                    "FROM billing.movie_price_staging " +
+                    "WHERE upload_id = ? " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "unit_price = VALUES(unit_price), premium_discount = VALUES(premium_discount);";
+
+    //language=sql
+    private final static String STAGING_DISCARD =
+            "DELETE FROM billing.movie_price_staging " +
+                    "WHERE upload_id = ?;";
+
+    /**
+     * @return a multi-row upsert for {@code rows} rows, to be prepared once per batch size
+     */
+    public static String stagingUpsert(int rows)
+    {
+        StringBuilder sql = new StringBuilder(STAGING_INSERT.length() + rows * 14 + STAGING_UPSERT.length())
+            .append(STAGING_INSERT);
+
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+
+        return sql.append(STAGING_UPSERT).toString();
+    }
+
+    /**
+     * Writes one batch in a single round trip. A movie repeated within an upload keeps its last row.
+     */
+    public void stagingUpsert(String sql, String uploadId, int rows, long[] movieIds, BigDecimal[] unitPrices,
+                              int[] premiumDiscounts)
+    {
+        this.template.update(sql, ps -> {
+            int column = 1;
+
+            for (int i = 0; i < rows; i++) {
+                ps.setString(column++, uploadId);
+                ps.setLong(column++, movieIds[i]);
+                ps.setBigDecimal(column++, unitPrices[i]);
+                ps.setInt(column++, premiumDiscounts[i]);
+            }
+        });
+    }
+
+    public List<Long> stagingUnknownMovies(String uploadId, int limit)
+    {
+        return this.template.query(
+                STAGING_UNKNOWN_MOVIES,
+                ps -> {
+                    ps.setString(1, uploadId);
+                    ps.setInt(2, limit);
+                },
+                (rs, rowNum) -> rs.getLong(1)
+        );
+    }
+
+    /**
+     * Upserts every staged row into the live price table in one statement and one transaction, so
+     * readers see either none or all of the upload.
+     */
+    @Transactional
+    public void stagingApply(String uploadId)
+    {
+        this.template.update(STAGING_APPLY, ps -> ps.setString(1, uploadId));
+        stagingDiscard(uploadId);
+    }
+
+    public void stagingDiscard(String uploadId)
+    {
+        this.template.update(STAGING_DISCARD, ps -> ps.setString(1, uploadId));
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionKind;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class PromotionRepo
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PromotionRepo.class);
+
+    private final JdbcTemplate template;
+
+    @Autowired
+    public PromotionRepo(NamedParameterJdbcTemplate template)
+    {
+        this.template = template.getJdbcTemplate();
+    }
+
+    //language=sql
+    private final static String PROMOTION_CURRENT =
+            "SELECT id, kind, movie_id, role, amount, buy_quantity, free_quantity, starts_at, ends_at " +
+                    "FROM billing.promotion " +
+                    "WHERE ends_at IS NULL OR ends_at > ?;";
+
+    /**
+     * @return every promotion that has not ended yet; rows with an unknown kind are skipped
+     */
+    public List<PromotionRule> promotionCurrent(Timestamp now)
+    {
+        List<PromotionRule> rules = new ArrayList<>();
+
+        this.template.query(PROMOTION_CURRENT, ps -> ps.setTimestamp(1, now), rs -> {
+            PromotionRule rule = mapRule(rs);
+
+            if (rule != null) {
+                rules.add(rule);
+            }
+        });
+
+        return rules;
+    }
+
+    private static PromotionRule mapRule(ResultSet rs) throws SQLException
+    {
+        PromotionKind kind;
+
+        try {
+            kind = PromotionKind.valueOf(rs.getString(2));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Ignoring promotion {} with unknown kind {}", rs.getLong(1), rs.getString(2));
+            return null;
+        }
+
+        long      movieId  = rs.getLong(3);
+        boolean   anyMovie = rs.wasNull();
+        Timestamp startsAt = rs.getTimestamp(8);
+        Timestamp endsAt   = rs.getTimestamp(9);
+
+        return new PromotionRule(
+                rs.getLong(1),
+                kind,
+                anyMovie ? null : movieId,
+                rs.getString(4),
+                rs.getBigDecimal(5),
+                rs.getInt(6),
+                rs.getInt(7),
+                startsAt == null ? Long.MIN_VALUE : startsAt.getTime(),
+                endsAt == null ? Long.MAX_VALUE : endsAt.getTime()
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.slowquery.ConnectionWaitDataSource;
+import com.github.klefstad_teaching.cs122b.billing.slowquery.SlowQueryLog;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Span;
+
+/**
+ * Brackets one {@link BillingRepo} statement: closes its trace span and hands it to the slow-query
+ * log when it ran past the threshold. Binds are only read on that slow path.
+ */
+final class StatementScope implements AutoCloseable
+{
+    static final StatementScope NOOP = new StatementScope(null, Span.NOOP, null, null, null);
+
+    private final SlowQueryLog slowQueries;
+    private final Span         span;
+    private final String       name;
+    private final Long         userId;
+    private final Object[]     binds;
+    private final long         startNanos;
+    private final long         startWaitNanos;
+
+    private long rows = -1;
+
+    StatementScope(SlowQueryLog slowQueries, Span span, String name, Long userId, Object[] binds)
+    {
+        this.slowQueries = slowQueries;
+        this.span = span;
+        this.name = name;
+        this.userId = userId;
+        this.binds = binds;
+        this.startNanos = System.nanoTime();
+        this.startWaitNanos = slowQueries == null ? 0 : ConnectionWaitDataSource.waitedNanos();
+    }
+
+    Span span()
+    {
+        return span;
+    }
+
+    StatementScope rows(long rows)
+    {
+        if (this != NOOP) {
+            this.rows = rows;
+            span.attribute("db.rows", rows);
+        }
+
+        return this;
+    }
+
+    @Override
+    public void close()
+    {
+        if (this == NOOP) {
+            return;
+        }
+
+        span.close();
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        if (slowQueries.isEnabled() && elapsedNanos >= slowQueries.getThresholdNanos()) {
+            long waitNanos = ConnectionWaitDataSource.waitedNanos() - startWaitNanos;
+            slowQueries.record(name, userId, binds, rows, elapsedNanos, waitNanos);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentSucceeded;
+import com.github.klefstad_teaching.cs122b.billing.payment.WebhookOutcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class WebhookEventRepo
+{
+    private final JdbcTemplate template;
+
+    @Autowired
+    public WebhookEventRepo(NamedParameterJdbcTemplate template)
+    {
+        this.template = template.getJdbcTemplate();
+    }
+
+    //language=sql
+    private final static String EVENT_INSERT =
+            "INSERT IGNORE INTO billing.webhook_event (event_id, payment_intent_id, user_id, amount_received) " +
+                    "VALUES (?, ?, ?, ?);";
+
+    //language=sql
+    private final static String EVENT_PENDING =
+            "SELECT event_id, payment_intent_id, user_id, amount_received " +
+                    "FROM billing.webhook_event " +
+                    "WHERE outcome IS NULL " +
+                    "ORDER BY received_at " +
+                    "LIMIT ?;";
+
+    //language=sql
+    private final static String EVENT_PENDING_COUNT =
+            "SELECT COUNT(*) " +
+                    "FROM billing.webhook_event " +
+                    "WHERE outcome IS NULL;";
+
+    //language=sql
+    private final static String EVENT_CLAIM =
+            "SELECT event_id " +
+                    "FROM billing.webhook_event " +
+                    "WHERE event_id = ? AND outcome IS NULL " +
+                    "FOR UPDATE;";
+
+    //language=sql
+    private final static String EVENT_OUTCOME =
+            "UPDATE billing.webhook_event " +
+                    "SET outcome = ? " +
+                    "WHERE event_id = ?;";
+
+    //language=sql
+    private final static String EVENT_ATTEMPT =
+            "UPDATE billing.webhook_event " +
+                    "SET attempts = attempts + 1, " +
+                    "    outcome  = IF(attempts >= ?, ?, NULL) " +
+                    "WHERE event_id = ? AND outcome IS NULL;";
+
+    //language=sql
+    private final static String INTENT_OUTCOME =
+            "SELECT outcome " +
+                    "FROM billing.webhook_event " +
+                    "WHERE payment_intent_id = ? AND user_id = ? AND outcome IS NOT NULL " +
+                    "ORDER BY received_at DESC " +
+                    "LIMIT 1;";
+
+    /**
+     * Stores the event as pending, before the webhook is acknowledged.
+     *
+     * @return false for a redelivery of an event id already stored
+     */
+    public boolean eventRecord(PaymentSucceeded event)
+    {
+        return this.template.update(EVENT_INSERT, ps -> {
+            ps.setString(1, event.getEventId());
+            ps.setString(2, event.getPaymentIntentId());
+            ps.setLong(3, event.getUserId());
+            ps.setLong(4, event.getAmountReceived());
+        }) > 0;
+    }
+
+    /**
+     * @return up to {@code limit} events without an outcome, oldest first
+     */
+    public List<PaymentSucceeded> eventPending(int limit)
+    {
+        return this.template.query(
+                EVENT_PENDING,
+                ps -> ps.setInt(1, limit),
+                (rs, rowNum) -> new PaymentSucceeded(rs.getString("event_id"),
+                                                     rs.getString("payment_intent_id"),
+                                                     rs.getLong("user_id"),
+                                                     rs.getLong("amount_received"))
+        );
+    }
+
+    public int eventPendingCount()
+    {
+        Integer count = this.template.queryForObject(EVENT_PENDING_COUNT, Integer.class);
+
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Locks the event row until the surrounding transaction ends, so only one node completes it.
+     *
+     * @return false when another node has already settled it
+     */
+    public boolean eventClaim(String eventId)
+    {
+        return !this.template.query(
+                EVENT_CLAIM,
+                ps -> ps.setString(1, eventId),
+                (rs, rowNum) -> rs.getString(1)
+        ).isEmpty();
+    }
+
+    public void eventOutcome(String eventId, WebhookOutcome outcome)
+    {
+        this.template.update(EVENT_OUTCOME, ps -> {
+            ps.setString(1, outcome.name());
+            ps.setString(2, eventId);
+        });
+    }
+
+    /**
+     * Counts a failed attempt at completing the event, settling it as {@link WebhookOutcome#FAILED}
+     * once {@code maxAttempts} have failed. Until then it stays pending and is retried.
+     */
+    public void eventAttempt(String eventId, int maxAttempts)
+    {
+        this.template.update(EVENT_ATTEMPT, ps -> {
+            // MySQL assigns left to right, so IF() already sees the incremented attempts
+            ps.setInt(1, maxAttempts);
+            ps.setString(2, WebhookOutcome.FAILED.name());
+            ps.setString(3, eventId);
+        });
+    }
+
+    /**
+     * @return how the webhook settled the user's payment intent, or null if it has not yet
+     */
+    public WebhookOutcome intentOutcome(String paymentIntentId, Long userId)
+    {
+        List<String> outcomes = this.template.query(
+                INTENT_OUTCOME,
+                ps -> {
+                    ps.setString(1, paymentIntentId);
+                    ps.setLong(2, userId);
+                },
+                (rs, rowNum) -> rs.getString(1)
+        );
+
+        return outcomes.isEmpty() ? null : WebhookOutcome.valueOf(outcomes.get(0));
+    }
+}
@@ -1,50 +1,52 @@
 package com.github.klefstad_teaching.cs122b.billing.rest;
 
+import com.github.klefstad_teaching.cs122b.billing.cart.CartStore;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
 import com.github.klefstad_teaching.cs122b.billing.model.request.CartInsertUpdateRequest;
 import com.github.klefstad_teaching.cs122b.billing.model.response.ResultResponse;
 import com.github.klefstad_teaching.cs122b.billing.model.response.ListRetrieveResponse;
-import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionEngine;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
 import com.github.klefstad_teaching.cs122b.billing.util.Validate;
 import com.github.klefstad_teaching.cs122b.core.error.ResultError;
-import com.github.klefstad_teaching.cs122b.core.security.JWTManager;
-import com.nimbusds.jwt.SignedJWT;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import com.github.klefstad_teaching.cs122b.core.result.BillingResults;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.ParseException;
 import java.util.List;
 
 @RestController
 public class CartController
 {
-    private final BillingRepo repo;
-    private final Validate    validate;
+    private final CartStore       carts;
+    private final Validate        validate;
+    private final PromotionEngine promotions;
+    private final Tracer          tracer;
 
     @Autowired
-    public CartController(BillingRepo repo, Validate validate)
+    public CartController(CartStore carts, Validate validate, PromotionEngine promotions, Tracer tracer)
     {
-        this.repo = repo;
+        this.carts = carts;
         this.validate = validate;
+        this.promotions = promotions;
+        this.tracer = tracer;
     }
 
     @PostMapping("/cart/insert")
-    public ResponseEntity<ResultResponse> cartInsert(@AuthenticationPrincipal SignedJWT user,
-                                                     @RequestBody CartInsertUpdateRequest request) throws ParseException
+    public ResponseEntity<ResultResponse> cartInsert(BillingPrincipal user,
+                                                     @RequestBody CartInsertUpdateRequest request)
     {
         validate.checkQuantity(request.getQuantity());
 
-        // List<String> claims = user.getJWTClaimsSet().getStringListClaim(JWTManager.CLAIM_ROLES);
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
+        Long userId = user.getUserId();
 
         try {
-            repo.cartInsert(request, userId);
+            carts.cartInsert(request, userId);
         } catch (DuplicateKeyException e) {
             throw new ResultError(BillingResults.CART_ITEM_EXISTS);
         }
@@ -55,14 +57,14 @@ public class CartController
     }
 
     @PostMapping("/cart/update")
-    public ResponseEntity<ResultResponse> cartUpdate(@AuthenticationPrincipal SignedJWT user,
-                                                     @RequestBody CartInsertUpdateRequest request) throws ParseException
+    public ResponseEntity<ResultResponse> cartUpdate(BillingPrincipal user,
+                                                     @RequestBody CartInsertUpdateRequest request)
     {
         validate.checkQuantity(request.getQuantity());
 
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
+        Long userId = user.getUserId();
 
-        Integer numRowsAffected = repo.cartUpdate(request, userId);
+        Integer numRowsAffected = carts.cartUpdate(request, userId);
 
         if (numRowsAffected == 0) {
             throw new ResultError(BillingResults.CART_ITEM_DOES_NOT_EXIST);
@@ -74,12 +76,12 @@ public class CartController
     }
 
     @DeleteMapping("/cart/delete/{movieId}")
-    public ResponseEntity<ResultResponse> cartDelete(@AuthenticationPrincipal SignedJWT user,
-                                                     @PathVariable Long movieId) throws ParseException
+    public ResponseEntity<ResultResponse> cartDelete(BillingPrincipal user,
+                                                     @PathVariable Long movieId)
     {
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
+        Long userId = user.getUserId();
 
-        Integer numRowsAffected = repo.cartDelete(movieId, userId);
+        Integer numRowsAffected = carts.cartDelete(movieId, userId);
 
         if (numRowsAffected == 0) {
             throw new ResultError(BillingResults.CART_ITEM_DOES_NOT_EXIST);
@@ -91,19 +93,15 @@ public class CartController
     }
 
     @GetMapping("/cart/retrieve")
-    public ResponseEntity<ListRetrieveResponse> cartRetrieve(@AuthenticationPrincipal SignedJWT user)
-            throws ParseException
+    public ResponseEntity<ListRetrieveResponse> cartRetrieve(BillingPrincipal user)
     {
-        List<String> claims = user.getJWTClaimsSet().getStringListClaim(JWTManager.CLAIM_ROLES);
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
+        Long userId = user.getUserId();
 
-        List<Item> items = repo.cartRetrieve(claims.contains("PREMIUM"), userId);
+        List<Item> items = promotions.apply(carts.cartRetrieve(user.isPremium(), userId), user);
 
-        BigDecimal total = BigDecimal.valueOf(0).setScale(2, RoundingMode.DOWN);
+        BigDecimal total = Pricing.total(items);
 
-        for (Item item : items) {
-            total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-        }
+        tracer.current().attribute("cart.size", items.size());
 
         ListRetrieveResponse response;
 
@@ -121,11 +119,10 @@ public class CartController
     }
 
     @PostMapping("/cart/clear")
-    public ResponseEntity<ResultResponse> cartClear(@AuthenticationPrincipal SignedJWT user)
-            throws ParseException
+    public ResponseEntity<ResultResponse> cartClear(BillingPrincipal user)
     {
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
-        Integer numRowsAffected = repo.cartClear(userId);
+        Long userId = user.getUserId();
+        Integer numRowsAffected = carts.cartClear(userId);
 
         ResultResponse response;
 
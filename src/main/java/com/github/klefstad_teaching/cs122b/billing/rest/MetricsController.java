@@ -0,0 +1,47 @@
+package com.github.klefstad_teaching.cs122b.billing.rest;
+
+import com.github.klefstad_teaching.cs122b.billing.metrics.LatencyMetrics;
+import com.github.klefstad_teaching.cs122b.billing.outbox.OutboxRelay;
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class MetricsController
+{
+    private final LatencyMetrics latencyMetrics;
+    private final OutboxRelay    outboxRelay;
+
+    @Autowired
+    public MetricsController(LatencyMetrics latencyMetrics, OutboxRelay outboxRelay)
+    {
+        this.latencyMetrics = latencyMetrics;
+        this.outboxRelay = outboxRelay;
+    }
+
+    @GetMapping("/metrics/latency")
+    public ResponseEntity<Map<String, Map<String, Map<String, Object>>>> latency(BillingPrincipal user)
+    {
+        if (!user.isAdmin()) {
+            throw new ResultError(BillingServiceResults.ADMIN_REQUIRED);
+        }
+
+        return ResponseEntity.ok(latencyMetrics.snapshot());
+    }
+
+    @GetMapping("/metrics/outbox")
+    public ResponseEntity<Map<String, Object>> outbox(BillingPrincipal user)
+    {
+        if (!user.isAdmin()) {
+            throw new ResultError(BillingServiceResults.ADMIN_REQUIRED);
+        }
+
+        return ResponseEntity.ok(outboxRelay.metrics());
+    }
+}
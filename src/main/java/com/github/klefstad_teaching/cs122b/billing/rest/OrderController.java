@@ -1,5 +1,9 @@
 package com.github.klefstad_teaching.cs122b.billing.rest;
 
+import com.github.klefstad_teaching.cs122b.billing.cart.CartStore;
+import com.github.klefstad_teaching.cs122b.billing.config.CheckoutConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.WebhookConfig;
+import com.github.klefstad_teaching.cs122b.billing.logging.RequestLogContext;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
 import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
 import com.github.klefstad_teaching.cs122b.billing.model.request.OrderCompleteRequest;
@@ -7,55 +11,88 @@ import com.github.klefstad_teaching.cs122b.billing.model.response.ListRetrieveRe
 import com.github.klefstad_teaching.cs122b.billing.model.response.OrderListResponse;
 import com.github.klefstad_teaching.cs122b.billing.model.response.OrderPaymentResponse;
 import com.github.klefstad_teaching.cs122b.billing.model.response.ResultResponse;
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentGateway;
+import com.github.klefstad_teaching.cs122b.billing.payment.SnapshotOrderWriter;
+import com.github.klefstad_teaching.cs122b.billing.payment.WebhookOutcome;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionEngine;
 import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.repo.PaymentSnapshot;
+import com.github.klefstad_teaching.cs122b.billing.repo.WebhookEventRepo;
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.billing.stock.SoldOutException;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import com.github.klefstad_teaching.cs122b.billing.util.Pricing;
 import com.github.klefstad_teaching.cs122b.billing.util.Validate;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
 import com.github.klefstad_teaching.cs122b.core.result.BillingResults;
-import com.github.klefstad_teaching.cs122b.core.security.JWTManager;
-import com.nimbusds.jwt.SignedJWT;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
-import com.stripe.param.PaymentIntentCreateParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 @RestController
 public class OrderController
 {
-    private final BillingRepo repo;
-    private final Validate    validate;
+    private static final Logger LOG = LoggerFactory.getLogger(OrderController.class);
+
+    private static final int DEFAULT_ORDER_DETAILS = 5;
+    private static final int MAX_ORDER_DETAILS     = 50;
+
+    private final BillingRepo         repo;
+    private final CartStore           carts;
+    private final Validate            validate;
+    private final PaymentGateway      gateway;
+    private final PromotionEngine     promotions;
+    private final Tracer              tracer;
+    private final CheckoutConfig      checkout;
+    private final WebhookConfig       webhook;
+    private final WebhookEventRepo    webhookEvents;
+    private final SnapshotOrderWriter orders;
 
     @Autowired
-    public OrderController(BillingRepo repo, Validate validate)
+    public OrderController(BillingRepo repo, CartStore carts, Validate validate, PaymentGateway gateway,
+                           PromotionEngine promotions, Tracer tracer, CheckoutConfig checkout,
+                           WebhookConfig webhook, WebhookEventRepo webhookEvents, SnapshotOrderWriter orders)
     {
         this.repo = repo;
+        this.carts = carts;
         this.validate = validate;
+        this.gateway = gateway;
+        this.promotions = promotions;
+        this.tracer = tracer;
+        this.checkout = checkout;
+        this.webhook = webhook;
+        this.webhookEvents = webhookEvents;
+        this.orders = orders;
     }
 
     @GetMapping("/order/payment")
-    public ResponseEntity<OrderPaymentResponse> orderPayment(@AuthenticationPrincipal SignedJWT user)
-            throws ParseException, StripeException
+    public ResponseEntity<OrderPaymentResponse> orderPayment(BillingPrincipal user)
+            throws StripeException
     {
-        List<String> claims = user.getJWTClaimsSet().getStringListClaim(JWTManager.CLAIM_ROLES);
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
-        List<Item> items = repo.cartRetrieve(claims.contains("PREMIUM"), userId);
+        Long userId = user.getUserId();
+        List<Item> items = promotions.apply(carts.cartRetrieve(user.isPremium(), userId), user);
+
+        tracer.current().attribute("cart.size", items.size());
 
         OrderPaymentResponse response;
 
         if (items.size() == 0) {
             response = new OrderPaymentResponse().setResult(BillingResults.CART_EMPTY);
         } else {
-            BigDecimal total = BigDecimal.valueOf(0).setScale(2, RoundingMode.DOWN);
+            BigDecimal total = Pricing.total(items);
             StringBuilder desc = new StringBuilder();
 
             for (Item item : items) {
-                total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
                 desc.append(item.getMovieTitle() + ", ");
             }
 
@@ -63,22 +100,19 @@ public class OrderController
             String description = desc.substring(0, desc.length() - 2);
             String userIdString = Long.toString(userId);
 
-            PaymentIntentCreateParams paymentIntentCreateParams =
-                    PaymentIntentCreateParams
-                            .builder()
-                            .setCurrency("USD")
-                            .setDescription(description)
-                            .setAmount(amountInTotalCents)
-                            .putMetadata("userId", userIdString)
-                            .setAutomaticPaymentMethods(
-                                    PaymentIntentCreateParams.AutomaticPaymentMethods
-                                            .builder()
-                                            .setEnabled(true)
-                                            .build()
-                            )
-                            .build();
-
-            PaymentIntent paymentIntent = PaymentIntent.create(paymentIntentCreateParams);
+            tracer.current().attribute("order.total_cents", amountInTotalCents);
+
+            PaymentIntent paymentIntent = gateway.createPaymentIntent(amountInTotalCents, description, userIdString);
+
+            if (checkout.getSnapshotEnabled()) {
+                try {
+                    // Stock is reserved here, before the client has the secret it confirms the intent with
+                    orders.open(paymentIntent.getId(), userId, amountInTotalCents, items);
+                } catch (RuntimeException e) {
+                    cancel(paymentIntent.getId());
+                    throw e;
+                }
+            }
 
             String paymentIntentId = paymentIntent.getId();
             String clientSecret = paymentIntent.getClientSecret();
@@ -93,20 +127,86 @@ public class OrderController
     }
 
     @PostMapping("/order/complete")
-    public ResponseEntity<ResultResponse> orderComplete(@AuthenticationPrincipal SignedJWT user,
+    public ResponseEntity<ResultResponse> orderComplete(BillingPrincipal user,
                                                         @RequestBody OrderCompleteRequest request)
-            throws ParseException, StripeException
+            throws StripeException
     {
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(request.getPaymentIntentId());
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
-        List<String> claims = user.getJWTClaimsSet().getStringListClaim(JWTManager.CLAIM_ROLES);
+        if (webhook.getEnabled()) {
+            return orderStatus(user.getUserId(), request.getPaymentIntentId());
+        }
+
+        PaymentIntent paymentIntent = gateway.retrievePaymentIntent(request.getPaymentIntentId());
+        Long userId = user.getUserId();
 
         validate.checkPaymentStatus(paymentIntent);
         validate.checkCorrectUser(paymentIntent, Long.toString(userId));
 
-        List<Item> items = repo.cartRetrieve(claims.contains("PREMIUM"), userId);
+        if (checkout.getSnapshotEnabled()) {
+            PaymentSnapshot snapshot = repo.snapshotRetrieve(request.getPaymentIntentId(), userId);
+
+            if (snapshot == null) {
+                throw new ResultError(BillingServiceResults.PAYMENT_SNAPSHOT_NOT_FOUND);
+            }
+
+            validate.checkPaidAmount(paymentIntent, snapshot.getTotalCents());
+            tracer.current().attribute("cart.size", snapshot.getItems().size());
 
-        repo.orderComplete(items, userId);
+            boolean completed;
+
+            try {
+                completed = orders.complete(snapshot);
+            } catch (SoldOutException e) {
+                // Only a snapshot stored without a reservation can get here, and it has been paid for
+                orders.refund(snapshot.getPaymentIntentId(), snapshot.getUserId());
+                throw e;
+            }
+
+            if (!completed) {
+                throw new ResultError(BillingServiceResults.PAYMENT_SNAPSHOT_NOT_FOUND);
+            }
+        } else {
+            List<Item> items = promotions.apply(carts.cartRetrieve(user.isPremium(), userId), user);
+
+            tracer.current().attribute("cart.size", items.size());
+
+            repo.orderComplete(items, userId);
+            carts.cartClear(userId);
+        }
+
+        ResultResponse response = new ResultResponse().setResult(BillingResults.ORDER_COMPLETED);
+
+        return ResponseEntity.status(response.getResult().status()).body(response);
+    }
+
+    private void cancel(String paymentIntentId)
+    {
+        try {
+            gateway.cancelPaymentIntent(paymentIntentId);
+        } catch (StripeException e) {
+            // The client never received the intent's secret, so it cannot be paid either way
+            LOG.warn("Could not cancel payment intent {}", paymentIntentId, e);
+        }
+    }
+
+    /**
+     * With webhook completion the order is written when Stripe reports the payment, so completing
+     * only reports how that went; Stripe is not called.
+     */
+    private ResponseEntity<ResultResponse> orderStatus(Long userId, String paymentIntentId)
+    {
+        WebhookOutcome outcome = webhookEvents.intentOutcome(paymentIntentId, userId);
+
+        if (outcome == null) {
+            throw new ResultError(BillingServiceResults.ORDER_PENDING);
+        } else if (outcome == WebhookOutcome.AMOUNT_MISMATCH) {
+            throw new ResultError(BillingServiceResults.PAYMENT_AMOUNT_MISMATCH);
+        } else if (outcome == WebhookOutcome.NO_SNAPSHOT) {
+            throw new ResultError(BillingServiceResults.PAYMENT_SNAPSHOT_NOT_FOUND);
+        } else if (outcome == WebhookOutcome.SOLD_OUT) {
+            throw new ResultError(BillingServiceResults.SOLD_OUT);
+        } else if (outcome == WebhookOutcome.FAILED) {
+            throw new ResultError(BillingServiceResults.ORDER_FAILED);
+        }
 
         ResultResponse response = new ResultResponse().setResult(BillingResults.ORDER_COMPLETED);
 
@@ -114,10 +214,9 @@ public class OrderController
     }
 
     @GetMapping("/order/list")
-    public ResponseEntity<OrderListResponse> orderList(@AuthenticationPrincipal SignedJWT user)
-            throws ParseException
+    public ResponseEntity<OrderListResponse> orderList(BillingPrincipal user)
     {
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
+        Long userId = user.getUserId();
         List<Sale> sales = repo.orderList(userId);
 
         OrderListResponse response;
@@ -131,21 +230,58 @@ public class OrderController
         return ResponseEntity.status(response.getResult().status()).body(response);
     }
 
+    /**
+     * Details of several orders in one request: the given {@code saleIds}, or otherwise the
+     * {@code latest} orders (5 by default). Each sale carries its items and the total it was charged.
+     */
+    @GetMapping("/order/details")
+    public ResponseEntity<OrderListResponse> orderDetails(BillingPrincipal user,
+                                                          @RequestParam(required = false) List<Long> saleIds,
+                                                          @RequestParam(required = false) Integer latest)
+    {
+        Long userId = user.getUserId();
+        List<Long> ids;
+
+        if (saleIds != null) {
+            ids = new ArrayList<>(new LinkedHashSet<>(saleIds));
+
+            if (ids.isEmpty() || ids.size() > MAX_ORDER_DETAILS) {
+                throw new ResultError(BillingServiceResults.ORDER_DETAILS_LIMIT);
+            }
+        } else {
+            int count = latest == null ? DEFAULT_ORDER_DETAILS : latest;
+
+            if (count < 1 || count > MAX_ORDER_DETAILS) {
+                throw new ResultError(BillingServiceResults.ORDER_DETAILS_LIMIT);
+            }
+
+            ids = repo.orderLatestIds(userId, count);
+        }
+
+        List<Sale> sales = repo.orderDetails(user.isPremium(), ids, userId);
+
+        OrderListResponse response;
+
+        if (sales.size() == 0) {
+            response = new OrderListResponse().setResult(BillingResults.ORDER_DETAIL_NOT_FOUND);
+        } else {
+            response = new OrderListResponse().setResult(BillingResults.ORDER_DETAIL_FOUND).setSales(sales);
+        }
+
+        return ResponseEntity.status(response.getResult().status()).body(response);
+    }
+
     @GetMapping("/order/detail/{saleId}")
-    public ResponseEntity<ListRetrieveResponse> orderDetail(@AuthenticationPrincipal SignedJWT user,
+    public ResponseEntity<ListRetrieveResponse> orderDetail(BillingPrincipal user,
                                                             @PathVariable Long saleId)
-            throws ParseException
     {
-        List<String> claims = user.getJWTClaimsSet().getStringListClaim(JWTManager.CLAIM_ROLES);
-        Long userId = user.getJWTClaimsSet().getLongClaim(JWTManager.CLAIM_ID);
+        Long userId = user.getUserId();
 
-        List<Item> items = repo.orderDetail(claims.contains("PREMIUM"), saleId, userId);
+        RequestLogContext.sale(saleId);
 
-        BigDecimal total = BigDecimal.valueOf(0).setScale(2, RoundingMode.DOWN);
+        List<Item> items = repo.orderDetail(user.isPremium(), saleId, userId);
 
-        for (Item item : items) {
-            total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-        }
+        BigDecimal total = Pricing.total(items);
 
         ListRetrieveResponse response;
 
@@ -0,0 +1,51 @@
+package com.github.klefstad_teaching.cs122b.billing.rest;
+
+import com.github.klefstad_teaching.cs122b.billing.catalog.PriceUploadResult;
+import com.github.klefstad_teaching.cs122b.billing.catalog.PriceUploader;
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+public class PriceController
+{
+    private final PriceUploader uploader;
+
+    @Autowired
+    public PriceController(PriceUploader uploader)
+    {
+        this.uploader = uploader;
+    }
+
+    /**
+     * Replaces prices from a {@code movie_id,unit_price,premium_discount} CSV request body. The body
+     * is read straight from the request stream rather than bound, so uploads of any size are accepted.
+     */
+    @PostMapping("/prices/upload")
+    public ResponseEntity<PriceUploadResult> upload(BillingPrincipal user, InputStream body)
+        throws IOException
+    {
+        if (!user.isAdmin()) {
+            throw new ResultError(BillingServiceResults.ADMIN_REQUIRED);
+        }
+
+        if (!uploader.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        PriceUploadResult result = uploader.upload(body);
+
+        if (result == null) {
+            throw new ResultError(BillingServiceResults.PRICE_UPLOAD_IN_PROGRESS);
+        }
+
+        return result.isApplied() ? ResponseEntity.ok(result) : ResponseEntity.badRequest().body(result);
+    }
+}
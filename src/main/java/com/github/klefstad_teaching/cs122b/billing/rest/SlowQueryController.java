@@ -0,0 +1,35 @@
+package com.github.klefstad_teaching.cs122b.billing.rest;
+
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.billing.slowquery.SlowQuery;
+import com.github.klefstad_teaching.cs122b.billing.slowquery.SlowQueryLog;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class SlowQueryController
+{
+    private final SlowQueryLog slowQueries;
+
+    @Autowired
+    public SlowQueryController(SlowQueryLog slowQueries)
+    {
+        this.slowQueries = slowQueries;
+    }
+
+    @GetMapping("/metrics/slow-queries")
+    public ResponseEntity<List<SlowQuery>> slowQueries(BillingPrincipal user)
+    {
+        if (!user.isAdmin()) {
+            throw new ResultError(BillingServiceResults.ADMIN_REQUIRED);
+        }
+
+        return ResponseEntity.ok(slowQueries.recent());
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.klefstad_teaching.cs122b.billing.rest;
+
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.billing.tracing.FileSpanExporter;
+import com.github.klefstad_teaching.cs122b.billing.tracing.InMemorySpanExporter;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Span;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class TraceController
+{
+    private final Tracer tracer;
+
+    @Autowired
+    public TraceController(Tracer tracer)
+    {
+        this.tracer = tracer;
+    }
+
+    @GetMapping("/traces")
+    public ResponseEntity<List<Map<String, Object>>> traces(BillingPrincipal user)
+    {
+        InMemorySpanExporter memory = memoryExporter(user);
+
+        if (memory == null) {
+            return ResponseEntity.ok(Collections.emptyList());
+        }
+
+        List<Map<String, Object>> summaries = new ArrayList<>();
+
+        for (List<Span> trace : memory.traces()) {
+            Span                root    = trace.get(0);
+            Map<String, Object> summary = new LinkedHashMap<>();
+
+            summary.put("traceId", root.getTraceId());
+            summary.put("name", root.getName());
+            summary.put("startEpochMicros", root.getStartEpochMicros());
+            summary.put("durationMicros", root.getDurationNanos() / 1000.0);
+            summary.put("spans", trace.size());
+            summary.put("attributes", root.getAttributes());
+
+            summaries.add(summary);
+        }
+
+        return ResponseEntity.ok(summaries);
+    }
+
+    @GetMapping("/traces/{traceId}")
+    public ResponseEntity<List<Map<String, Object>>> trace(BillingPrincipal user,
+                                                           @PathVariable String traceId)
+    {
+        InMemorySpanExporter memory = memoryExporter(user);
+        List<Span>           trace  = memory == null ? null : memory.trace(traceId);
+
+        if (trace == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        List<Map<String, Object>> spans = new ArrayList<>();
+
+        for (Span span : trace) {
+            spans.add(FileSpanExporter.toJson(span));
+        }
+
+        return ResponseEntity.ok(spans);
+    }
+
+    private InMemorySpanExporter memoryExporter(BillingPrincipal user)
+    {
+        if (!user.isAdmin()) {
+            throw new ResultError(BillingServiceResults.ADMIN_REQUIRED);
+        }
+
+        return tracer.getMemoryExporter();
+    }
+}
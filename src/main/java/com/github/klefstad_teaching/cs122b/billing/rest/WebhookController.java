@@ -0,0 +1,140 @@
+package com.github.klefstad_teaching.cs122b.billing.rest;
+
+import com.github.klefstad_teaching.cs122b.billing.config.WebhookConfig;
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentSucceeded;
+import com.github.klefstad_teaching.cs122b.billing.payment.WebhookSimulator;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.repo.PaymentSnapshot;
+import com.github.klefstad_teaching.cs122b.billing.repo.WebhookEventRepo;
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+import com.google.gson.JsonParseException;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.Webhook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+public class WebhookController
+{
+    /** Called by Stripe, so it is left out of JWT authentication; the signature authenticates it. */
+    public static final String STRIPE_PATH = "/webhook/stripe";
+
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookController.class);
+
+    private static final String SIGNATURE_HEADER = "Stripe-Signature";
+
+    private final WebhookConfig    config;
+    private final WebhookEventRepo events;
+    private final BillingRepo      repo;
+
+    @Autowired
+    public WebhookController(WebhookConfig config, WebhookEventRepo events, BillingRepo repo)
+    {
+        this.config = config;
+        this.events = events;
+        this.repo = repo;
+    }
+
+    @PostMapping(STRIPE_PATH)
+    public ResponseEntity<Void> stripe(@RequestBody String payload,
+                                       @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature)
+    {
+        if (!config.getEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (signature == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Event event;
+
+        try {
+            event = Webhook.constructEvent(payload, signature, config.getSigningSecret(), config.getToleranceSeconds());
+        } catch (SignatureVerificationException | JsonParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Stripe only needs a 2xx for event types this service does not act on
+        if (!PaymentSucceeded.EVENT_TYPE.equals(event.getType())) {
+            return ResponseEntity.ok().build();
+        }
+
+        PaymentIntent intent = paymentIntent(event);
+        String        userId = intent == null ? null : intent.getMetadata().get("userId");
+
+        if (userId == null) {
+            LOG.warn("Ignoring payment event {} without a billing user", event.getId());
+            return ResponseEntity.ok().build();
+        }
+
+        PaymentSucceeded succeeded =
+            new PaymentSucceeded(event.getId(), intent.getId(), Long.parseLong(userId), intent.getAmountReceived());
+
+        // Stored before the 2xx, so an acknowledged event survives a restart; a redelivery is a no-op
+        try {
+            events.eventRecord(succeeded);
+        } catch (DataAccessException e) {
+            LOG.warn("Could not store payment event {}, asking Stripe to redeliver it", event.getId(), e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Local stand-in for Stripe: signs a succeeded event for the caller's pending payment intent and
+     * feeds it through the real webhook endpoint. Only available with the simulator enabled.
+     */
+    @PostMapping("/webhook/simulate/{paymentIntentId}")
+    public ResponseEntity<Void> simulate(BillingPrincipal user,
+                                         @PathVariable String paymentIntentId)
+    {
+        if (!config.getEnabled() || !config.getSimulatorEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        PaymentSnapshot snapshot = repo.snapshotRetrieve(paymentIntentId, user.getUserId());
+
+        if (snapshot == null) {
+            throw new ResultError(BillingServiceResults.PAYMENT_SNAPSHOT_NOT_FOUND);
+        }
+
+        long   now     = System.currentTimeMillis() / 1000;
+        String payload = WebhookSimulator.paymentIntentSucceeded(
+            "evt_simulated_" + UUID.randomUUID().toString().replace("-", ""),
+            paymentIntentId, user.getUserId(), snapshot.getTotalCents(), now);
+
+        return stripe(payload, WebhookSimulator.signature(payload, config.getSigningSecret(), now));
+    }
+
+    private static PaymentIntent paymentIntent(Event event)
+    {
+        EventDataObjectDeserializer data = event.getDataObjectDeserializer();
+
+        try {
+            // Falls back to a lenient parse when the event was rendered for another API version
+            return (PaymentIntent) (data.getObject().isPresent() ? data.getObject().get() : data.deserializeUnsafe());
+        } catch (EventDataObjectDeserializationException | ClassCastException e) {
+            LOG.warn("Could not read the payment intent of event {}", event.getId(), e);
+            return null;
+        }
+    }
+}
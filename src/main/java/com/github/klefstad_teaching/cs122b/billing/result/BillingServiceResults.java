@@ -0,0 +1,45 @@
+package com.github.klefstad_teaching.cs122b.billing.result;
+
+import com.github.klefstad_teaching.cs122b.core.result.Result;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Results specific to this service that are not part of the shared {@code BillingResults}. Codes
+ * start at 3900 to stay clear of the core billing range.
+ */
+public final class BillingServiceResults
+{
+    public static final Result RATE_LIMITED =
+        new Result(3900, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later");
+
+    public static final Result OVERLOADED =
+        new Result(3901, HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, try again later");
+
+    public static final Result ADMIN_REQUIRED =
+        new Result(3902, HttpStatus.FORBIDDEN, "This endpoint requires the Admin role");
+
+    public static final Result PAYMENT_SNAPSHOT_NOT_FOUND =
+        new Result(3903, HttpStatus.CONFLICT, "No unfinished order exists for this payment intent");
+
+    public static final Result PAYMENT_AMOUNT_MISMATCH =
+        new Result(3904, HttpStatus.CONFLICT, "Amount paid does not match the order total");
+
+    public static final Result ORDER_PENDING =
+        new Result(3905, HttpStatus.ACCEPTED, "Payment has not been confirmed yet, try again shortly");
+
+    public static final Result PRICE_UPLOAD_IN_PROGRESS =
+        new Result(3906, HttpStatus.CONFLICT, "Another price upload is in progress");
+
+    public static final Result SOLD_OUT =
+        new Result(3907, HttpStatus.CONFLICT, "Not enough stock is left for this order");
+
+    public static final Result ORDER_DETAILS_LIMIT =
+        new Result(3908, HttpStatus.BAD_REQUEST, "Between 1 and 50 orders can be requested at once");
+
+    public static final Result ORDER_FAILED =
+        new Result(3909, HttpStatus.INTERNAL_SERVER_ERROR, "The payment was received but the order could not be written");
+
+    private BillingServiceResults()
+    {
+    }
+}
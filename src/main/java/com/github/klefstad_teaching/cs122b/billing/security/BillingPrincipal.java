@@ -0,0 +1,40 @@
+package com.github.klefstad_teaching.cs122b.billing.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+public final class BillingPrincipal {
+    private final long userId;
+    private final boolean premium;
+    private final Set<String> roles;
+
+    public BillingPrincipal(long userId, Collection<String> roles) {
+        TreeSet<String> copy = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+        if (roles != null) {
+            copy.addAll(roles);
+        }
+
+        this.userId = userId;
+        this.premium = copy.contains("PREMIUM");
+        this.roles = Collections.unmodifiableSet(copy);
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public boolean isPremium() {
+        return premium;
+    }
+
+    public boolean isAdmin() {
+        return roles.contains("ADMIN");
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+}
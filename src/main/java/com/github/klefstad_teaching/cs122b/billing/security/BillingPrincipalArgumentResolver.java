@@ -0,0 +1,55 @@
+package com.github.klefstad_teaching.cs122b.billing.security;
+
+import com.github.klefstad_teaching.cs122b.billing.logging.RequestLogContext;
+import com.github.klefstad_teaching.cs122b.billing.metrics.Phase;
+import com.github.klefstad_teaching.cs122b.billing.metrics.RequestPhases;
+import com.github.klefstad_teaching.cs122b.billing.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class BillingPrincipalArgumentResolver implements HandlerMethodArgumentResolver
+{
+    private final VerifiedTokenCache tokenCache;
+    private final Tracer             tracer;
+
+    @Autowired
+    public BillingPrincipalArgumentResolver(VerifiedTokenCache tokenCache, Tracer tracer)
+    {
+        this.tokenCache = tokenCache;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter)
+    {
+        return parameter.getParameterType().equals(BillingPrincipal.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter,
+                                  ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory)
+        throws Exception
+    {
+        long             start     = System.nanoTime();
+        BillingPrincipal principal = tokenCache.currentPrincipal();
+
+        RequestPhases.add(Phase.AUTH, System.nanoTime() - start);
+
+        if (principal == null) {
+            throw new IllegalStateException("Request was not authenticated by the security filter");
+        }
+
+        tracer.current().attribute("user.premium", principal.isPremium());
+        RequestLogContext.user(principal.getUserId());
+
+        return principal;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.klefstad_teaching.cs122b.billing.security;
+
+import com.github.klefstad_teaching.cs122b.billing.config.TokenCacheConfig;
+import com.github.klefstad_teaching.cs122b.core.security.JWTManager;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the {@link BillingPrincipal} of tokens the core security filter has already verified, keyed
+ * by the token signature and expiry so claims are parsed at most once per token.
+ */
+@Component
+public class VerifiedTokenCache
+{
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final int                              maxSize;
+
+    @Autowired
+    public VerifiedTokenCache(TokenCacheConfig config)
+    {
+        this.maxSize = config.getMaxSize();
+    }
+
+    /**
+     * @return the principal of the request on this thread, or null if it was not authenticated
+     */
+    public BillingPrincipal currentPrincipal() throws ParseException
+    {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof SignedJWT)) {
+            return null;
+        }
+
+        return resolve((SignedJWT) authentication.getPrincipal());
+    }
+
+    public BillingPrincipal resolve(SignedJWT jwt) throws ParseException
+    {
+        String signature = jwt.getSignature().toString();
+        long   now       = System.currentTimeMillis();
+
+        Entry entry = cache.get(signature);
+
+        if (entry != null && entry.expiresAt > now) {
+            return entry.principal;
+        }
+
+        JWTClaimsSet claims = jwt.getJWTClaimsSet();
+
+        List<String> roles   = claims.getStringListClaim(JWTManager.CLAIM_ROLES);
+        Long         userId  = claims.getLongClaim(JWTManager.CLAIM_ID);
+        Date         expires = claims.getExpirationTime();
+
+        BillingPrincipal principal = new BillingPrincipal(userId, roles);
+
+        if (expires != null && expires.getTime() > now) {
+            if (cache.size() >= maxSize) {
+                evict(now);
+            }
+
+            cache.put(signature, new Entry(principal, expires.getTime()));
+        }
+
+        return principal;
+    }
+
+    public int size()
+    {
+        return cache.size();
+    }
+
+    private void evict(long now)
+    {
+        cache.values().removeIf(entry -> entry.expiresAt <= now);
+
+        if (cache.size() >= maxSize) {
+            cache.clear();
+        }
+    }
+
+    private static final class Entry
+    {
+        private final BillingPrincipal principal;
+        private final long             expiresAt;
+
+        private Entry(BillingPrincipal principal, long expiresAt)
+        {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.klefstad_teaching.cs122b.billing.slowquery;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Times every pool checkout into a per-thread running total, so a statement can report how much
+ * of its latency was spent waiting for a connection rather than in the database.
+ */
+public class ConnectionWaitDataSource extends DelegatingDataSource
+{
+    private static final ThreadLocal<long[]> WAITED = ThreadLocal.withInitial(() -> new long[1]);
+
+    public ConnectionWaitDataSource(DataSource target)
+    {
+        super(target);
+    }
+
+    /**
+     * @return nanoseconds this thread has spent in getConnection so far
+     */
+    public static long waitedNanos()
+    {
+        return WAITED.get()[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        long start = System.nanoTime();
+
+        try {
+            return super.getConnection();
+        } finally {
+            WAITED.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        long start = System.nanoTime();
+
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            WAITED.get()[0] += System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.klefstad_teaching.cs122b.billing.slowquery;
+
+import java.util.List;
+
+/**
+ * One repository statement that ran past the slow-query threshold. User ids never appear in the
+ * clear: {@link #getUserHash()} and any user id among the binds are salted hashes.
+ */
+public class SlowQuery {
+    private final long epochMillis;
+    private final String statement;
+    private final String userHash;
+    private final List<Object> binds;
+    private final long rows;
+    private final long elapsedMicros;
+    private final long connectionWaitMicros;
+    private final String thread;
+
+    public SlowQuery(long epochMillis, String statement, String userHash, List<Object> binds, long rows,
+                     long elapsedMicros, long connectionWaitMicros, String thread) {
+        this.epochMillis = epochMillis;
+        this.statement = statement;
+        this.userHash = userHash;
+        this.binds = binds;
+        this.rows = rows;
+        this.elapsedMicros = elapsedMicros;
+        this.connectionWaitMicros = connectionWaitMicros;
+        this.thread = thread;
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getUserHash() {
+        return userHash;
+    }
+
+    /**
+     * @return the non-user bind values, or null when this entry was not sampled for binds
+     */
+    public List<Object> getBinds() {
+        return binds;
+    }
+
+    /**
+     * @return rows returned or affected, -1 when the statement failed
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    public long getConnectionWaitMicros() {
+        return connectionWaitMicros;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+}
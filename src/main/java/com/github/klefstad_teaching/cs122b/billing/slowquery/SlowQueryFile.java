@@ -0,0 +1,129 @@
+package com.github.klefstad_teaching.cs122b.billing.slowquery;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends slow queries as JSON lines from a background thread. Once the file passes
+ * {@code maxBytes} it is rolled to {@code .1}, shifting older backups up and dropping the last.
+ */
+public class SlowQueryFile implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryFile.class);
+
+    private final BlockingQueue<SlowQuery> queue;
+    private final ObjectMapper             mapper  = new ObjectMapper();
+    private final AtomicLong               dropped = new AtomicLong();
+    private final Path                     path;
+    private final long                     maxBytes;
+    private final int                      maxBackups;
+    private final Thread                   writer;
+
+    private volatile boolean running = true;
+
+    public SlowQueryFile(Path path, long maxBytes, int maxBackups, int queueSize)
+    {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writer = new Thread(this::drain, "slow-query-file");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void append(SlowQuery query)
+    {
+        if (!queue.offer(query)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped()
+    {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException
+    {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drain()
+    {
+        try {
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not create the slow-query directory for {}", path, e);
+        }
+
+        while (running || !queue.isEmpty()) {
+            try {
+                SlowQuery query = queue.poll(200, TimeUnit.MILLISECONDS);
+
+                if (query == null) {
+                    continue;
+                }
+
+                try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                                                                  StandardOpenOption.CREATE,
+                                                                  StandardOpenOption.APPEND)) {
+                    do {
+                        out.write(mapper.writeValueAsString(query));
+                        out.newLine();
+                    } while ((query = queue.poll()) != null);
+                }
+
+                if (Files.size(path) >= maxBytes) {
+                    rotate();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                LOG.warn("Could not write slow queries to {}", path, e);
+            }
+        }
+    }
+
+    private void rotate() throws IOException
+    {
+        if (maxBackups <= 0) {
+            Files.delete(path);
+            return;
+        }
+
+        Files.deleteIfExists(backup(maxBackups));
+
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            if (Files.exists(backup(i))) {
+                Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        Files.move(path, backup(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path backup(int index)
+    {
+        return Paths.get(path.toString() + "." + index);
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.klefstad_teaching.cs122b.billing.slowquery;
+
+import com.github.klefstad_teaching.cs122b.billing.config.SlowQueryConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring of the most recent repository statements that ran past the threshold, optionally
+ * mirrored to a rotating file. User ids are replaced by a salted SHA-256 prefix; without a
+ * configured salt a random one is drawn per process, so hashes only correlate within one run.
+ */
+@Component
+public class SlowQueryLog
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final boolean                         enabled;
+    private final long                            thresholdNanos;
+    private final double                          bindSampleRatio;
+    private final byte[]                          salt;
+    private final AtomicReferenceArray<SlowQuery> ring;
+    private final AtomicLong                      next = new AtomicLong();
+    private final SlowQueryFile                   file;
+
+    @Autowired
+    public SlowQueryLog(SlowQueryConfig config)
+    {
+        this.enabled = config.getEnabled();
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getThresholdMs());
+        this.bindSampleRatio = config.getBindSampleRatio();
+        this.ring = new AtomicReferenceArray<>(enabled ? config.getCapacity() : 1);
+
+        if (config.getHashSalt().isEmpty()) {
+            this.salt = new byte[16];
+            new SecureRandom().nextBytes(salt);
+        } else {
+            this.salt = config.getHashSalt().getBytes(StandardCharsets.UTF_8);
+        }
+
+        this.file = enabled && config.getFileEnabled() ?
+                    new SlowQueryFile(Paths.get(config.getFilePath()), config.getFileMaxBytes(),
+                                      config.getFileMaxBackups(), config.getFileQueueSize()) :
+                    null;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getThresholdNanos()
+    {
+        return thresholdNanos;
+    }
+
+    public void record(String statement, Long userId, Object[] binds, long rows, long elapsedNanos, long waitNanos)
+    {
+        boolean sampleBinds = binds != null && ThreadLocalRandom.current().nextDouble() < bindSampleRatio;
+
+        SlowQuery query = new SlowQuery(
+            System.currentTimeMillis(),
+            statement,
+            userId == null ? null : hash(userId),
+            sampleBinds ? Collections.unmodifiableList(Arrays.asList(bindValues(binds))) : null,
+            rows,
+            TimeUnit.NANOSECONDS.toMicros(elapsedNanos),
+            TimeUnit.NANOSECONDS.toMicros(waitNanos),
+            Thread.currentThread().getName()
+        );
+
+        ring.set((int) (next.getAndIncrement() % ring.length()), query);
+
+        if (file != null) {
+            file.append(query);
+        }
+    }
+
+    /**
+     * @return the retained entries, newest first
+     */
+    public List<SlowQuery> recent()
+    {
+        long            end     = next.get();
+        List<SlowQuery> queries = new ArrayList<>();
+
+        for (long i = end - 1; i >= 0 && i >= end - ring.length(); i--) {
+            SlowQuery query = ring.get((int) (i % ring.length()));
+
+            if (query != null) {
+                queries.add(query);
+            }
+        }
+
+        return queries;
+    }
+
+    public String hash(long userId)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+
+            byte[] bytes = digest.digest(ByteBuffer.allocate(Long.BYTES).putLong(userId).array());
+            char[] hex   = new char[16];
+
+            for (int i = 0; i < 8; i++) {
+                hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+            }
+
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException
+    {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private static Object[] bindValues(Object[] binds)
+    {
+        Object[] values = new Object[binds.length];
+
+        // Keep the log JSON-friendly: numbers and booleans as they are, anything else as text
+        for (int i = 0; i < binds.length; i++) {
+            Object bind = binds[i];
+            values[i] = bind == null || bind instanceof Number || bind instanceof Boolean ? bind : bind.toString();
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.klefstad_teaching.cs122b.billing.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.klefstad_teaching.cs122b.billing.catalog.MovieCatalog;
+import com.github.klefstad_teaching.cs122b.billing.config.WarmupConfig;
+import com.github.klefstad_teaching.cs122b.billing.payment.PaymentGateway;
+import com.github.klefstad_teaching.cs122b.billing.promotion.PromotionEngine;
+import com.github.klefstad_teaching.cs122b.billing.rest.CartController;
+import com.github.klefstad_teaching.cs122b.billing.rest.OrderController;
+import com.github.klefstad_teaching.cs122b.billing.security.BillingPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs before the service reports ready: Spring Boot only moves readiness to ACCEPTING_TRAFFIC
+ * after every {@link ApplicationRunner} has returned. The catalog, promotions, connection pool and
+ * payment gateway are loaded in parallel, then the read-only hot endpoints are called in-process with
+ * synthetic users (negative ids, so they never match real carts or orders) and their responses
+ * serialized until they are JIT-warm. No token is minted, so the security filter is not exercised.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final WarmupConfig                   config;
+    private final ConfigurableApplicationContext context;
+    private final MovieCatalog                   catalog;
+    private final PromotionEngine                promotions;
+    private final PaymentGateway                 gateway;
+    private final DataSource                     dataSource;
+    private final CartController                 cartController;
+    private final OrderController                orderController;
+    private final ObjectMapper                   mapper;
+
+    @Autowired
+    public StartupWarmup(WarmupConfig config, ConfigurableApplicationContext context, MovieCatalog catalog,
+                         PromotionEngine promotions, PaymentGateway gateway, DataSource dataSource,
+                         CartController cartController, OrderController orderController, ObjectMapper mapper)
+    {
+        this.config = config;
+        this.context = context;
+        this.catalog = catalog;
+        this.promotions = promotions;
+        this.gateway = gateway;
+        this.dataSource = dataSource;
+        this.cartController = cartController;
+        this.orderController = orderController;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception
+    {
+        if (!config.getEnabled()) {
+            return;
+        }
+
+        long            start    = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+
+        try {
+            CompletableFuture.allOf(
+                CompletableFuture.runAsync(catalog::loadAll, executor),
+                CompletableFuture.runAsync(promotions::refresh, executor),
+                CompletableFuture.runAsync(gateway::warmup, executor),
+                CompletableFuture.runAsync(this::fillConnectionPool, executor)
+            ).join();
+
+            long preloaded = System.nanoTime();
+            int  calls     = exerciseEndpoints(executor);
+
+            LOG.info("Warmup preloaded {} catalog entries in {} ms and made {} calls in {} ms",
+                     catalog.size(), (preloaded - start) / 1_000_000,
+                     calls, (System.nanoTime() - preloaded) / 1_000_000);
+        } finally {
+            executor.shutdown();
+        }
+
+        if (config.getExitOnComplete()) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private void fillConnectionPool()
+    {
+        List<Connection> connections = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < config.getThreads(); i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not open {} connections during warmup", config.getThreads(), e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    private int exerciseEndpoints(ExecutorService executor)
+    {
+        List<Function<BillingPrincipal, Object>> hotCalls = new ArrayList<>();
+
+        hotCalls.add(user -> cartController.cartRetrieve(user).getBody());
+        hotCalls.add(user -> orderController.orderList(user).getBody());
+        hotCalls.add(user -> orderController.orderDetail(user, 0L).getBody());
+
+        AtomicInteger                 calls   = new AtomicInteger();
+        List<CompletableFuture<Void>> threads = new ArrayList<>();
+
+        for (int t = 1; t <= config.getThreads(); t++) {
+            BillingPrincipal user =
+                new BillingPrincipal(-t, Collections.singletonList(t % 2 == 0 ? "PREMIUM" : "CUSTOMER"));
+
+            threads.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < config.getRequestsPerThread(); i++) {
+                    try {
+                        mapper.writeValueAsBytes(hotCalls.get(i % hotCalls.size()).apply(user));
+                        calls.incrementAndGet();
+                    } catch (Exception e) {
+                        LOG.debug("Warmup call {} failed", i % hotCalls.size(), e);
+                    }
+                }
+            }, executor));
+        }
+
+        CompletableFuture.allOf(threads.toArray(new CompletableFuture[0])).join();
+
+        return calls.get();
+    }
+}
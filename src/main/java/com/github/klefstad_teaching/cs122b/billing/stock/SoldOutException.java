@@ -0,0 +1,16 @@
+package com.github.klefstad_teaching.cs122b.billing.stock;
+
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
+import com.github.klefstad_teaching.cs122b.core.error.ResultError;
+
+/**
+ * A stock limited line could not be filled. Answers with {@code SOLD_OUT} like any other
+ * {@link ResultError}, but can be caught on its own where a sold out order needs cleaning up.
+ */
+public class SoldOutException extends ResultError
+{
+    public SoldOutException()
+    {
+        super(BillingServiceResults.SOLD_OUT);
+    }
+}
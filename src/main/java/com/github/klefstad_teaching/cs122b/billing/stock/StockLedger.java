@@ -0,0 +1,142 @@
+package com.github.klefstad_teaching.cs122b.billing.stock;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CheckoutConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.FlashSaleConfig;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.repo.PaymentSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stock for flash sales. {@code billing.movie_stock} holds what is left after outstanding
+ * reservations, and every node reserves from those rows with a guarded decrement, so stock can
+ * never be sold twice. {@code /order/payment} reserves in the transaction that stores the payment
+ * snapshot, before the client can confirm the intent. The reservation lives as long as the
+ * snapshot: completing the order consumes both, and purging an expired snapshot puts its stock
+ * back on sale.
+ * <p>
+ * A hot movie's row is the one place every buyer meets, so it is only locked by the decrement,
+ * issued last before commit. The sold-out gate in front of it reads the row without locking, so
+ * once a movie has sold out its buyers are turned away without queueing behind the lock.
+ */
+@Component
+public class StockLedger
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StockLedger.class);
+
+    private final BillingRepo repo;
+    private final boolean     enabled;
+
+    @Autowired
+    public StockLedger(FlashSaleConfig config, CheckoutConfig checkout, BillingRepo repo)
+    {
+        this.repo = repo;
+
+        // Reservations are stored with, and released by, the payment snapshot
+        this.enabled = config.getEnabled() && checkout.getSnapshotEnabled();
+
+        if (config.getEnabled() && !enabled) {
+            LOG.warn("Flash sale mode requires billing.checkout.snapshot-enabled and stays off");
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * The sold-out gate: finds the stock limited lines without locking their rows, and throws
+     * {@link SoldOutException} when one asks for more than is left.
+     *
+     * @return the stock limited movies, to store with the snapshot and {@link #reserve}; empty when
+     * none is
+     */
+    public Set<Long> limited(List<Item> items)
+    {
+        if (!enabled) {
+            return Collections.emptySet();
+        }
+
+        Map<Long, Integer> remaining = repo.stockLimited(items);
+
+        for (Item item : items) {
+            Integer left = remaining.get(item.getMovieId());
+
+            if (left != null && left < item.getQuantity()) {
+                throw new SoldOutException();
+            }
+        }
+
+        return remaining.keySet();
+    }
+
+    /**
+     * Takes stock for the {@code limited} lines, or throws {@link SoldOutException} and leaves the
+     * caller's transaction to roll back what was taken. The rows stay locked until that transaction
+     * ends, so call this last, right before it commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(List<Item> items, Set<Long> limited, Long userId)
+    {
+        if (!limited.isEmpty()) {
+            repo.stockTake(lines(items, limited), userId);
+        }
+    }
+
+    /**
+     * Takes stock for the snapshot lines nothing was reserved for at payment: the snapshot was stored
+     * with flash sale mode off, or the movie was not stock limited yet. Called last in the order
+     * transaction; throws {@link SoldOutException} if that stock has run out since.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void commit(PaymentSnapshot snapshot)
+    {
+        if (!enabled) {
+            return;
+        }
+
+        List<Item> unreserved = new ArrayList<>(snapshot.getItems().size());
+
+        for (Item item : snapshot.getItems()) {
+            if (!snapshot.getStockReserved().contains(item.getMovieId())) {
+                unreserved.add(item);
+            }
+        }
+
+        if (unreserved.isEmpty()) {
+            return;
+        }
+
+        // No gate here: the buyer has paid, so only the locked decrement may turn the order away
+        Set<Long> limited = repo.stockLimited(unreserved).keySet();
+
+        if (!limited.isEmpty()) {
+            repo.stockTake(lines(unreserved, limited), snapshot.getUserId());
+        }
+    }
+
+    private static List<Item> lines(List<Item> items, Set<Long> limited)
+    {
+        List<Item> lines = new ArrayList<>(limited.size());
+
+        for (Item item : items) {
+            if (limited.contains(item.getMovieId())) {
+                lines.add(item);
+            }
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends one JSON object per span to a file from a background thread, for offline analysis. When
+ * the queue is full the trace is dropped and counted rather than slowing the request down.
+ */
+public class FileSpanExporter implements SpanExporter, AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final BlockingQueue<List<Span>> queue;
+    private final ObjectMapper              mapper  = new ObjectMapper();
+    private final AtomicLong                dropped = new AtomicLong();
+    private final Path                      path;
+    private final Thread                    writer;
+
+    private volatile boolean running = true;
+
+    public FileSpanExporter(Path path, int queueSize)
+    {
+        this.path = path;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writer = new Thread(this::drain, "trace-file-exporter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void export(List<Span> trace)
+    {
+        if (!queue.offer(trace)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped()
+    {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException
+    {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public static Map<String, Object> toJson(Span span)
+    {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        json.put("parentSpanId", span.getParentSpanId());
+        json.put("name", span.getName());
+        json.put("startEpochMicros", span.getStartEpochMicros());
+        json.put("durationMicros", span.getDurationNanos() / 1000.0);
+        json.put("attributes", span.getAttributes());
+
+        if (span.getError() != null) {
+            json.put("error", span.getError());
+        }
+
+        return json;
+    }
+
+    private void drain()
+    {
+        try {
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not create the trace directory for {}", path, e);
+        }
+
+        while (running || !queue.isEmpty()) {
+            try {
+                List<Span> trace = queue.poll(200, TimeUnit.MILLISECONDS);
+
+                if (trace == null) {
+                    continue;
+                }
+
+                try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                                                                  StandardOpenOption.CREATE,
+                                                                  StandardOpenOption.APPEND)) {
+                    do {
+                        for (Span span : trace) {
+                            out.write(mapper.writeValueAsString(toJson(span)));
+                            out.newLine();
+                        }
+                    } while ((trace = queue.poll()) != null);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                LOG.warn("Could not write traces to {}", path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed operation in a trace. Spans are opened by {@link Tracer} and closed with
+ * try-with-resources; when the trace is not recorded the tracer hands out {@link #NOOP}, whose
+ * methods do nothing, so call sites never branch on sampling.
+ */
+public class Span implements AutoCloseable {
+    public static final Span NOOP = new Span(null, null, null, null, 0, 0);
+
+    private final TraceContext context;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startNanos;
+    private final long startEpochMicros;
+    private final Map<String, Object> attributes;
+    private long endNanos;
+    private String error;
+
+    Span(TraceContext context, String spanId, String parentSpanId, String name,
+         long startNanos, long startEpochMicros) {
+        this.context = context;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startNanos = startNanos;
+        this.startEpochMicros = startEpochMicros;
+        this.attributes = context == null ? Collections.emptyMap() : new LinkedHashMap<>();
+    }
+
+    public Span attribute(String key, Object value) {
+        if (context != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public Span error(Throwable throwable) {
+        if (context != null) {
+            this.error = throwable.getClass().getName() + ": " + throwable.getMessage();
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (context != null && endNanos == 0) {
+            this.endNanos = System.nanoTime();
+            context.end(this);
+        }
+    }
+
+    public boolean isRecording() {
+        return context != null;
+    }
+
+    public String getTraceId() {
+        return context == null ? null : context.getTraceId();
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getDurationNanos() {
+        return endNanos == 0 ? 0 : endNanos - startNanos;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import java.util.List;
+
+/**
+ * Receives each finished trace, root span first. Called on the request thread, so implementations
+ * must not block.
+ */
+public interface SpanExporter
+{
+    void export(List<Span> trace);
+}
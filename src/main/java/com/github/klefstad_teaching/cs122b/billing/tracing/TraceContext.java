@@ -0,0 +1,89 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The spans of one trace on one thread: a stack of open spans and the list of finished ones.
+ */
+final class TraceContext
+{
+    private final Tracer      tracer;
+    private final String      traceId;
+    private final boolean     sampled;
+    private final long        rootStartNanos;
+    private final long        rootStartEpochMicros;
+    private final Deque<Span> open     = new ArrayDeque<>();
+    private final List<Span>  finished = new ArrayList<>();
+
+    TraceContext(Tracer tracer, String traceId, boolean sampled)
+    {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.sampled = sampled;
+        this.rootStartNanos = System.nanoTime();
+        this.rootStartEpochMicros = System.currentTimeMillis() * 1000;
+    }
+
+    Span start(String name, String parentSpanId)
+    {
+        long now    = System.nanoTime();
+        Span parent = open.peek();
+        Span span   = new Span(this, TraceIds.spanId(), parent == null ? parentSpanId : parent.getSpanId(), name,
+                               now, rootStartEpochMicros + (now - rootStartNanos) / 1000);
+
+        open.push(span);
+
+        return span;
+    }
+
+    void end(Span span)
+    {
+        // Spans close in stack order under try-with-resources; tolerate a missed close below this one
+        while (!open.isEmpty()) {
+            Span top = open.pop();
+
+            if (top == span) {
+                break;
+            }
+        }
+
+        finished.add(span);
+
+        if (open.isEmpty()) {
+            tracer.finish(this);
+        }
+    }
+
+    Span current()
+    {
+        Span span = open.peek();
+        return span == null ? Span.NOOP : span;
+    }
+
+    String getTraceId()
+    {
+        return traceId;
+    }
+
+    boolean isSampled()
+    {
+        return sampled;
+    }
+
+    /**
+     * @return finished spans, the root (which closes last) first
+     */
+    List<Span> spans()
+    {
+        List<Span> spans = new ArrayList<>(finished.size());
+
+        for (int i = finished.size() - 1; i >= 0; i--) {
+            spans.add(finished.get(i));
+        }
+
+        return spans;
+    }
+}
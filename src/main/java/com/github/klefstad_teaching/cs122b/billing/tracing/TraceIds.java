@@ -0,0 +1,85 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C trace context ids: 32 hex digit trace ids, 16 hex digit span ids and the
+ * {@code traceparent} header that carries them ({@code 00-<trace id>-<span id>-<flags>}).
+ */
+final class TraceIds
+{
+    static final String TRACEPARENT = "traceparent";
+
+    private static final String VERSION = "00";
+
+    private TraceIds()
+    {
+    }
+
+    static String traceId()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return hex(random.nextLong()) + hex(random.nextLong() | 1);
+    }
+
+    static String spanId()
+    {
+        return hex(ThreadLocalRandom.current().nextLong() | 1);
+    }
+
+    static String traceparent(String traceId, String spanId, boolean sampled)
+    {
+        return VERSION + "-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    /**
+     * @return {trace id, parent span id, flags} or null when the header is missing or malformed
+     */
+    static String[] parse(String traceparent)
+    {
+        if (traceparent == null || traceparent.length() != 55) {
+            return null;
+        }
+
+        String[] parts = traceparent.split("-");
+
+        if (parts.length != 4 || !isHex(parts[1], 32) || !isHex(parts[2], 16) || !isHex(parts[3], 2) ||
+            parts[1].chars().allMatch(c -> c == '0') || parts[2].chars().allMatch(c -> c == '0')) {
+            return null;
+        }
+
+        return new String[]{parts[1], parts[2], parts[3]};
+    }
+
+    /**
+     * @return the trace id's low 56 bits as a fraction in [0, 1), for ratio sampling
+     */
+    static double fraction(String traceId)
+    {
+        long low = Long.parseUnsignedLong(traceId.substring(18), 16);
+        return (double) low / (1L << 56);
+    }
+
+    private static String hex(long value)
+    {
+        String hex = Long.toHexString(value);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private static boolean isHex(String value, int length)
+    {
+        if (value.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parent-based ratio sampler with a per-second cap. A sampled parent is honoured, otherwise the
+ * trace id decides against the ratio, so every node reaches the same decision for a trace. At most
+ * {@code maxPerSecond} traces are sampled in any one second, which bounds export cost under load.
+ */
+public class TraceSampler
+{
+    private final double     ratio;
+    private final int        maxPerSecond;
+    private final AtomicLong window = new AtomicLong();
+
+    public TraceSampler(double ratio, int maxPerSecond)
+    {
+        this.ratio = ratio;
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public boolean sample(String traceId, Boolean parentSampled)
+    {
+        boolean wanted = parentSampled != null ? parentSampled : TraceIds.fraction(traceId) < ratio;
+
+        return wanted && tryAcquire();
+    }
+
+    /**
+     * Packs the current second and the count within it into one long so the cap needs no lock.
+     */
+    boolean tryAcquire()
+    {
+        long second = System.currentTimeMillis() / 1000;
+
+        while (true) {
+            long current = window.get();
+            long count   = current >>> 40 == (second & 0xFFFFFF) ? current & 0xFF_FFFF_FFFFL : 0;
+
+            if (count >= maxPerSecond) {
+                return false;
+            }
+
+            long next = ((second & 0xFFFFFF) << 40) | (count + 1);
+
+            if (window.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
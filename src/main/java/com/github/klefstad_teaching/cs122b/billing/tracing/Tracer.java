@@ -0,0 +1,139 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import com.github.klefstad_teaching.cs122b.billing.config.TracingConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts and finishes spans for the current thread. A trace is begun by {@link #startRoot} (the
+ * tracing filter, from an incoming {@code traceparent} if there is one); {@link #start} then opens
+ * child spans under whatever span is open, and hands out {@link Span#NOOP} when nothing is being
+ * recorded.
+ */
+@Component
+public class Tracer
+{
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+    private final boolean              enabled;
+    private final TraceSampler         sampler;
+    private final long                 slowThresholdNanos;
+    private final List<SpanExporter>   exporters = new ArrayList<>();
+    private final InMemorySpanExporter memory;
+    private final FileSpanExporter     file;
+
+    @Autowired
+    public Tracer(TracingConfig config)
+    {
+        this.enabled = config.getEnabled();
+        this.sampler = new TraceSampler(config.getSampleRatio(), config.getMaxTracesPerSecond());
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowThresholdMs());
+
+        String exporter = config.getExporter();
+
+        this.memory = enabled && exporter.contains("memory") ? new InMemorySpanExporter(config.getMemoryCapacity()) : null;
+        this.file = enabled && exporter.contains("file") ?
+                    new FileSpanExporter(Paths.get(config.getFilePath()), config.getFileQueueSize()) :
+                    null;
+
+        if (memory != null) {
+            exporters.add(memory);
+        }
+
+        if (file != null) {
+            exporters.add(file);
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Begins a trace on this thread, continuing the caller's when {@code traceparent} is valid.
+     */
+    public Span startRoot(String name, String traceparent)
+    {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+
+        String[] parent  = TraceIds.parse(traceparent);
+        String   traceId = parent == null ? TraceIds.traceId() : parent[0];
+        boolean  sampled = sampler.sample(traceId, parent == null ? null : parent[2].equals("01"));
+
+        if (!sampled && slowThresholdNanos <= 0) {
+            return Span.NOOP;
+        }
+
+        TraceContext context = new TraceContext(this, traceId, sampled);
+        CURRENT.set(context);
+
+        return context.start(name, parent == null ? null : parent[1]);
+    }
+
+    public Span start(String name)
+    {
+        TraceContext context = CURRENT.get();
+        return context == null ? Span.NOOP : context.start(name, null);
+    }
+
+    /**
+     * @return the innermost open span, for adding attributes; {@link Span#NOOP} outside a trace
+     */
+    public Span current()
+    {
+        TraceContext context = CURRENT.get();
+        return context == null ? Span.NOOP : context.current();
+    }
+
+    /**
+     * @return the header value to hand downstream for the current span, or null outside a trace
+     */
+    public String traceparent()
+    {
+        TraceContext context = CURRENT.get();
+
+        if (context == null) {
+            return null;
+        }
+
+        return TraceIds.traceparent(context.getTraceId(), context.current().getSpanId(), context.isSampled());
+    }
+
+    public InMemorySpanExporter getMemoryExporter()
+    {
+        return memory;
+    }
+
+    void finish(TraceContext context)
+    {
+        CURRENT.remove();
+
+        List<Span> spans = context.spans();
+
+        boolean keep = context.isSampled() ||
+                       (spans.get(0).getDurationNanos() >= slowThresholdNanos && sampler.tryAcquire());
+
+        if (keep) {
+            for (SpanExporter exporter : exporters) {
+                exporter.export(spans);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException
+    {
+        if (file != null) {
+            file.close();
+        }
+    }
+}
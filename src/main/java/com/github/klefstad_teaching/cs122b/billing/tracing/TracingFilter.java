@@ -0,0 +1,53 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Opens the root span for each request, continuing the caller's trace from {@code traceparent},
+ * and echoes the trace back so a slow response can be looked up by id afterwards.
+ */
+public class TracingFilter extends OncePerRequestFilter
+{
+    private static final String UNMATCHED = "unmatched";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer)
+    {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException
+    {
+        Span root = tracer.startRoot("HTTP " + request.getMethod(), request.getHeader(TraceIds.TRACEPARENT));
+
+        if (!root.isRecording()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(TraceIds.TRACEPARENT, tracer.traceparent());
+
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            root.error(e);
+            throw e;
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+            root.attribute("http.route", pattern == null ? UNMATCHED : pattern.toString())
+                .attribute("http.status_code", response.getStatus())
+                .close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.klefstad_teaching.cs122b.billing.util;
+
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+public final class Pricing
+{
+    private Pricing()
+    {
+    }
+
+    public static BigDecimal unitPrice(double unitPrice, int premiumDiscount, boolean isPremium)
+    {
+        return BigDecimal.valueOf(isPremium ? unitPrice * (1 - (premiumDiscount / 100.0)) : unitPrice)
+                         .setScale(2, RoundingMode.DOWN);
+    }
+
+    public static BigDecimal total(List<Item> items)
+    {
+        BigDecimal total = BigDecimal.valueOf(0).setScale(2, RoundingMode.DOWN);
+
+        for (Item item : items) {
+            total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+
+        return total;
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.klefstad_teaching.cs122b.billing.util;
 
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
 import com.github.klefstad_teaching.cs122b.core.error.ResultError;
 import com.stripe.model.PaymentIntent;
 import org.springframework.stereotype.Component;
@@ -31,4 +32,13 @@ public final class Validate
         }
     }
 
+    public static void checkPaidAmount(PaymentIntent paymentIntent, long expectedCents) throws ResultError
+    {
+        Long paid = paymentIntent.getAmountReceived();
+
+        if (paid == null || paid != expectedCents) {
+            throw new ResultError(BillingServiceResults.PAYMENT_AMOUNT_MISMATCH);
+        }
+    }
+
 }
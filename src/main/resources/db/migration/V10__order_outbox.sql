@@ -0,0 +1,9 @@
+CREATE TABLE billing.order_outbox
+(
+    id          BIGINT          NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    event_type  VARCHAR(32)     NOT NULL,
+    user_id     INT             NOT NULL,
+    sale_id     INT             NOT NULL,
+    payload     TEXT            NOT NULL,
+    created_at  TIMESTAMP(3)    NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
@@ -0,0 +1,4 @@
+ALTER TABLE billing.webhook_event
+    ADD COLUMN amount_received  BIGINT  NOT NULL DEFAULT 0 AFTER user_id,
+    ADD COLUMN attempts         INT     NOT NULL DEFAULT 0 AFTER outcome,
+    ADD INDEX webhook_event_pending (outcome, received_at);
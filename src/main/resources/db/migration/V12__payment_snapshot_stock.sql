@@ -0,0 +1,2 @@
+ALTER TABLE billing.payment_snapshot_item
+    ADD COLUMN stock_reserved   BOOLEAN NOT NULL DEFAULT FALSE;
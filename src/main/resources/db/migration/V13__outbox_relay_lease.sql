@@ -0,0 +1,9 @@
+CREATE TABLE billing.outbox_relay_lease
+(
+    id          TINYINT         NOT NULL PRIMARY KEY,
+    owner       VARCHAR(64)     NULL,
+    expires_at  TIMESTAMP(3)    NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+INSERT INTO billing.outbox_relay_lease (id)
+VALUES (1);
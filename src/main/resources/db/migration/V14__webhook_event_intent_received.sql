@@ -0,0 +1,5 @@
+-- INTENT_OUTCOME: WHERE payment_intent_id = ? AND user_id = ? ... ORDER BY received_at DESC LIMIT 1
+-- Reads the intent's latest settled event straight from the index instead of sorting its events.
+ALTER TABLE billing.webhook_event
+    DROP INDEX webhook_event_payment_intent,
+    ADD INDEX webhook_event_payment_intent (payment_intent_id, user_id, received_at);
@@ -0,0 +1,3 @@
+-- The abandoned-cart reaper now walks carts by user id and judges each cart by its newest line,
+-- so nothing reads cart rows by last_touched alone any more.
+DROP INDEX cart_last_touched ON billing.cart;
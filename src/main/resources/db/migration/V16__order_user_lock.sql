@@ -0,0 +1,7 @@
+-- ORDER_USER_LOCK upserts the user's row at the start of every order transaction that writes an
+-- outbox event, so one user's orders commit one at a time and get outbox ids in commit order.
+CREATE TABLE billing.order_user_lock
+(
+    user_id     INT     NOT NULL PRIMARY KEY,
+    FOREIGN KEY (user_id) REFERENCES idm.user (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
@@ -0,0 +1,4 @@
+-- The unit price each line was sold at, after premium discount and promotions, so order details
+-- show what was paid rather than today's list price. NULL for sales written before this column.
+ALTER TABLE billing.sale_item
+    ADD COLUMN unit_price DECIMAL(19, 4) NULL;
@@ -0,0 +1,7 @@
+-- ORDER_LIST: WHERE user_id = ? ORDER BY order_date DESC LIMIT 5
+-- Served straight from the index in order, with total (and the id primary key) covered.
+CREATE INDEX sale_user_id_order_date_total
+    ON billing.sale (user_id, order_date DESC, total);
+
+-- CART_RETRIEVE / CART_CLEAR filter on cart.user_id, ORDER_DETAIL on sale_item.sale_id: both are
+-- already the leading primary key column of their (clustered) table, so no extra index is needed.
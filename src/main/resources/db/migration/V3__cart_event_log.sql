@@ -0,0 +1,27 @@
+CREATE TABLE billing.cart_event
+(
+    id          BIGINT      NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    user_id     INT         NOT NULL,
+    type        TINYINT     NOT NULL,
+    movie_id    INT         NULL,
+    quantity    INT         NULL,
+    FOREIGN KEY (user_id) REFERENCES idm.user (id) ON UPDATE CASCADE ON DELETE CASCADE,
+    FOREIGN KEY (movie_id) REFERENCES movies.movie (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+CREATE TABLE billing.cart_snapshot
+(
+    id              BIGINT      NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    last_event_id   BIGINT      NOT NULL,
+    created         TIMESTAMP   NOT NULL
+);
+
+CREATE TABLE billing.cart_snapshot_item
+(
+    snapshot_id BIGINT  NOT NULL,
+    user_id     INT     NOT NULL,
+    movie_id    INT     NOT NULL,
+    quantity    INT     NOT NULL,
+    PRIMARY KEY (snapshot_id, user_id, movie_id),
+    FOREIGN KEY (snapshot_id) REFERENCES billing.cart_snapshot (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
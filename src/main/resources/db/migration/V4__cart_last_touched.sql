@@ -0,0 +1,6 @@
+ALTER TABLE billing.cart
+    ADD COLUMN last_touched TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+
+-- Lets the abandoned-cart reaper walk idle rows oldest first without scanning the table.
+CREATE INDEX cart_last_touched
+    ON billing.cart (last_touched);
@@ -0,0 +1,13 @@
+CREATE TABLE billing.promotion
+(
+    id              INT             NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    kind            VARCHAR(16)     NOT NULL,
+    movie_id        INT             NULL,
+    role            VARCHAR(32)     NULL,
+    amount          DECIMAL(10, 2)  NULL,
+    buy_quantity    INT             NULL,
+    free_quantity   INT             NULL,
+    starts_at       TIMESTAMP       NULL,
+    ends_at         TIMESTAMP       NULL,
+    FOREIGN KEY (movie_id) REFERENCES movies.movie (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
@@ -0,0 +1,19 @@
+CREATE TABLE billing.payment_snapshot
+(
+    payment_intent_id   VARCHAR(64)     NOT NULL PRIMARY KEY,
+    user_id             INT             NOT NULL,
+    total_cents         BIGINT          NOT NULL,
+    created_at          TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX payment_snapshot_created_at (created_at),
+    FOREIGN KEY (user_id) REFERENCES idm.user (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+CREATE TABLE billing.payment_snapshot_item
+(
+    payment_intent_id   VARCHAR(64)     NOT NULL,
+    movie_id            INT             NOT NULL,
+    quantity            INT             NOT NULL,
+    unit_price          DECIMAL(19, 4)  NOT NULL,
+    PRIMARY KEY (payment_intent_id, movie_id),
+    FOREIGN KEY (payment_intent_id) REFERENCES billing.payment_snapshot (payment_intent_id) ON DELETE CASCADE
+);
@@ -0,0 +1,9 @@
+CREATE TABLE billing.webhook_event
+(
+    event_id            VARCHAR(255)    NOT NULL PRIMARY KEY,
+    payment_intent_id   VARCHAR(64)     NOT NULL,
+    user_id             INT             NOT NULL,
+    outcome             VARCHAR(16)     NULL,
+    received_at         TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX webhook_event_payment_intent (payment_intent_id, user_id)
+);
@@ -0,0 +1,9 @@
+CREATE TABLE billing.movie_price_staging
+(
+    upload_id           CHAR(36)        NOT NULL,
+    movie_id            INT             NOT NULL,
+    unit_price          DECIMAL(19, 4)  NOT NULL,
+    premium_discount    INT             NOT NULL,
+    PRIMARY KEY (upload_id, movie_id),
+    CHECK (premium_discount BETWEEN 0 AND 25)
+);
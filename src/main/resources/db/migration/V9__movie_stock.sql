@@ -0,0 +1,7 @@
+CREATE TABLE billing.movie_stock
+(
+    movie_id    INT     NOT NULL PRIMARY KEY,
+    remaining   INT     NOT NULL,
+    CHECK (remaining >= 0),
+    FOREIGN KEY (movie_id) REFERENCES movies.movie (id) ON UPDATE CASCADE ON DELETE CASCADE
+);
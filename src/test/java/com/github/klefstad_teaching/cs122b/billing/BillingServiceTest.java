@@ -1,5 +1,6 @@
 package com.github.klefstad_teaching.cs122b.billing;
 
+import com.github.klefstad_teaching.cs122b.billing.result.BillingServiceResults;
 import com.github.klefstad_teaching.cs122b.core.result.BillingResults;
 import com.github.klefstad_teaching.cs122b.core.result.Result;
 import com.github.klefstad_teaching.cs122b.core.security.JWTAuthenticationFilter;
@@ -33,6 +34,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.Types;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -55,6 +57,7 @@ public class BillingServiceTest
     private static final String ORDER_COMPLETE_PATH = "/order/complete";
     private static final String ORDER_LIST_PATH     = "/order/list";
     private static final String ORDER_DETAIL_PATH   = "/order/detail/{saleId}";
+    private static final String ORDER_DETAILS_PATH  = "/order/details";
 
     private static final String EXPECTED_MODELS_FILE_NAME = "expected-models.json";
     private static final String USERS_FILE_NAME           = "users.json";
@@ -921,4 +924,132 @@ public class BillingServiceTest
                     .andExpect(jsonPath("total").value(expected.get("total")))
                     .andExpect(jsonPath("items").value(expected.get("items")));
     }
+
+    // Order Details
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsSaleIds()
+        throws Exception
+    {
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("saleIds", EMPLOYEE_SALE_ONE_ID.toString(), EMPLOYEE_SALE_TWO_ID.toString())
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, employeeHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingResults.ORDER_DETAIL_FOUND))
+                    .andExpect(jsonPath("sales.length()").value(2))
+                    .andExpect(jsonPath("sales[0].saleId").value(EMPLOYEE_SALE_TWO_ID))
+                    .andExpect(jsonPath("sales[0].total").value(299.30))
+                    .andExpect(jsonPath("sales[0].items").value(getModel("orderDetailEmployee.items")))
+                    .andExpect(jsonPath("sales[1].saleId").value(EMPLOYEE_SALE_ONE_ID))
+                    .andExpect(jsonPath("sales[1].total").value(234.45))
+                    .andExpect(jsonPath("sales[1].items.length()").value(3));
+    }
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsKeepsTotalCharged()
+        throws Exception
+    {
+        // The sale was charged 345.65; today's premium prices add up to less
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("saleIds", PREMIUM_SALE_ONE_ID.toString())
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, premiumHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingResults.ORDER_DETAIL_FOUND))
+                    .andExpect(jsonPath("sales.length()").value(1))
+                    .andExpect(jsonPath("sales[0].total").value(345.65));
+    }
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsLatest()
+        throws Exception
+    {
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("latest", "1")
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, employeeHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingResults.ORDER_DETAIL_FOUND))
+                    .andExpect(jsonPath("sales.length()").value(1))
+                    .andExpect(jsonPath("sales[0].saleId").value(EMPLOYEE_SALE_TWO_ID));
+    }
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsLatestByDefault()
+        throws Exception
+    {
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, employeeHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingResults.ORDER_DETAIL_FOUND))
+                    .andExpect(jsonPath("sales.length()").value(2))
+                    .andExpect(jsonPath("sales[0].saleId").value(EMPLOYEE_SALE_TWO_ID))
+                    .andExpect(jsonPath("sales[1].saleId").value(EMPLOYEE_SALE_ONE_ID));
+    }
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsLatestOutOfRange()
+        throws Exception
+    {
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("latest", "0")
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, employeeHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingServiceResults.ORDER_DETAILS_LIMIT))
+                    .andExpect(jsonPath("sales").doesNotHaveJsonPath());
+
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("latest", "51")
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, employeeHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingServiceResults.ORDER_DETAILS_LIMIT));
+    }
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsTooManySaleIds()
+        throws Exception
+    {
+        String[] saleIds = IntStream.rangeClosed(1, 51).mapToObj(Integer::toString).toArray(String[]::new);
+
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("saleIds", saleIds)
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, employeeHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingServiceResults.ORDER_DETAILS_LIMIT))
+                    .andExpect(jsonPath("sales").doesNotHaveJsonPath());
+    }
+
+    @Test
+    @Sql("/billing-test-data.sql")
+    public void orderDetailsLeavesOutOtherUsersSales()
+        throws Exception
+    {
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("saleIds", EMPLOYEE_SALE_ONE_ID.toString(), PREMIUM_SALE_ONE_ID.toString())
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, premiumHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingResults.ORDER_DETAIL_FOUND))
+                    .andExpect(jsonPath("sales.length()").value(1))
+                    .andExpect(jsonPath("sales[0].saleId").value(PREMIUM_SALE_ONE_ID));
+
+        this.mockMvc.perform(get(ORDER_DETAILS_PATH)
+                                 .param("saleIds", EMPLOYEE_SALE_ONE_ID.toString(), EMPLOYEE_SALE_TWO_ID.toString())
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.AUTHORIZATION, adminHeader))
+                    .andDo(print())
+                    .andExpectAll(isResult(BillingResults.ORDER_DETAIL_NOT_FOUND))
+                    .andExpect(jsonPath("sales").doesNotHaveJsonPath());
+    }
 }
@@ -0,0 +1,118 @@
+package com.github.klefstad_teaching.cs122b.billing;
+
+import com.github.klefstad_teaching.cs122b.core.result.BillingResults;
+import com.github.klefstad_teaching.cs122b.core.security.JWTAuthenticationFilter;
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.util.ResourceUtils;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the native executable built by the {@code native} profile against the seeded test
+ * database and checks that a real token, a real query and JSON serialization all work in it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Sql({"/idm-test-data.sql", "/billing-test-data.sql"})
+public class NativeImageSmokeIT
+{
+    private static final long STARTUP_TIMEOUT_MILLIS = 60_000;
+
+    private Process process;
+
+    @AfterEach
+    public void stop() throws InterruptedException
+    {
+        if (process != null) {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void nativeImageServesCartRetrieve() throws Exception
+    {
+        Path image = Paths.get(System.getProperty("native.image", "target/billing-service"));
+
+        Assertions.assertTrue(Files.isExecutable(image), "Native image not found at " + image);
+
+        int port = freePort();
+
+        long start = System.nanoTime();
+
+        this.process = new ProcessBuilder(image.toString(), "--server.port=" + port)
+            .redirectErrorStream(true)
+            .redirectOutput(Paths.get("target/native-smoke.log").toFile())
+            .start();
+
+        HttpClient  client  = HttpClient.newHttpClient();
+        HttpRequest request =
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cart/retrieve"))
+                       .header("Authorization", adminHeader())
+                       .GET()
+                       .build();
+
+        HttpResponse<String> response = sendWhenUp(client, request);
+
+        System.out.printf("Native image answered its first request %d ms after launch%n",
+                          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        JSONObject body   = (JSONObject) new JSONParser(JSONParser.MODE_STRICTEST).parse(response.body());
+        JSONObject result = (JSONObject) body.get("result");
+
+        Assertions.assertEquals(BillingResults.CART_RETRIEVED.status().value(), response.statusCode());
+        Assertions.assertEquals(BillingResults.CART_RETRIEVED.code(), result.getAsNumber("code").intValue());
+        Assertions.assertNotNull(body.get("total"));
+    }
+
+    private HttpResponse<String> sendWhenUp(HttpClient client, HttpRequest request) throws Exception
+    {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+
+        while (true) {
+            Assertions.assertTrue(process.isAlive(), "Native image exited; see target/native-smoke.log");
+
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static String adminHeader() throws Exception
+    {
+        JSONObject users = (JSONObject) new JSONParser(JSONParser.MODE_STRICTEST).parse(
+            new FileReader(ResourceUtils.getFile(ResourceUtils.CLASSPATH_URL_PREFIX + "users.json")));
+
+        return JWTAuthenticationFilter.BEARER_PREFIX +
+               ((JSONObject) users.get("Admin@example.com")).getAsString("token");
+    }
+
+    private static int freePort() throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CartConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheInvalidationBus;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.CacheRegion;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.LoopbackTransport;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class CartReadFlightsTest
+{
+    private static final long USER_ID = 42;
+
+    private LoopbackTransport    transport;
+    private CacheInvalidationBus invalidation;
+    private CartReadFlights      flights;
+    private ExecutorService      executor;
+
+    private final AtomicInteger  queries = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setup()
+    {
+        this.transport = new LoopbackTransport();
+        this.invalidation = new CacheInvalidationBus(transport);
+        this.flights = new CartReadFlights(new CartConfig("table", 60000L, 1000, true), invalidation);
+        this.executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        executor.shutdownNow();
+        transport.close();
+    }
+
+    @Test
+    public void concurrentReadsShareOneQueryButNotItems() throws Exception
+    {
+        Future<List<Item>> leader = read(this::blockingQuery);
+
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<List<Item>> follower = read(this::blockingQuery);
+
+        awaitCoalesced(1);
+        release.countDown();
+
+        List<Item> a = leader.get(5, TimeUnit.SECONDS);
+        List<Item> b = follower.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(1, queries.get());
+        Assertions.assertEquals(a.get(0).getUnitPrice(), b.get(0).getUnitPrice());
+        Assertions.assertNotSame(a.get(0), b.get(0));
+    }
+
+    @Test
+    public void mutationDropsThePendingFlight() throws Exception
+    {
+        Future<List<Item>> stale = read(this::blockingQuery);
+
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        invalidation.invalidate(CacheRegion.CART, USER_ID);
+
+        List<Item> fresh = flights.retrieve(false, USER_ID, this::blockingQuery);
+
+        release.countDown();
+        stale.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(2, queries.get());
+        Assertions.assertEquals(0, flights.getCoalesced());
+        Assertions.assertEquals(1, fresh.size());
+    }
+
+    private Future<List<Item>> read(Supplier<List<Item>> query)
+    {
+        return executor.submit(() -> flights.retrieve(false, USER_ID, query));
+    }
+
+    private List<Item> blockingQuery()
+    {
+        // Only the first query blocks, so the test can hold a flight open
+        if (queries.incrementAndGet() == 1) {
+            started.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return Collections.singletonList(
+            new Item().setMovieId(1L).setQuantity(1).setUnitPrice(new BigDecimal("9.99")));
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (flights.getCoalesced() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        Assertions.assertEquals(expected, flights.getCoalesced());
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.klefstad_teaching.cs122b.billing.cart;
+
+import com.github.klefstad_teaching.cs122b.billing.catalog.MovieCatalog;
+import com.github.klefstad_teaching.cs122b.billing.config.CartConfig;
+import com.github.klefstad_teaching.cs122b.billing.invalidation.LoopbackTransport;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.request.CartInsertUpdateRequest;
+import com.github.klefstad_teaching.cs122b.billing.repo.CartEventRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@SpringBootTest
+@Sql({"/idm-test-data.sql", "/billing-test-data.sql"})
+public class EventSourcedCartStoreTest
+{
+    private static final long ADMIN    = 1L;
+    private static final long EMPLOYEE = 2L;
+    private static final long PREMIUM  = 3L;
+
+    private static final long ADMIN_MOVIE = 1843866L;
+    private static final long NEW_MOVIE   = 1013743L;
+
+    private final CartEventRepo       repo;
+    private final MovieCatalog        catalog;
+    private final JdbcTemplate        jdbc;
+    private final TransactionTemplate transactions;
+
+    private LoopbackTransport transport;
+
+    @Autowired
+    public EventSourcedCartStoreTest(CartEventRepo repo, MovieCatalog catalog, NamedParameterJdbcTemplate template,
+                                     PlatformTransactionManager transactionManager)
+    {
+        this.repo = repo;
+        this.catalog = catalog;
+        this.jdbc = template.getJdbcTemplate();
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    public void setup()
+    {
+        this.transport = new LoopbackTransport();
+        clearLog();
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        transport.close();
+        clearLog();
+    }
+
+    @Test
+    public void firstStartCarriesTableCartsOver()
+    {
+        EventSourcedCartStore store = store();
+
+        Assertions.assertEquals(3, store.size());
+        Assertions.assertEquals(lines(ADMIN_MOVIE, 2, 4154756L, 7, 4154796L, 8), cart(store, ADMIN));
+        Assertions.assertEquals(13, cart(store, EMPLOYEE).size());
+        Assertions.assertEquals(0L, count("SELECT last_event_id FROM billing.cart_snapshot"));
+        Assertions.assertEquals(0L, count("SELECT COUNT(*) FROM billing.cart_event"));
+
+        // Table rows written after the carry over are not carried again
+        jdbc.update("DELETE FROM billing.cart WHERE user_id = ?", ADMIN);
+        Assertions.assertEquals(3, store().size());
+    }
+
+    @Test
+    public void restoresFromSnapshotPlusTail()
+    {
+        EventSourcedCartStore store = store();
+
+        store.cartInsert(request(NEW_MOVIE, 4), ADMIN);
+        store.snapshot();
+
+        // The tail after the snapshot
+        store.cartUpdate(request(NEW_MOVIE, 6), ADMIN);
+        store.cartDelete(ADMIN_MOVIE, ADMIN);
+        store.cartClear(PREMIUM);
+
+        EventSourcedCartStore restored = store();
+
+        Assertions.assertEquals(lines(4154756L, 7, 4154796L, 8, NEW_MOVIE, 6), cart(restored, ADMIN));
+        Assertions.assertEquals(cart(store, EMPLOYEE), cart(restored, EMPLOYEE));
+        Assertions.assertTrue(cart(restored, PREMIUM).isEmpty());
+        Assertions.assertEquals(2, restored.size());
+    }
+
+    @Test
+    public void snapshotDeletesTheEventsItCovers()
+    {
+        EventSourcedCartStore store = store();
+
+        store.cartInsert(request(NEW_MOVIE, 4), ADMIN);
+        store.cartUpdate(request(NEW_MOVIE, 5), ADMIN);
+        Assertions.assertEquals(2L, count("SELECT COUNT(*) FROM billing.cart_event"));
+
+        store.snapshot();
+
+        Assertions.assertEquals(0L, count("SELECT COUNT(*) FROM billing.cart_event"));
+        Assertions.assertEquals(1L, count("SELECT COUNT(*) FROM billing.cart_snapshot"));
+        Assertions.assertEquals(20L, count("SELECT COUNT(*) FROM billing.cart_snapshot_item"));
+
+        // Nothing new to cover, so no snapshot is written
+        store.snapshot();
+        Assertions.assertEquals(1L, count("SELECT COUNT(*) FROM billing.cart_snapshot"));
+
+        Assertions.assertEquals(cart(store, ADMIN), cart(store(), ADMIN));
+    }
+
+    @Test
+    public void missesDoNotCreateCartsAndEmptyCartsAreDropped()
+    {
+        EventSourcedCartStore store = store();
+
+        Assertions.assertEquals(3, store.cartClear(ADMIN));
+        Assertions.assertEquals(2, store.size());
+
+        Assertions.assertEquals(0, store.cartUpdate(request(NEW_MOVIE, 1), ADMIN));
+        Assertions.assertEquals(0, store.cartDelete(NEW_MOVIE, ADMIN));
+        Assertions.assertEquals(0, store.cartClear(ADMIN));
+        Assertions.assertEquals(0, store.cartRemovePurchased(Collections.singletonList(item(ADMIN_MOVIE, 2)), ADMIN));
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertEquals(1L, count("SELECT COUNT(*) FROM billing.cart_event"));
+
+        store.cartInsert(request(NEW_MOVIE, 1), ADMIN);
+        Assertions.assertEquals(3, store.size());
+
+        store.cartDelete(NEW_MOVIE, ADMIN);
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertTrue(cart(store, ADMIN).isEmpty());
+
+        // Replayed deletes and clears leave no empty carts behind either
+        Assertions.assertEquals(2, store().size());
+    }
+
+    @Test
+    public void purchasedLinesLeaveOnlyOnceTheOrderCommits()
+    {
+        EventSourcedCartStore store     = store();
+        List<Item>            purchased = Collections.singletonList(item(ADMIN_MOVIE, 2));
+
+        transactions.executeWithoutResult(status -> {
+            store.cartRemovePurchased(purchased, ADMIN);
+            status.setRollbackOnly();
+        });
+        Assertions.assertEquals(3, cart(store, ADMIN).size());
+
+        transactions.executeWithoutResult(status -> {
+            store.cartRemovePurchased(purchased, ADMIN);
+            Assertions.assertTrue(cart(store, ADMIN).containsKey(ADMIN_MOVIE));
+        });
+        Assertions.assertEquals(lines(4154756L, 7, 4154796L, 8), cart(store, ADMIN));
+    }
+
+    private EventSourcedCartStore store()
+    {
+        EventSourcedCartStore store = new EventSourcedCartStore(
+            repo, catalog, new CartConfig("event-sourced", 60000L, 1, false), transport);
+
+        store.restore();
+
+        return store;
+    }
+
+    private void clearLog()
+    {
+        jdbc.update("DELETE FROM billing.cart_event");
+        jdbc.update("DELETE FROM billing.cart_snapshot");
+    }
+
+    private long count(String sql)
+    {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+
+    private static Map<Long, Integer> cart(EventSourcedCartStore store, long userId)
+    {
+        Map<Long, Integer> lines = new TreeMap<>();
+
+        for (Item item : store.cartRetrieve(false, userId)) {
+            lines.put(item.getMovieId(), item.getQuantity());
+        }
+
+        return lines;
+    }
+
+    private static Map<Long, Integer> lines(Object... movieQuantities)
+    {
+        Map<Long, Integer> lines = new TreeMap<>();
+
+        for (int i = 0; i < movieQuantities.length; i += 2) {
+            lines.put((Long) movieQuantities[i], (Integer) movieQuantities[i + 1]);
+        }
+
+        return lines;
+    }
+
+    private static CartInsertUpdateRequest request(long movieId, int quantity)
+    {
+        return new CartInsertUpdateRequest().setMovieId(movieId).setQuantity(quantity);
+    }
+
+    private static Item item(long movieId, int quantity)
+    {
+        return new Item().setMovieId(movieId).setQuantity(quantity);
+    }
+}
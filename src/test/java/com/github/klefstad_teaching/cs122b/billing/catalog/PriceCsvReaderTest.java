@@ -0,0 +1,48 @@
+package com.github.klefstad_teaching.cs122b.billing.catalog;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+public class PriceCsvReaderTest
+{
+    @Test
+    public void readsValidRowsAndSkipsHeader() throws Exception
+    {
+        PriceCsvReader reader = reader("movie_id,unit_price,premium_discount\n1,9.99,10\n\n\"2\", 0.5 ,25\n", 10);
+
+        Assertions.assertTrue(reader.next());
+        Assertions.assertEquals(1L, reader.getMovieId());
+        Assertions.assertEquals(new BigDecimal("9.99"), reader.getUnitPrice());
+        Assertions.assertEquals(10, reader.getPremiumDiscount());
+
+        Assertions.assertTrue(reader.next());
+        Assertions.assertEquals(2L, reader.getMovieId());
+        Assertions.assertEquals(25, reader.getPremiumDiscount());
+
+        Assertions.assertFalse(reader.next());
+        Assertions.assertEquals(0, reader.getRejected());
+    }
+
+    @Test
+    public void rejectsInvalidRowsWithCappedErrors() throws Exception
+    {
+        PriceCsvReader reader = reader("1,9.99,26\n2,-1,0\n3,1.00001,0\nx,1,0\n4,1\n5,1.00,5\n", 2);
+
+        Assertions.assertTrue(reader.next());
+        Assertions.assertEquals(5L, reader.getMovieId());
+        Assertions.assertFalse(reader.next());
+
+        Assertions.assertEquals(5, reader.getRejected());
+        Assertions.assertEquals(2, reader.getErrors().size());
+        Assertions.assertTrue(reader.getErrors().get(0).startsWith("line 1: premium_discount"));
+    }
+
+    private static PriceCsvReader reader(String csv, int maxErrors)
+    {
+        return new PriceCsvReader(new BufferedReader(new StringReader(csv)), maxErrors);
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.klefstad_teaching.cs122b.billing.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two buses on separate loopback transports stand in for two billing nodes in one JVM.
+ */
+public class CacheInvalidationBusTest
+{
+    private LoopbackTransport    transportA;
+    private LoopbackTransport    transportB;
+    private CacheInvalidationBus nodeA;
+    private CacheInvalidationBus nodeB;
+
+    @BeforeEach
+    public void setup()
+    {
+        this.transportA = new LoopbackTransport();
+        this.transportB = new LoopbackTransport();
+        this.nodeA = new CacheInvalidationBus(transportA);
+        this.nodeB = new CacheInvalidationBus(transportB);
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        transportA.close();
+        transportB.close();
+    }
+
+    @Test
+    public void invalidationReachesEveryNodeOnce()
+    {
+        List<Long> evictedA = new ArrayList<>();
+        List<Long> evictedB = new ArrayList<>();
+
+        nodeA.register(CacheRegion.CART, evictedA::add);
+        nodeB.register(CacheRegion.CART, evictedB::add);
+
+        nodeA.invalidate(CacheRegion.CART, 1370L);
+
+        Assertions.assertEquals(List.of(1370L), evictedA);
+        Assertions.assertEquals(List.of(1370L), evictedB);
+        Assertions.assertEquals(1, nodeA.getPublished());
+        Assertions.assertEquals(0, nodeA.getReceived());
+        Assertions.assertEquals(1, nodeB.getReceived());
+    }
+
+    @Test
+    public void otherRegionsAreUntouched()
+    {
+        List<Long> evicted = new ArrayList<>();
+
+        nodeB.register(CacheRegion.PRICE, evicted::add);
+
+        nodeA.invalidate(CacheRegion.SALE, 1370L);
+
+        Assertions.assertTrue(evicted.isEmpty());
+    }
+}
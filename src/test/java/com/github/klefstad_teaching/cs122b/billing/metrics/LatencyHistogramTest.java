@@ -0,0 +1,37 @@
+package com.github.klefstad_teaching.cs122b.billing.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void bucketsCoverEveryValueInOrder()
+    {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+
+            Assertions.assertTrue(LatencyHistogram.lowerBound(index) <= value, "lower bound of " + value);
+
+            if (value < Long.MAX_VALUE) {
+                Assertions.assertTrue(LatencyHistogram.index(value + 1) >= index, "monotonic at " + value);
+            }
+        }
+    }
+
+    @Test
+    public void percentilesStayWithinBucketPrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        Assertions.assertEquals(1_000, histogram.count());
+        Assertions.assertEquals(1_000_000, histogram.maxNanos());
+        Assertions.assertEquals(500_000, histogram.percentileNanos(50), 500_000 * 0.07);
+        Assertions.assertEquals(990_000, histogram.percentileNanos(99), 990_000 * 0.07);
+        Assertions.assertEquals(500_500, histogram.meanNanos(), 0.001);
+    }
+}
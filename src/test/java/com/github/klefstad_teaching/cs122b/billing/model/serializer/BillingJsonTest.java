@@ -0,0 +1,60 @@
+package com.github.klefstad_teaching.cs122b.billing.model.serializer;
+
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Sale;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The precompiled serializers must produce exactly what the reflective mapping did, nulls included.
+ */
+public class BillingJsonTest
+{
+    private final ObjectMapper compiled   = mapper();
+    private final ObjectMapper reflective = mapper()
+        .addMixIn(Item.class, Reflective.class)
+        .addMixIn(Sale.class, Reflective.class);
+
+    @Test
+    public void itemWithNullPathsMatchesReflectiveMapping() throws Exception
+    {
+        Item item = new Item()
+            .setUnitPrice(new BigDecimal("9.99"))
+            .setQuantity(2)
+            .setMovieId(5L)
+            .setMovieTitle("Title \"quoted\"");
+
+        Assertions.assertEquals(reflective.writeValueAsString(item), compiled.writeValueAsString(item));
+        Assertions.assertEquals(reflective.writeValueAsString(new Item()), compiled.writeValueAsString(new Item()));
+    }
+
+    @Test
+    public void saleMatchesReflectiveMapping() throws Exception
+    {
+        Sale sale = new Sale().setSaleId(3L).setTotal(new BigDecimal("19.98")).setOrderDate(Instant.EPOCH);
+
+        Assertions.assertEquals(reflective.writeValueAsString(sale), compiled.writeValueAsString(sale));
+        Assertions.assertEquals(reflective.writeValueAsString(new Sale()), compiled.writeValueAsString(new Sale()));
+    }
+
+    private static ObjectMapper mapper()
+    {
+        // Matches the Spring Boot defaults the service runs with
+        return new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @JsonSerialize(using = JsonSerializer.None.class)
+    private abstract static class Reflective
+    {
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.klefstad_teaching.cs122b.billing.outbox;
+
+import com.github.klefstad_teaching.cs122b.billing.config.OutboxConfig;
+import com.github.klefstad_teaching.cs122b.billing.repo.OutboxRepo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OutboxRelayTest
+{
+    @Test
+    public void failedBatchIsRedeliveredInOrder()
+    {
+        FakeOutbox     outbox    = new FakeOutbox(5);
+        List<Long>     delivered = new ArrayList<>();
+        boolean[]      fail      = {true};
+        OutboxSink     sink      = batch -> {
+            if (fail[0]) {
+                fail[0] = false;
+                throw new IllegalStateException("broker unavailable");
+            }
+
+            batch.forEach(event -> delivered.add(event.getId()));
+        };
+
+        OutboxRelay relay = relay(outbox, sink);
+
+        relay.relay();
+        Assertions.assertTrue(delivered.isEmpty());
+        Assertions.assertEquals(5, outbox.rows.size());
+
+        relay.relay();
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L), delivered);
+        Assertions.assertTrue(outbox.rows.isEmpty());
+        Assertions.assertEquals(5L, relay.metrics().get("published"));
+        Assertions.assertEquals(1L, relay.metrics().get("failures"));
+    }
+
+    @Test
+    public void onlyTheLeaseHolderPublishes()
+    {
+        FakeOutbox  outbox    = new FakeOutbox(3);
+        List<Long>  delivered = new ArrayList<>();
+        OutboxSink  sink      = batch -> batch.forEach(event -> delivered.add(event.getId()));
+        OutboxRelay leader    = relay(outbox, sink);
+        OutboxRelay follower  = relay(outbox, sink);
+
+        leader.relay();
+        outbox.rows.add(new OutboxEvent(4, OrderCompleted.EVENT_TYPE, 7, 4, "{}", System.currentTimeMillis()));
+
+        follower.relay();
+        Assertions.assertEquals(List.of(1L, 2L, 3L), delivered);
+
+        leader.close();
+        follower.relay();
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L), delivered);
+    }
+
+    private static OutboxRelay relay(OutboxRepo repo, OutboxSink sink)
+    {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("sink", sink);
+
+        return new OutboxRelay(new OutboxConfig(true, true, 2, Duration.ofSeconds(30)), repo, beans.getBeanProvider(OutboxSink.class));
+    }
+
+    private static final class FakeOutbox extends OutboxRepo
+    {
+        private final List<OutboxEvent> rows = new ArrayList<>();
+
+        private String leaseOwner;
+
+        private FakeOutbox(int events)
+        {
+            super(new NamedParameterJdbcTemplate(new JdbcTemplate()));
+
+            for (long id = 1; id <= events; id++) {
+                rows.add(new OutboxEvent(id, OrderCompleted.EVENT_TYPE, 7, id, "{}", System.currentTimeMillis()));
+            }
+        }
+
+        @Override
+        public boolean leaseAcquire(String owner, Duration ttl)
+        {
+            if (leaseOwner == null || leaseOwner.equals(owner)) {
+                leaseOwner = owner;
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public void leaseRelease(String owner)
+        {
+            if (owner.equals(leaseOwner)) {
+                leaseOwner = null;
+            }
+        }
+
+        @Override
+        public List<OutboxEvent> outboxBatch(int limit)
+        {
+            return new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+        }
+
+        @Override
+        public void outboxDelete(List<OutboxEvent> delivered)
+        {
+            rows.removeAll(delivered);
+        }
+
+        @Override
+        public long[] outboxBacklog()
+        {
+            return new long[]{rows.size(), 0};
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.klefstad_teaching.cs122b.billing.payment;
+
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.Webhook;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WebhookSimulatorTest
+{
+    private static final String SECRET = "whsec_test_secret";
+
+    @Test
+    public void simulatedEventsPassStripeVerification() throws Exception
+    {
+        long   now       = System.currentTimeMillis() / 1000;
+        String payload   = WebhookSimulator.paymentIntentSucceeded("evt_1", "pi_1", 42, 1999, now);
+        String signature = WebhookSimulator.signature(payload, SECRET, now);
+
+        Event         event  = Webhook.constructEvent(payload, signature, SECRET);
+        PaymentIntent intent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElseThrow();
+
+        Assertions.assertEquals(PaymentSucceeded.EVENT_TYPE, event.getType());
+        Assertions.assertEquals("evt_1", event.getId());
+        Assertions.assertEquals("pi_1", intent.getId());
+        Assertions.assertEquals(1999L, intent.getAmountReceived());
+        Assertions.assertEquals("42", intent.getMetadata().get("userId"));
+    }
+
+    @Test
+    public void tamperedOrStaleEventsAreRejected()
+    {
+        long   now       = System.currentTimeMillis() / 1000;
+        String payload   = WebhookSimulator.paymentIntentSucceeded("evt_1", "pi_1", 42, 1999, now);
+        String signature = WebhookSimulator.signature(payload, SECRET, now);
+
+        Assertions.assertThrows(SignatureVerificationException.class,
+                                () -> Webhook.constructEvent(payload.replace("1999", "1"), signature, SECRET));
+
+        long   stale          = now - 3600;
+        String stalePayload   = WebhookSimulator.paymentIntentSucceeded("evt_2", "pi_2", 42, 1999, stale);
+        String staleSignature = WebhookSimulator.signature(stalePayload, SECRET, stale);
+
+        Assertions.assertThrows(SignatureVerificationException.class,
+                                () -> Webhook.constructEvent(stalePayload, staleSignature, SECRET, 300));
+    }
+}
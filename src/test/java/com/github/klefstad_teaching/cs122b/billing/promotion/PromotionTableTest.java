@@ -0,0 +1,109 @@
+package com.github.klefstad_teaching.cs122b.billing.promotion;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PromotionTableTest
+{
+    private static final long         MOVIE    = 1843866L;
+    private static final long         OTHER    = 4154756L;
+    private static final BigDecimal   PRICE    = new BigDecimal("19.95");
+    private static final long         NOW      = 1_000L;
+    private static final List<String> CUSTOMER = Collections.singletonList("CUSTOMER");
+
+    @Test
+    public void percentageRoundsDownAndFloorsAtZero()
+    {
+        Assertions.assertEquals(new BigDecimal("14.96"), rule(PromotionKind.PERCENTAGE, "25").apply(PRICE, 1));
+        Assertions.assertEquals(new BigDecimal("0.00"), rule(PromotionKind.PERCENTAGE, "150").apply(PRICE, 1));
+    }
+
+    @Test
+    public void fixedFloorsAtZero()
+    {
+        Assertions.assertEquals(new BigDecimal("14.95"), rule(PromotionKind.FIXED, "5").apply(PRICE, 1));
+        Assertions.assertEquals(new BigDecimal("0.00"), rule(PromotionKind.FIXED, "30").apply(PRICE, 1));
+    }
+
+    @Test
+    public void buyNSpreadsFreeUnitsAndRoundsDown()
+    {
+        PromotionRule buyTwoGetOne = buyN(2, 1);
+
+        // Too few units for a free one
+        Assertions.assertEquals(PRICE, buyTwoGetOne.apply(PRICE, 2));
+        // 2 of 3 paid: 39.90 / 3
+        Assertions.assertEquals(new BigDecimal("13.30"), buyTwoGetOne.apply(PRICE, 3));
+        // 3 of 4 paid: 59.85 / 4 = 14.9625
+        Assertions.assertEquals(new BigDecimal("14.96"), buyTwoGetOne.apply(PRICE, 4));
+        // 4 of 6 paid: 6.666...
+        Assertions.assertEquals(new BigDecimal("6.66"), buyTwoGetOne.apply(BigDecimal.TEN, 6));
+        Assertions.assertEquals(PRICE, buyN(2, 0).apply(PRICE, 6));
+    }
+
+    @Test
+    public void rolesMatchIgnoringCase()
+    {
+        PromotionTable table = PromotionTable.compile(Collections.singletonList(
+            new PromotionRule(1, PromotionKind.FIXED, MOVIE, "Premium", new BigDecimal("5"), 0, 0,
+                              Long.MIN_VALUE, Long.MAX_VALUE)), NOW);
+
+        Assertions.assertEquals(new BigDecimal("14.95"),
+                                table.bestPrice(MOVIE, PRICE, 1, Collections.singletonList("PREMIUM"), NOW));
+        Assertions.assertEquals(new BigDecimal("14.95"),
+                                table.bestPrice(MOVIE, PRICE, 1, Collections.singletonList("premium"), NOW));
+        Assertions.assertEquals(PRICE, table.bestPrice(MOVIE, PRICE, 1, CUSTOMER, NOW));
+    }
+
+    @Test
+    public void windowIncludesStartAndExcludesEnd()
+    {
+        PromotionTable table = PromotionTable.compile(Collections.singletonList(
+            new PromotionRule(1, PromotionKind.FIXED, MOVIE, null, new BigDecimal("5"), 0, 0, 2_000, 3_000)), NOW);
+
+        Assertions.assertEquals(1, table.size());
+        Assertions.assertEquals(PRICE, table.bestPrice(MOVIE, PRICE, 1, CUSTOMER, 1_999));
+        Assertions.assertEquals(new BigDecimal("14.95"), table.bestPrice(MOVIE, PRICE, 1, CUSTOMER, 2_000));
+        Assertions.assertEquals(new BigDecimal("14.95"), table.bestPrice(MOVIE, PRICE, 1, CUSTOMER, 2_999));
+        Assertions.assertEquals(PRICE, table.bestPrice(MOVIE, PRICE, 1, CUSTOMER, 3_000));
+
+        // Rules that ended before compilation are dropped
+        Assertions.assertTrue(PromotionTable.compile(Collections.singletonList(
+            new PromotionRule(1, PromotionKind.FIXED, MOVIE, null, new BigDecimal("5"), 0, 0, 0, NOW)), NOW).isEmpty());
+    }
+
+    @Test
+    public void bestPriceWinsWithoutStacking()
+    {
+        PromotionTable table = PromotionTable.compile(Arrays.asList(
+            new PromotionRule(1, PromotionKind.PERCENTAGE, MOVIE, null, new BigDecimal("10"), 0, 0,
+                              Long.MIN_VALUE, Long.MAX_VALUE),
+            new PromotionRule(2, PromotionKind.FIXED, null, null, new BigDecimal("3"), 0, 0,
+                              Long.MIN_VALUE, Long.MAX_VALUE),
+            new PromotionRule(3, PromotionKind.FIXED, MOVIE, "CUSTOMER", new BigDecimal("1"), 0, 0,
+                              Long.MIN_VALUE, Long.MAX_VALUE)
+        ), NOW);
+
+        // 10% gives 17.95, 3 off gives 16.95 and 1 off gives 18.95; only the lowest applies
+        Assertions.assertEquals(new BigDecimal("16.95"), table.bestPrice(MOVIE, PRICE, 1, CUSTOMER, NOW));
+        // Only the any-movie rule matches another movie
+        Assertions.assertEquals(new BigDecimal("16.95"), table.bestPrice(OTHER, PRICE, 1, CUSTOMER, NOW));
+        Assertions.assertEquals(new BigDecimal("1.00"),
+                                table.bestPrice(OTHER, new BigDecimal("4.00"), 1, CUSTOMER, NOW));
+    }
+
+    private static PromotionRule rule(PromotionKind kind, String amount)
+    {
+        return new PromotionRule(1, kind, MOVIE, null, new BigDecimal(amount), 0, 0, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static PromotionRule buyN(int buy, int free)
+    {
+        return new PromotionRule(1, PromotionKind.BUY_N, MOVIE, null, null, buy, free, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import com.github.klefstad_teaching.cs122b.billing.config.ConcurrencyLimitConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest
+{
+    private static final long RTT = 1_000_000;
+
+    @Test
+    public void classesFillTheirShareOfTheLimit()
+    {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 200);
+
+        // A limit of 20 lets admin calls fill 10 slots, sheddable 14, high 18 and critical all 20
+        Assertions.assertEquals(10, fill(limiter, PriorityClass.ADMIN));
+        Assertions.assertEquals(4, fill(limiter, PriorityClass.SHEDDABLE));
+        Assertions.assertEquals(4, fill(limiter, PriorityClass.HIGH));
+        Assertions.assertEquals(2, fill(limiter, PriorityClass.CRITICAL));
+        Assertions.assertEquals(20, limiter.getInFlight());
+
+        limiter.releaseWithoutSample();
+
+        Assertions.assertFalse(limiter.tryAcquire(PriorityClass.HIGH));
+        Assertions.assertTrue(limiter.tryAcquire(PriorityClass.CRITICAL));
+    }
+
+    @Test
+    public void risingLatencyShrinksTheLimitToItsFloor()
+    {
+        AdaptiveConcurrencyLimiter limiter = limiter(6, 200);
+
+        fill(limiter, PriorityClass.CRITICAL);
+        limiter.release(RTT);
+        Assertions.assertEquals(20, limiter.getLimit());
+
+        // The gradient bottoms out at 0.5: 20 * 0.5 + sqrt(20)
+        limiter.release(10 * RTT);
+        Assertions.assertEquals(14, limiter.getLimit());
+
+        while (limiter.getInFlight() > 0) {
+            limiter.release(10 * RTT);
+        }
+
+        Assertions.assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    public void steadyLatencyGrowsTheLimitToItsCeiling()
+    {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 30);
+
+        fill(limiter, PriorityClass.CRITICAL);
+        limiter.release(RTT);
+
+        // 20 + sqrt(20)
+        fill(limiter, PriorityClass.CRITICAL);
+        limiter.release(RTT);
+        Assertions.assertEquals(24, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            fill(limiter, PriorityClass.CRITICAL);
+            limiter.release(RTT);
+        }
+
+        Assertions.assertEquals(30, limiter.getLimit());
+    }
+
+    @Test
+    public void limitHoldsWhileMostlyIdle()
+    {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 200);
+
+        limiter.tryAcquire(PriorityClass.CRITICAL);
+        limiter.release(RTT);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(PriorityClass.CRITICAL);
+            limiter.release(10 * RTT);
+        }
+
+        Assertions.assertEquals(20, limiter.getLimit());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int minLimit, int maxLimit)
+    {
+        // No smoothing, so each sample moves the limit by the whole gradient step
+        return new AdaptiveConcurrencyLimiter(
+            new ConcurrencyLimitConfig(true, 20, minLimit, maxLimit, 1.0, 0.9, 0.7, 0.5));
+    }
+
+    private static int fill(AdaptiveConcurrencyLimiter limiter, PriorityClass priorityClass)
+    {
+        int acquired = 0;
+
+        while (limiter.tryAcquire(priorityClass)) {
+            acquired++;
+        }
+
+        return acquired;
+    }
+}
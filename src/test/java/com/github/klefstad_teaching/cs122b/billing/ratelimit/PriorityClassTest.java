@@ -0,0 +1,40 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PriorityClassTest
+{
+    @Test
+    public void classifiesUserEndpoints()
+    {
+        Assertions.assertEquals(PriorityClass.CRITICAL, PriorityClass.of("/order/complete"));
+
+        Assertions.assertEquals(PriorityClass.HIGH, PriorityClass.of("/order/payment"));
+        Assertions.assertEquals(PriorityClass.HIGH, PriorityClass.of("/cart/insert"));
+        Assertions.assertEquals(PriorityClass.HIGH, PriorityClass.of("/cart/delete/1843866"));
+
+        Assertions.assertEquals(PriorityClass.SHEDDABLE, PriorityClass.of("/cart/retrieve"));
+        Assertions.assertEquals(PriorityClass.SHEDDABLE, PriorityClass.of("/order/list"));
+        Assertions.assertEquals(PriorityClass.SHEDDABLE, PriorityClass.of("/order/detail/1"));
+        Assertions.assertEquals(PriorityClass.SHEDDABLE, PriorityClass.of("/order/details"));
+    }
+
+    @Test
+    public void paymentEventsAreNotShedWithAdminCalls()
+    {
+        Assertions.assertEquals(PriorityClass.HIGH, PriorityClass.of("/webhook/stripe"));
+        Assertions.assertEquals(PriorityClass.HIGH, PriorityClass.of("/webhook/simulate/pi_test"));
+    }
+
+    @Test
+    public void adminAndUnlistedEndpointsAreShedFirst()
+    {
+        Assertions.assertEquals(PriorityClass.ADMIN, PriorityClass.of("/prices/upload"));
+        Assertions.assertEquals(PriorityClass.ADMIN, PriorityClass.of("/metrics/latency"));
+        Assertions.assertEquals(PriorityClass.ADMIN, PriorityClass.of("/metrics/slow-queries"));
+        Assertions.assertEquals(PriorityClass.ADMIN, PriorityClass.of("/traces"));
+        Assertions.assertEquals(PriorityClass.ADMIN, PriorityClass.of("/traces/abc"));
+        Assertions.assertEquals(PriorityClass.ADMIN, PriorityClass.of("/unknown"));
+    }
+}
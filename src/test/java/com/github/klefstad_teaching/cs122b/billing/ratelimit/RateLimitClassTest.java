@@ -0,0 +1,34 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RateLimitClassTest
+{
+    @Test
+    public void classifiesEveryUserEndpoint()
+    {
+        Assertions.assertEquals(RateLimitClass.MUTATION, RateLimitClass.of("/cart/insert"));
+        Assertions.assertEquals(RateLimitClass.MUTATION, RateLimitClass.of("/cart/update"));
+        Assertions.assertEquals(RateLimitClass.MUTATION, RateLimitClass.of("/cart/delete/1843866"));
+        Assertions.assertEquals(RateLimitClass.MUTATION, RateLimitClass.of("/cart/clear"));
+
+        Assertions.assertEquals(RateLimitClass.READ, RateLimitClass.of("/cart/retrieve"));
+        Assertions.assertEquals(RateLimitClass.READ, RateLimitClass.of("/order/list"));
+        Assertions.assertEquals(RateLimitClass.READ, RateLimitClass.of("/order/detail/1"));
+        Assertions.assertEquals(RateLimitClass.READ, RateLimitClass.of("/order/details"));
+
+        Assertions.assertEquals(RateLimitClass.CHECKOUT, RateLimitClass.of("/order/payment"));
+        Assertions.assertEquals(RateLimitClass.CHECKOUT, RateLimitClass.of("/order/complete"));
+    }
+
+    @Test
+    public void leavesServiceEndpointsUnlimited()
+    {
+        Assertions.assertNull(RateLimitClass.of("/webhook/stripe"));
+        Assertions.assertNull(RateLimitClass.of("/webhook/simulate/pi_test"));
+        Assertions.assertNull(RateLimitClass.of("/prices/upload"));
+        Assertions.assertNull(RateLimitClass.of("/metrics/latency"));
+        Assertions.assertNull(RateLimitClass.of("/traces"));
+    }
+}
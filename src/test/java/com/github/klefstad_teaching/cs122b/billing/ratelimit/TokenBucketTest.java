@@ -0,0 +1,66 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest
+{
+    private static final long INTERVAL = 100;
+    private static final long BURST    = INTERVAL * 2;
+
+    @Test
+    public void fullBucketGivesTheBurstAtOnce()
+    {
+        TokenBucket bucket = new TokenBucket();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, bucket.tryAcquire(1_000, INTERVAL, BURST), "token " + i);
+        }
+
+        // The fourth token arrives one interval later
+        Assertions.assertEquals(INTERVAL, bucket.tryAcquire(1_000, INTERVAL, BURST));
+        Assertions.assertEquals(1, bucket.tryAcquire(1_099, INTERVAL, BURST));
+        Assertions.assertEquals(0, bucket.tryAcquire(1_100, INTERVAL, BURST));
+        Assertions.assertEquals(INTERVAL, bucket.tryAcquire(1_100, INTERVAL, BURST));
+    }
+
+    @Test
+    public void refusedCallsTakeNothing()
+    {
+        TokenBucket bucket = new TokenBucket();
+
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(0, INTERVAL, BURST);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(INTERVAL, bucket.tryAcquire(0, INTERVAL, BURST));
+        }
+
+        Assertions.assertEquals(0, bucket.tryAcquire(INTERVAL, INTERVAL, BURST));
+    }
+
+    @Test
+    public void steadyRateNeverWaits()
+    {
+        TokenBucket bucket = new TokenBucket();
+
+        for (long now = 0; now < 100 * INTERVAL; now += INTERVAL) {
+            Assertions.assertEquals(0, bucket.tryAcquire(now, INTERVAL, 0), "at " + now);
+        }
+    }
+
+    @Test
+    public void bucketIsIdleOnceItHasRefilled()
+    {
+        TokenBucket bucket = new TokenBucket();
+
+        Assertions.assertTrue(bucket.isIdle(0));
+
+        bucket.tryAcquire(0, INTERVAL, BURST);
+        bucket.tryAcquire(0, INTERVAL, BURST);
+
+        Assertions.assertFalse(bucket.isIdle(2 * INTERVAL - 1));
+        Assertions.assertTrue(bucket.isIdle(2 * INTERVAL));
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.klefstad_teaching.cs122b.billing.ratelimit;
+
+import com.github.klefstad_teaching.cs122b.billing.config.RateLimitConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class UserRateLimiterTest
+{
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 10 mutations a second in bursts of 3, 20 reads in bursts of 50, 1 checkout in bursts of 5
+    private final UserRateLimiter limiter =
+        new UserRateLimiter(new RateLimitConfig(true, 2, 10.0, 3, 20.0, 50, 1.0, 5));
+
+    @Test
+    public void configuredRateAndBurstPerClass()
+    {
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire(1, RateLimitClass.MUTATION, 0));
+        }
+
+        Assertions.assertEquals(100 * MILLIS, limiter.tryAcquire(1, RateLimitClass.MUTATION, 0));
+        Assertions.assertEquals(0, limiter.tryAcquire(1, RateLimitClass.MUTATION, 100 * MILLIS));
+
+        // Each class has its own bucket
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire(1, RateLimitClass.CHECKOUT, 0));
+        }
+
+        Assertions.assertEquals(1_000 * MILLIS, limiter.tryAcquire(1, RateLimitClass.CHECKOUT, 0));
+        Assertions.assertEquals(0, limiter.tryAcquire(1, RateLimitClass.READ, 0));
+
+        // And so does each user
+        Assertions.assertEquals(0, limiter.tryAcquire(2, RateLimitClass.CHECKOUT, 0));
+    }
+
+    @Test
+    public void evictsIdleUsersAtMaxUsers()
+    {
+        limiter.tryAcquire(1, RateLimitClass.MUTATION, 0);
+        limiter.tryAcquire(2, RateLimitClass.MUTATION, 0);
+        Assertions.assertEquals(2, limiter.size());
+
+        // Neither bucket has refilled yet, so nothing can be dropped
+        limiter.tryAcquire(3, RateLimitClass.MUTATION, 50 * MILLIS);
+        Assertions.assertEquals(3, limiter.size());
+
+        // All three have refilled a second later
+        limiter.tryAcquire(4, RateLimitClass.MUTATION, 1_000 * MILLIS);
+        Assertions.assertEquals(1, limiter.size());
+
+        // Known users are never evicted on their own calls
+        limiter.tryAcquire(4, RateLimitClass.MUTATION, 2_000 * MILLIS);
+        Assertions.assertEquals(1, limiter.size());
+    }
+
+    @Test
+    public void retryAfterRoundsUpToWholeSeconds()
+    {
+        Assertions.assertEquals(1, RateLimitInterceptor.retryAfterSeconds(1));
+        Assertions.assertEquals(1, RateLimitInterceptor.retryAfterSeconds(100 * MILLIS));
+        Assertions.assertEquals(1, RateLimitInterceptor.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1)));
+        Assertions.assertEquals(2, RateLimitInterceptor.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1) + 1));
+        Assertions.assertEquals(5, RateLimitInterceptor.retryAfterSeconds(TimeUnit.SECONDS.toNanos(5)));
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.klefstad_teaching.cs122b.billing.repo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs EXPLAIN on every SQL statement declared in the repos against the seeded database and fails
+ * when any table is read with a full table or full index scan, or needs a filesort.
+ * <p>
+ * Statements are explained with typed sample binds, so a string key is compared with a string and
+ * can use its index. Binds not listed in {@link #BINDS} default to the number 1.
+ */
+@SpringBootTest
+@Sql({"/idm-test-data.sql", "/billing-test-data.sql"})
+public class RepoExplainTest
+{
+    private static final List<Class<?>> REPOS = Arrays.asList(
+        BillingRepo.class, WebhookEventRepo.class, OutboxRepo.class, PriceUploadRepo.class
+    );
+
+    private static final String    INTENT = "pi_explain";
+    private static final String    EVENT  = "evt_explain";
+    private static final String    UPLOAD = "00000000-0000-0000-0000-000000000000";
+    private static final Timestamp NOW    = Timestamp.from(Instant.now());
+
+    private static final Map<String, Object[]> BINDS = new HashMap<>();
+
+    // Pieces of statements that are assembled at runtime
+    private static final Set<String> FRAGMENTS = new HashSet<>(Arrays.asList(
+        "PriceUploadRepo.STAGING_INSERT", "PriceUploadRepo.STAGING_UPSERT"
+    ));
+
+    // Statements that read a whole index on purpose
+    private static final Set<String> SCANS = new HashSet<>(Arrays.asList(
+        "OutboxRepo.OUTBOX_BATCH",  // the first LIMIT rows of the primary key, then stops
+        "OutboxRepo.OUTBOX_BACKLOG" // counts the outbox, which the relay keeps to a batch or two
+    ));
+
+    static {
+        binds("BillingRepo.CART_IDLE_USERS", 0L, NOW, 10);
+        binds("BillingRepo.CART_IDLE_LOCK", 1L, NOW);
+        binds("BillingRepo.SNAPSHOT_INSERT", INTENT, 1L, 100L);
+        binds("BillingRepo.SNAPSHOT_ITEM_INSERT", INTENT, 1L, 1, 1.0, false);
+        binds("BillingRepo.SNAPSHOT_RETRIEVE", INTENT, 1L);
+        binds("BillingRepo.SNAPSHOT_DELETE", INTENT, 1L);
+        binds("BillingRepo.SNAPSHOT_EXPIRED", NOW, 10);
+        binds("BillingRepo.SNAPSHOT_LOCK", INTENT, 1L);
+        binds("BillingRepo.SNAPSHOT_RESERVED", INTENT);
+        binds("BillingRepo.SNAPSHOT_PURGE", INTENT);
+        binds("BillingRepo.OUTBOX_INSERT", "ORDER_COMPLETED", 1L, 1, "{}");
+
+        binds("WebhookEventRepo.EVENT_INSERT", EVENT, INTENT, 1L, 100L);
+        binds("WebhookEventRepo.EVENT_PENDING", 10);
+        binds("WebhookEventRepo.EVENT_CLAIM", EVENT);
+        binds("WebhookEventRepo.EVENT_OUTCOME", "COMPLETED", EVENT);
+        binds("WebhookEventRepo.EVENT_ATTEMPT", 5, "FAILED", EVENT);
+        binds("WebhookEventRepo.INTENT_OUTCOME", INTENT, 1L);
+
+        binds("OutboxRepo.OUTBOX_BATCH", 10);
+        binds("OutboxRepo.LEASE_ACQUIRE", "relay", 30_000_000L, "relay");
+        binds("OutboxRepo.LEASE_RELEASE", "relay");
+
+        binds("PriceUploadRepo.STAGING_UNKNOWN_MOVIES", UPLOAD, 10);
+        binds("PriceUploadRepo.STAGING_APPLY", UPLOAD);
+        binds("PriceUploadRepo.STAGING_DISCARD", UPLOAD);
+    }
+
+    private final NamedParameterJdbcTemplate template;
+
+    @Autowired
+    public RepoExplainTest(NamedParameterJdbcTemplate template)
+    {
+        this.template = template;
+    }
+
+    @TestFactory
+    public List<DynamicTest> statementsUseIndexes()
+        throws IllegalAccessException
+    {
+        List<DynamicTest> tests = new ArrayList<>();
+
+        for (Class<?> repo : REPOS) {
+            for (Field field : repo.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class) {
+                    continue;
+                }
+
+                String name = repo.getSimpleName() + "." + field.getName();
+
+                if (FRAGMENTS.contains(name)) {
+                    continue;
+                }
+
+                field.setAccessible(true);
+
+                String sql = (String) field.get(null);
+
+                tests.add(DynamicTest.dynamicTest(name, () -> assertUsesIndexes(name, sql)));
+            }
+        }
+
+        return tests;
+    }
+
+    private void assertUsesIndexes(String name, String sql)
+    {
+        String   explainable = sql.trim().replaceAll(";$", "");
+        Object[] binds       = BINDS.get(name);
+
+        if (binds == null) {
+            binds = new Object[(int) explainable.chars().filter(c -> c == '?').count()];
+            Arrays.fill(binds, 1L);
+        }
+
+        List<Map<String, Object>> plan = template.getJdbcTemplate().queryForList("EXPLAIN " + explainable, binds);
+
+        for (Map<String, Object> row : plan) {
+            if ("INSERT".equals(row.get("select_type"))) {
+                continue;
+            }
+
+            Object type  = row.get("type");
+            Object extra = row.get("Extra");
+
+            if (!SCANS.contains(name)) {
+                Assertions.assertFalse("ALL".equals(type) || "index".equals(type),
+                                       name + " scans all of " + row.get("table") + ": " + row);
+            }
+
+            Assertions.assertFalse(extra != null && extra.toString().contains("Using filesort"),
+                                   name + " needs a filesort on " + row.get("table") + ": " + row);
+        }
+    }
+
+    private static void binds(String statement, Object... values)
+    {
+        BINDS.put(statement, values);
+    }
+}
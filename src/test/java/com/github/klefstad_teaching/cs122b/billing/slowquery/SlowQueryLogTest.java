@@ -0,0 +1,49 @@
+package com.github.klefstad_teaching.cs122b.billing.slowquery;
+
+import com.github.klefstad_teaching.cs122b.billing.config.SlowQueryConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SlowQueryLogTest
+{
+    private static SlowQueryLog log(int capacity, String salt)
+    {
+        return new SlowQueryLog(new SlowQueryConfig(true, 100L, capacity, 1.0, salt, false, "", 0L, 0, 1));
+    }
+
+    @Test
+    public void hashesUserIdsAndKeepsOtherBinds()
+    {
+        SlowQueryLog log = log(4, "pepper");
+
+        log.record("CART_UPDATE", 42L, new Object[]{7L, 3}, 1, 250_000_000L, 40_000_000L);
+
+        SlowQuery query = log.recent().get(0);
+
+        Assertions.assertEquals(log.hash(42L), query.getUserHash());
+        Assertions.assertEquals(16, query.getUserHash().length());
+        Assertions.assertEquals(Arrays.asList(7L, 3), query.getBinds());
+        Assertions.assertEquals(250_000, query.getElapsedMicros());
+        Assertions.assertEquals(40_000, query.getConnectionWaitMicros());
+        Assertions.assertEquals(log(1, "pepper").hash(42L), query.getUserHash());
+    }
+
+    @Test
+    public void keepsOnlyTheNewestEntries()
+    {
+        SlowQueryLog log = log(2, "");
+
+        for (int i = 0; i < 5; i++) {
+            log.record("ORDER_LIST", (long) i, new Object[0], i, 200_000_000L, 0);
+        }
+
+        List<SlowQuery> recent = log.recent();
+
+        Assertions.assertEquals(2, recent.size());
+        Assertions.assertEquals(4, recent.get(0).getRows());
+        Assertions.assertEquals(3, recent.get(1).getRows());
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.klefstad_teaching.cs122b.billing.stock;
+
+import com.github.klefstad_teaching.cs122b.billing.config.CheckoutConfig;
+import com.github.klefstad_teaching.cs122b.billing.config.FlashSaleConfig;
+import com.github.klefstad_teaching.cs122b.billing.model.Data.Item;
+import com.github.klefstad_teaching.cs122b.billing.repo.BillingRepo;
+import com.github.klefstad_teaching.cs122b.billing.repo.PaymentSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+@Sql({"/idm-test-data.sql", "/billing-test-data.sql"})
+public class StockLedgerTest
+{
+    private static final long HOT_MOVIE   = 1843866L;
+    private static final long OTHER_MOVIE = 4154756L;
+    private static final long PLAIN_MOVIE = 4154796L;
+    private static final long USER_ID     = 1L;
+
+    private final BillingRepo         repo;
+    private final JdbcTemplate        jdbc;
+    private final TransactionTemplate transactions;
+    private final StockLedger         ledger;
+
+    @Autowired
+    public StockLedgerTest(BillingRepo repo, NamedParameterJdbcTemplate template,
+                           PlatformTransactionManager transactionManager)
+    {
+        this.repo = repo;
+        this.jdbc = template.getJdbcTemplate();
+        this.transactions = new TransactionTemplate(transactionManager);
+
+        // The test configuration leaves flash sale mode off
+        this.ledger = new StockLedger(new FlashSaleConfig(true), new CheckoutConfig(true, Duration.ofDays(1)), repo);
+    }
+
+    @AfterEach
+    public void cleanup()
+    {
+        jdbc.update("DELETE FROM billing.payment_snapshot WHERE user_id = ?", USER_ID);
+        jdbc.update("DELETE FROM billing.movie_stock WHERE movie_id IN (?, ?)", HOT_MOVIE, OTHER_MOVIE);
+    }
+
+    @Test
+    public void concurrentBuyersNeverOversell() throws Exception
+    {
+        stock(100);
+
+        ExecutorService pool    = Executors.newFixedThreadPool(8);
+        CountDownLatch  start   = new CountDownLatch(1);
+        AtomicInteger   granted = new AtomicInteger();
+
+        for (int i = 0; i < 300; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    reserve(Collections.singletonList(item(HOT_MOVIE, 1)));
+                    granted.incrementAndGet();
+                } catch (SoldOutException ignored) {
+                }
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(100, granted.get());
+        Assertions.assertEquals(0, remaining(HOT_MOVIE));
+    }
+
+    @Test
+    public void soldOutLineReturnsEarlierLines()
+    {
+        stock(1);
+
+        Assertions.assertThrows(SoldOutException.class,
+                                () -> reserve(Arrays.asList(item(OTHER_MOVIE, 2), item(HOT_MOVIE, 2))));
+        Assertions.assertEquals(5, remaining(OTHER_MOVIE));
+        Assertions.assertEquals(1, remaining(HOT_MOVIE));
+        Assertions.assertTrue(reserve(Collections.singletonList(item(PLAIN_MOVIE, 1))).isEmpty());
+    }
+
+    @Test
+    public void purgedSnapshotPutsItsStockBackOnSale()
+    {
+        stock(3);
+
+        List<Item> items = Arrays.asList(item(HOT_MOVIE, 2), item(PLAIN_MOVIE, 1));
+
+        transactions.executeWithoutResult(status -> {
+            Set<Long> limited = ledger.limited(items);
+
+            repo.snapshotInsert("pi_stock_test", USER_ID, 300, items, limited);
+            ledger.reserve(items, limited, USER_ID);
+        });
+        Assertions.assertEquals(1, remaining(HOT_MOVIE));
+
+        Assertions.assertEquals(1, repo.snapshotPurge(Timestamp.from(Instant.now().plusSeconds(60)), 10));
+        Assertions.assertEquals(3, remaining(HOT_MOVIE));
+    }
+
+    @Test
+    public void commitTakesLinesThatWereNotReserved()
+    {
+        stock(1);
+
+        PaymentSnapshot snapshot = new PaymentSnapshot("pi_stock_test", USER_ID, 100,
+                                                       Collections.singletonList(item(HOT_MOVIE, 1)),
+                                                       Collections.emptySet());
+
+        transactions.executeWithoutResult(status -> ledger.commit(snapshot));
+        Assertions.assertEquals(0, remaining(HOT_MOVIE));
+
+        Assertions.assertThrows(SoldOutException.class,
+                                () -> transactions.executeWithoutResult(status -> ledger.commit(snapshot)));
+    }
+
+    @Test
+    public void soldOutGateDoesNotWaitForTheRowLock() throws Exception
+    {
+        stock(0);
+
+        CountDownLatch locked  = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread         holder  = new Thread(() -> transactions.executeWithoutResult(status -> {
+            jdbc.update("UPDATE billing.movie_stock SET remaining = remaining WHERE movie_id = ?", HOT_MOVIE);
+            locked.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+
+        holder.start();
+
+        try {
+            Assertions.assertTrue(locked.await(10, TimeUnit.SECONDS));
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(2), () -> Assertions.assertThrows(
+                SoldOutException.class, () -> ledger.limited(Collections.singletonList(item(HOT_MOVIE, 1)))));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    private void stock(int hotStock)
+    {
+        jdbc.update("INSERT INTO billing.movie_stock (movie_id, remaining) VALUES (?, ?), (?, 5)",
+                    HOT_MOVIE, hotStock, OTHER_MOVIE);
+    }
+
+    private Set<Long> reserve(List<Item> items)
+    {
+        return transactions.execute(status -> {
+            Set<Long> limited = ledger.limited(items);
+
+            ledger.reserve(items, limited, USER_ID);
+
+            return limited;
+        });
+    }
+
+    private int remaining(long movieId)
+    {
+        return jdbc.queryForObject("SELECT remaining FROM billing.movie_stock WHERE movie_id = ?",
+                                   Integer.class, movieId);
+    }
+
+    private static Item item(long movieId, int quantity)
+    {
+        return new Item().setMovieId(movieId).setQuantity(quantity).setUnitPrice(BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.klefstad_teaching.cs122b.billing.tracing;
+
+import com.github.klefstad_teaching.cs122b.billing.config.TracingConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class TracerTest
+{
+    private static final String PARENT_TRACE = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN  = "00f067aa0ba902b7";
+
+    private static Tracer tracer(double ratio, long slowThresholdMs)
+    {
+        return new Tracer(new TracingConfig(true, ratio, 100, slowThresholdMs, "memory", 10, "", 1));
+    }
+
+    @Test
+    public void continuesSampledParentAndNestsChildSpans()
+    {
+        Tracer tracer = tracer(0.0, 0);
+
+        try (Span root = tracer.startRoot("HTTP GET", "00-" + PARENT_TRACE + "-" + PARENT_SPAN + "-01")) {
+            try (Span db = tracer.start("db CART_RETRIEVE").attribute("db.statement.name", "CART_RETRIEVE")) {
+                db.attribute("cart.size", 3);
+            }
+        }
+
+        List<Span> trace = tracer.getMemoryExporter().trace(PARENT_TRACE);
+
+        Assertions.assertNotNull(trace);
+        Assertions.assertEquals(2, trace.size());
+        Assertions.assertEquals(PARENT_SPAN, trace.get(0).getParentSpanId());
+        Assertions.assertEquals(trace.get(0).getSpanId(), trace.get(1).getParentSpanId());
+        Assertions.assertEquals(3, trace.get(1).getAttributes().get("cart.size"));
+        Assertions.assertFalse(tracer.current().isRecording());
+    }
+
+    @Test
+    public void dropsUnsampledTracesUnlessSlow()
+    {
+        Tracer fast = tracer(0.0, 0);
+
+        Assertions.assertSame(Span.NOOP, fast.startRoot("HTTP GET", null));
+        Assertions.assertSame(Span.NOOP, fast.start("db CART_RETRIEVE"));
+
+        Tracer slow = tracer(0.0, 1_000);
+
+        try (Span root = slow.startRoot("HTTP GET", null)) {
+            Assertions.assertTrue(root.isRecording());
+        }
+
+        Assertions.assertTrue(slow.getMemoryExporter().traces().isEmpty());
+    }
+}